@@ -0,0 +1,286 @@
+package org.berthold.beamCalc.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.berthold.beamCalc.Beam;
+
+/**
+ * Benchmarks of the solvers and of drawing.
+ * <p>
+ * 
+ * Each stage (see {@link BenchmarkStages}) is measured for every combination of
+ * beam length, number of loads, load mix and section length. Every benchmark
+ * runs in a JVM of its own (a fork), so the JIT of one benchmark does not
+ * influence the next. Throughput, latency percentiles and the allocated bytes
+ * are printed and written to a CSV file.
+ * <p>
+ * 
+ * Example, run from the output folder of the project:
+ * 
+ * <pre>
+ * java -cp . org.berthold.beamCalc.bench.BeamBenchmark -stages q,m,qmn -loads 10,100 -h 0.001,0.0001
+ * java -cp . org.berthold.beamCalc.bench.BeamBenchmark -compare before.csv after.csv
+ * </pre>
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamBenchmark {
+
+	// Options, lists are comma separated
+	private List<String> stages = Arrays.asList(BenchmarkStages.NAMES);
+	private List<String> lengths_m = Arrays.asList("4", "20");
+	private List<String> numbersOfLoads = Arrays.asList("1", "10", "100");
+	private List<String> mixes = Arrays.asList(BenchmarkBeams.MIXES);
+	private List<String> sectionLengths_m = Arrays.asList("0.001");
+	private int warmupIterations = 3, iterations = 5, forks = 1;
+	private double iterationTime_s = 1;
+	private List<String> jvmArguments = new ArrayList<String>();
+	private String outputFile;
+
+	private static final String RESULT_PREFIX = "RESULT ";
+
+	/**
+	 * Main
+	 * 
+	 * @param args Options:
+	 *             <ul>
+	 *             <li>-stages, -L (length of beam in m), -loads, -mix, -h (section
+	 *             length in m): What to measure, comma separated.</li>
+	 *             <li>-wi, -i, -t: Number of warmup and measured iterations, time
+	 *             of one iteration in s.</li>
+	 *             <li>-f: Number of forks, 0 measures in this JVM.</li>
+	 *             <li>-jvmArgs: Arguments of the forked JVMs, comma
+	 *             separated.</li>
+	 *             <li>-o: CSV file, default benchmark-&lt;date&gt;.csv.</li>
+	 *             <li>-compare old.csv new.csv: Compares two runs.</li>
+	 *             </ul>
+	 * @throws Exception If a benchmark fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 3 && args[0].equals("-compare")) {
+			compare(args[1], args[2]);
+			return;
+		}
+
+		BeamBenchmark benchmark = new BeamBenchmark();
+		boolean worker = benchmark.parse(args);
+		if (worker)
+			System.out.println(RESULT_PREFIX + benchmark.measure(benchmark.stages.get(0), benchmark.lengths_m.get(0),
+					benchmark.numbersOfLoads.get(0), benchmark.mixes.get(0), benchmark.sectionLengths_m.get(0))
+					.toCsv());
+		else
+			benchmark.runAll();
+	}
+
+	/*
+	 * Options. Returns true if this JVM is a fork.
+	 */
+	private boolean parse(String[] args) {
+		boolean worker = false;
+		for (int i = 0; i <= args.length - 1; i++) {
+			String option = args[i];
+			if (option.equals("-worker")) {
+				worker = true;
+				continue;
+			}
+			if (i == args.length - 1)
+				throw new IllegalArgumentException("Value of " + option + " missing");
+			String value = args[++i];
+
+			switch (option) {
+			case "-stages":
+				stages = split(value);
+				break;
+			case "-L":
+				lengths_m = split(value);
+				break;
+			case "-loads":
+				numbersOfLoads = split(value);
+				break;
+			case "-mix":
+				mixes = split(value);
+				break;
+			case "-h":
+				sectionLengths_m = split(value);
+				break;
+			case "-wi":
+				warmupIterations = Integer.parseInt(value);
+				break;
+			case "-i":
+				iterations = Integer.parseInt(value);
+				break;
+			case "-t":
+				iterationTime_s = Double.parseDouble(value);
+				break;
+			case "-f":
+				forks = Integer.parseInt(value);
+				break;
+			case "-jvmArgs":
+				jvmArguments = split(value);
+				break;
+			case "-o":
+				outputFile = value;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + option);
+			}
+		}
+
+		for (String stage : stages)
+			if (!Arrays.asList(BenchmarkStages.NAMES).contains(stage))
+				throw new IllegalArgumentException("Unknown stage " + stage);
+		for (String mix : mixes)
+			if (!Arrays.asList(BenchmarkBeams.MIXES).contains(mix))
+				throw new IllegalArgumentException("Unknown load mix " + mix);
+		return worker;
+	}
+
+	private static List<String> split(String list) {
+		return Arrays.asList(list.split(","));
+	}
+
+	/*
+	 * Runs every benchmark, prints the results and writes them to the CSV file.
+	 */
+	private void runAll() throws Exception {
+		if (outputFile == null)
+			outputFile = "benchmark-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+
+		try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8))) {
+			csv.println(BenchmarkResult.CSV_HEADER);
+
+			for (String stage : stages)
+				for (String length_m : lengths_m)
+					for (String loads : numbersOfLoads)
+						for (String mix : mixes)
+							for (String h : sectionLengths_m) {
+								// Supporting forces do not depend on the section length
+								if (!BenchmarkStages.usesSectionLength(stage) && !h.equals(sectionLengths_m.get(0)))
+									continue;
+
+								for (int fork = 1; fork <= Math.max(1, forks); fork++) {
+									BenchmarkResult result;
+									if (forks == 0)
+										result = measure(stage, length_m, loads, mix, h);
+									else
+										result = fork(stage, length_m, loads, mix, h, fork);
+									System.out.println(result);
+									csv.println(result.toCsv());
+									csv.flush();
+								}
+							}
+		}
+		System.out.println("Results written to " + outputFile);
+	}
+
+	/*
+	 * Measures a benchmark in this JVM.
+	 */
+	private BenchmarkResult measure(String stage, String length_m, String loads, String mix, String h)
+			throws Exception {
+		BenchmarkResult result = new BenchmarkResult();
+		result.stage = stage;
+		result.lengthOfBeam_m = Double.parseDouble(length_m);
+		result.numberOfLoads = Integer.parseInt(loads);
+		result.mix = mix;
+		result.sectionLength_m = Double.parseDouble(h);
+
+		Beam beam = BenchmarkBeams.create(result.lengthOfBeam_m, result.numberOfLoads, result.mix);
+		BenchmarkStages.Operation operation = BenchmarkStages.create(result.stage, beam, result.sectionLength_m);
+		new BenchmarkRunner(warmupIterations, iterations, (long) (iterationTime_s * 1e9)).measure(operation, result);
+		return result;
+	}
+
+	/*
+	 * Measures a benchmark in a new JVM. The JVM prints its result as one line
+	 * of CSV, anything else it prints is passed through.
+	 */
+	private BenchmarkResult fork(String stage, String length_m, String loads, String mix, String h, int fork)
+			throws IOException, InterruptedException {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(jvmArguments);
+		command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), BeamBenchmark.class.getName(),
+				"-worker", "-stages", stage, "-L", length_m, "-loads", loads, "-mix", mix, "-h", h, "-wi",
+				Integer.toString(warmupIterations), "-i", Integer.toString(iterations), "-t",
+				Double.toString(iterationTime_s)));
+
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		BenchmarkResult result = null;
+		try (BufferedReader out = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = out.readLine()) != null) {
+				if (line.startsWith(RESULT_PREFIX))
+					result = BenchmarkResult.fromCsv(line.substring(RESULT_PREFIX.length()));
+				else
+					System.out.println(line);
+			}
+		}
+		int exitCode = process.waitFor();
+		if (result == null)
+			throw new IOException("Fork of " + stage + " failed with exit code " + exitCode);
+		result.fork = fork;
+		return result;
+	}
+
+	/*
+	 * Compares two CSV files. Forks of the same benchmark are averaged.
+	 */
+	private static void compare(String oldFile, String newFile) throws IOException {
+		Map<String, double[]> before = read(oldFile);
+		Map<String, double[]> after = read(newFile);
+
+		System.out.println(String.format(Locale.ROOT, "%-50s %14s %14s %8s %12s %12s", "Benchmark", "ops/s old",
+				"ops/s new", "change", "B/op old", "B/op new"));
+		for (Map.Entry<String, double[]> entry : after.entrySet()) {
+			double[] a = entry.getValue();
+			double[] b = before.get(entry.getKey());
+			if (b == null) {
+				System.out.println(String.format(Locale.ROOT, "%-50s %14s %14.1f %8s %12s %12.0f", entry.getKey(), "-",
+						a[0], "new", "-", a[1]));
+				continue;
+			}
+			System.out.println(String.format(Locale.ROOT, "%-50s %14.1f %14.1f %+7.1f%% %12.0f %12.0f",
+					entry.getKey(), b[0], a[0], (a[0] / b[0] - 1) * 100, b[1], a[1]));
+		}
+	}
+
+	/*
+	 * Mean of ops/s and allocated bytes per op of each benchmark.
+	 */
+	private static Map<String, double[]> read(String file) throws IOException {
+		Map<String, double[]> sums = new LinkedHashMap<String, double[]>();
+		List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+		for (int i = 1; i <= lines.size() - 1; i++) {
+			if (lines.get(i).isEmpty())
+				continue;
+			BenchmarkResult r = BenchmarkResult.fromCsv(lines.get(i));
+			double[] sum = sums.computeIfAbsent(r.getKey(), k -> new double[3]);
+			sum[0] = sum[0] + r.opsPerSecond;
+			sum[1] = sum[1] + r.allocatedBytesPerOp;
+			sum[2]++;
+		}
+		for (double[] sum : sums.values()) {
+			sum[0] = sum[0] / sum[2];
+			sum[1] = sum[1] / sum[2];
+		}
+		return sums;
+	}
+}
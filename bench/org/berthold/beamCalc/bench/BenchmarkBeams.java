@@ -0,0 +1,72 @@
+package org.berthold.beamCalc.bench;
+
+import java.util.Random;
+
+import org.berthold.beamCalc.Beam;
+import org.berthold.beamCalc.Load;
+import org.berthold.beamCalc.Support;
+
+/**
+ * Creates the beams the benchmarks are run with.
+ * <p>
+ * 
+ * Each beam has a roller support at 10% and a pin support at 90% of its length.
+ * The loads are placed at random, but the same parameters always create the
+ * same beam, so runs can be compared.
+ * 
+ * @author Berthold
+ *
+ */
+final class BenchmarkBeams {
+
+	// Load mix
+	static final String POINT = "point";
+	static final String UNIFORM = "uniform";
+	static final String TRAPEZOIDAL = "trapezoidal";
+	static final String ANGLED = "angled";
+	static final String MIXED = "mixed"; // All of the above, one after the other
+
+	static final String[] MIXES = { POINT, UNIFORM, TRAPEZOIDAL, ANGLED, MIXED };
+
+	private static final long SEED = 42;
+
+	private BenchmarkBeams() {
+	}
+
+	/**
+	 * Creates a beam.
+	 * 
+	 * @param lengthOfBeam_m Length of the beam.
+	 * @param numberOfLoads  Number of loads.
+	 * @param mix            Kind of the loads, one of {@link #MIXES}.
+	 * @return The {@link Beam}- object.
+	 */
+	static Beam create(double lengthOfBeam_m, int numberOfLoads, String mix) {
+		Beam beam = new Beam(lengthOfBeam_m);
+		beam.addBearing(new Support("A", 0.1 * lengthOfBeam_m, Support.ROLLER_SUPPORT));
+		beam.addBearing(new Support("B", 0.9 * lengthOfBeam_m, Support.PIN_SUPPORT));
+
+		Random random = new Random(SEED);
+		String[] kinds = { POINT, UNIFORM, TRAPEZOIDAL, ANGLED };
+		for (int i = 0; i <= numberOfLoads - 1; i++) {
+			String kind = MIXED.equals(mix) ? kinds[i % kinds.length] : mix;
+			double force_N = -(1 + 9 * random.nextDouble());
+			double length_m = (0.05 + 0.2 * random.nextDouble()) * lengthOfBeam_m;
+
+			if (POINT.equals(kind))
+				beam.addLoad(new Load("F" + i, force_N, random.nextDouble() * lengthOfBeam_m, 0, 0));
+			else if (ANGLED.equals(kind))
+				beam.addLoad(new Load("F" + i, force_N, random.nextDouble() * lengthOfBeam_m,
+						15 + 60 * random.nextDouble(), 0));
+			else if (UNIFORM.equals(kind))
+				beam.addLoad(new Load("q" + i, force_N, random.nextDouble() * (lengthOfBeam_m - length_m), 0,
+						length_m));
+			else if (TRAPEZOIDAL.equals(kind))
+				beam.addLoad(new Load("q" + i, force_N, -(1 + 9 * random.nextDouble()),
+						random.nextDouble() * (lengthOfBeam_m - length_m), 0, length_m));
+			else
+				throw new IllegalArgumentException("Unknown load mix " + mix);
+		}
+		return beam;
+	}
+}
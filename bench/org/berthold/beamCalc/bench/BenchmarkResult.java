@@ -0,0 +1,119 @@
+package org.berthold.beamCalc.bench;
+
+import java.util.Locale;
+
+/**
+ * Result of one benchmark: A stage measured with one beam and section length
+ * in one JVM.
+ * <p>
+ * 
+ * Results are written as one line of CSV, this is also how a forked JVM passes
+ * its result back and how results of earlier runs are read for comparison.
+ * 
+ * @author Berthold
+ *
+ */
+final class BenchmarkResult {
+
+	static final String CSV_HEADER = "stage,length_m,loads,mix,h_m,fork,iterations,ops,ops_per_s,mean_us,p50_us,p90_us,p99_us,max_us,alloc_bytes_per_op,alloc_mb_per_s,gc_count,gc_time_ms,java";
+
+	private static final int NUMBER_OF_COLUMNS = 19;
+
+	// Benchmark
+	String stage;
+	double lengthOfBeam_m;
+	int numberOfLoads;
+	String mix;
+	double sectionLength_m;
+	int fork;
+
+	// Measured
+	int iterations;
+	long ops;
+	double opsPerSecond;
+	double mean_us, p50_us, p90_us, p99_us, max_us;
+	double allocatedBytesPerOp; // NaN if the JVM can not tell
+	double allocatedMegaBytesPerSecond;
+	long gcCount, gcTime_ms;
+	String javaVersion;
+
+	/**
+	 * Identifies the benchmark, results of different runs with the same key can
+	 * be compared.
+	 * 
+	 * @return Stage, beam and section length.
+	 */
+	String getKey() {
+		return String.format(Locale.ROOT, "%s L=%s loads=%d mix=%s h=%s", stage, format(lengthOfBeam_m), numberOfLoads,
+				mix, format(sectionLength_m));
+	}
+
+	/**
+	 * The result as one line of CSV.
+	 * 
+	 * @return Values in the order of {@link #CSV_HEADER}.
+	 */
+	String toCsv() {
+		return String.join(",", stage, format(lengthOfBeam_m), Integer.toString(numberOfLoads), mix,
+				format(sectionLength_m), Integer.toString(fork), Integer.toString(iterations), Long.toString(ops),
+				format(opsPerSecond), format(mean_us), format(p50_us), format(p90_us), format(p99_us), format(max_us),
+				format(allocatedBytesPerOp), format(allocatedMegaBytesPerSecond), Long.toString(gcCount),
+				Long.toString(gcTime_ms), javaVersion);
+	}
+
+	/**
+	 * Reads a result written by {@link #toCsv()}.
+	 * 
+	 * @param line One line of CSV.
+	 * @return The result.
+	 * @throws IllegalArgumentException If the line is not a result.
+	 */
+	static BenchmarkResult fromCsv(String line) {
+		String[] v = line.split(",", -1);
+		if (v.length != NUMBER_OF_COLUMNS)
+			throw new IllegalArgumentException(NUMBER_OF_COLUMNS + " columns expected, was " + v.length + ": " + line);
+
+		BenchmarkResult r = new BenchmarkResult();
+		try {
+			r.stage = v[0];
+			r.lengthOfBeam_m = Double.parseDouble(v[1]);
+			r.numberOfLoads = Integer.parseInt(v[2]);
+			r.mix = v[3];
+			r.sectionLength_m = Double.parseDouble(v[4]);
+			r.fork = Integer.parseInt(v[5]);
+			r.iterations = Integer.parseInt(v[6]);
+			r.ops = Long.parseLong(v[7]);
+			r.opsPerSecond = Double.parseDouble(v[8]);
+			r.mean_us = Double.parseDouble(v[9]);
+			r.p50_us = Double.parseDouble(v[10]);
+			r.p90_us = Double.parseDouble(v[11]);
+			r.p99_us = Double.parseDouble(v[12]);
+			r.max_us = Double.parseDouble(v[13]);
+			r.allocatedBytesPerOp = Double.parseDouble(v[14]);
+			r.allocatedMegaBytesPerSecond = Double.parseDouble(v[15]);
+			r.gcCount = Long.parseLong(v[16]);
+			r.gcTime_ms = Long.parseLong(v[17]);
+			r.javaVersion = v[18];
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a result: " + line);
+		}
+		return r;
+	}
+
+	/**
+	 * The result in one line of text.
+	 */
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT,
+				"%-50s %12.1f ops/s  mean %10.2f us  p50 %10.2f us  p99 %10.2f us  %12.0f B/op", getKey(),
+				opsPerSecond, mean_us, p50_us, p99_us, allocatedBytesPerOp);
+	}
+
+	// Whole numbers without ".0", so keys read like the command line options
+	private static String format(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15)
+			return Long.toString((long) value);
+		return Double.toString(value);
+	}
+}
@@ -0,0 +1,175 @@
+package org.berthold.beamCalc.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Measures an operation in the running JVM.
+ * <p>
+ * 
+ * The operation is run for a number of warmup iterations, which are not
+ * measured, and then for a number of measured iterations. Each iteration runs
+ * the operation again and again until its time is up. Every single operation
+ * is timed, this gives the percentiles of the latency.
+ * <p>
+ * 
+ * If the JVM supports it, the bytes allocated by the measuring thread are
+ * counted. Garbage collections are counted for the whole JVM.
+ * 
+ * @author Berthold
+ *
+ */
+final class BenchmarkRunner {
+
+	// Latencies kept for the percentiles. If there are more operations, only
+	// every second, fourth... is kept, always the same ones.
+	private static final int MAX_SAMPLES = 1 << 20;
+
+	private final int warmupIterations, iterations;
+	private final long iterationTime_ns;
+
+	private long[] samples_ns = new long[MAX_SAMPLES];
+	private int numberOfSamples, sampleEvery;
+	private long operationsSeen;
+
+	// Results of the operations are written here, so they are used
+	private volatile Object sink;
+
+	/**
+	 * Creates a runner.
+	 * 
+	 * @param warmupIterations Number of iterations not measured.
+	 * @param iterations       Number of iterations measured.
+	 * @param iterationTime_ns Time of each iteration.
+	 */
+	BenchmarkRunner(int warmupIterations, int iterations, long iterationTime_ns) {
+		if (warmupIterations < 0 || iterations < 1 || iterationTime_ns < 1)
+			throw new IllegalArgumentException("At least one measured iteration of positive time needed");
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationTime_ns = iterationTime_ns;
+	}
+
+	/**
+	 * Measures an operation.
+	 * 
+	 * @param operation The operation.
+	 * @param result    Result the measured values are set in.
+	 * @throws Exception If the operation fails.
+	 */
+	void measure(BenchmarkStages.Operation operation, BenchmarkResult result) throws Exception {
+		for (int i = 0; i <= warmupIterations - 1; i++)
+			iterate(operation, false);
+
+		numberOfSamples = 0;
+		sampleEvery = 1;
+		operationsSeen = 0;
+		long ops = 0, sum_ns = 0, time_ns = 0;
+
+		long gcCount = getGcCount(), gcTime_ms = getGcTime_ms();
+		long allocated = getAllocatedBytes();
+
+		for (int i = 0; i <= iterations - 1; i++) {
+			long start_ns = System.nanoTime();
+			long[] opsAndSum = iterate(operation, true);
+			time_ns = time_ns + System.nanoTime() - start_ns;
+			ops = ops + opsAndSum[0];
+			sum_ns = sum_ns + opsAndSum[1];
+		}
+
+		allocated = allocated < 0 ? -1 : getAllocatedBytes() - allocated;
+		result.gcCount = getGcCount() - gcCount;
+		result.gcTime_ms = getGcTime_ms() - gcTime_ms;
+
+		result.iterations = iterations;
+		result.ops = ops;
+		result.opsPerSecond = ops * 1e9 / time_ns;
+		result.mean_us = sum_ns / 1e3 / ops;
+
+		long[] sorted = Arrays.copyOf(samples_ns, numberOfSamples);
+		Arrays.sort(sorted);
+		result.p50_us = getPercentile(sorted, 0.5) / 1e3;
+		result.p90_us = getPercentile(sorted, 0.9) / 1e3;
+		result.p99_us = getPercentile(sorted, 0.99) / 1e3;
+		result.max_us = sorted[sorted.length - 1] / 1e3;
+
+		result.allocatedBytesPerOp = allocated < 0 ? Double.NaN : (double) allocated / ops;
+		result.allocatedMegaBytesPerSecond = allocated < 0 ? Double.NaN : allocated * 1e3 / time_ns;
+		result.javaVersion = System.getProperty("java.version");
+	}
+
+	/*
+	 * Runs the operation until the time of one iteration is up.
+	 * 
+	 * Returns the number of operations and the sum of their latencies.
+	 */
+	private long[] iterate(BenchmarkStages.Operation operation, boolean measured) throws Exception {
+		long ops = 0, sum_ns = 0;
+		long now_ns = System.nanoTime();
+		long end_ns = now_ns + iterationTime_ns;
+
+		do {
+			long start_ns = now_ns;
+			sink = operation.run();
+			now_ns = System.nanoTime();
+
+			long latency_ns = now_ns - start_ns;
+			sum_ns = sum_ns + latency_ns;
+			if (measured)
+				addSample(latency_ns);
+			ops++;
+		} while (now_ns - end_ns < 0);
+
+		return new long[] { ops, sum_ns };
+	}
+
+	private void addSample(long latency_ns) {
+		if (operationsSeen++ % sampleEvery != 0)
+			return;
+		if (numberOfSamples == MAX_SAMPLES) {
+			// Full, keep every second sample from now on
+			for (int i = 0; i <= MAX_SAMPLES / 2 - 1; i++)
+				samples_ns[i] = samples_ns[2 * i];
+			numberOfSamples = MAX_SAMPLES / 2;
+			sampleEvery = sampleEvery * 2;
+			if ((operationsSeen - 1) % sampleEvery != 0)
+				return;
+		}
+		samples_ns[numberOfSamples++] = latency_ns;
+	}
+
+	private static double getPercentile(long[] sorted, double p) {
+		int index = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	/*
+	 * JVM
+	 */
+
+	private static long getAllocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+			if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled())
+				return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count = count + Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	private static long getGcTime_ms() {
+		long time_ms = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			time_ms = time_ms + Math.max(0, gc.getCollectionTime());
+		return time_ms;
+	}
+}
@@ -0,0 +1,101 @@
+package org.berthold.beamCalc.bench;
+
+import org.berthold.beamCalc.Beam;
+import org.berthold.beamCalc.BeamSolver;
+import org.berthold.beamCalc.Load;
+import org.berthold.beamCalc.MSolver;
+import org.berthold.beamCalc.NSolver;
+import org.berthold.beamCalc.QMNSolver;
+import org.berthold.beamCalc.QSolver;
+import org.berthold.beamCalc.StressResultantDraw;
+import org.berthold.beamCalc.StressResultantTable;
+
+/**
+ * The stages of solving a beam which are measured.
+ * <ul>
+ * <li>results: {@link BeamSolver#getResults(Beam, String)}, supporting forces
+ * and solution terms.</li>
+ * <li>reactions: {@link BeamSolver#getReactions(Beam)}, supporting forces
+ * only.</li>
+ * <li>table: A {@link StressResultantTable} with all loads added by
+ * {@link StressResultantTable#addForce(Load)} and
+ * {@link StressResultantTable#addDistributedLoad(Load)}.</li>
+ * <li>q, m, n: {@link QSolver}, {@link MSolver} (Q(x) is solved before) and
+ * {@link NSolver}.</li>
+ * <li>qmn: {@link QMNSolver}, all three at once.</li>
+ * <li>draw: {@link StressResultantDraw} of M(x), drawn and encoded as PNG. The
+ * file is not written.</li>
+ * </ul>
+ * 
+ * @author Berthold
+ *
+ */
+final class BenchmarkStages {
+
+	static final String[] NAMES = { "results", "reactions", "table", "q", "m", "n", "qmn", "draw" };
+
+	/*
+	 * One operation. Returns its result, which is consumed by the runner, so
+	 * the JIT can not remove the work.
+	 */
+	interface Operation {
+		Object run() throws Exception;
+	}
+
+	private BenchmarkStages() {
+	}
+
+	/**
+	 * Checks if a stage depends on the section length.
+	 * 
+	 * @param stage Name of the stage.
+	 * @return False for the stages calculating supporting forces only.
+	 */
+	static boolean usesSectionLength(String stage) {
+		return !stage.equals("results") && !stage.equals("reactions");
+	}
+
+	/**
+	 * Creates the operation of a stage. Anything the stage does not measure
+	 * (e.g. Q(x) for the m- stage) is done here.
+	 * 
+	 * @param stage           Name of the stage, one of {@link #NAMES}.
+	 * @param beam            The beam.
+	 * @param sectionLength_m Length of the sections.
+	 * @return The operation.
+	 */
+	static Operation create(String stage, Beam beam, double sectionLength_m) {
+		switch (stage) {
+		case "results":
+			return () -> BeamSolver.getResults(beam, "2f");
+		case "reactions":
+			return () -> BeamSolver.getReactions(beam);
+		case "table":
+			return () -> {
+				StressResultantTable table = new StressResultantTable(beam, sectionLength_m, "N");
+				for (int i = 0; i <= beam.getNumberOfLoads() - 1; i++) {
+					Load load = beam.getLoad(i);
+					if (load.getLengthOfLineLoad_m() == 0)
+						table.addForce(load);
+					else
+						table.addDistributedLoad(load);
+				}
+				return table.getValueAtIndex(table.getLength() - 1);
+			};
+		case "q":
+			return () -> QSolver.solve(beam, sectionLength_m, "N");
+		case "m":
+			StressResultantTable qTable = QSolver.solve(beam, sectionLength_m, "N");
+			return () -> MSolver.solve(qTable, beam, "Nm");
+		case "n":
+			return () -> NSolver.solve(beam, sectionLength_m, "N");
+		case "qmn":
+			return () -> QMNSolver.solve(beam, sectionLength_m, "N", "Nm");
+		case "draw":
+			StressResultantTable mTable = MSolver.solve(QSolver.solve(beam, sectionLength_m, "N"), beam, "Nm");
+			return () -> new StressResultantDraw("M", beam, mTable, 600, 1200, 10, 10, "%.2f").toPng();
+		default:
+			throw new IllegalArgumentException("Unknown stage " + stage);
+		}
+	}
+}
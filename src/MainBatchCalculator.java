@@ -0,0 +1,111 @@
+import org.berthold.beamCalc.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/**
+ * Batch calculator.
+ * 
+ * Solves all beams of a beam definition file, or of all beam definition files
+ * in a directory, and writes the results and the diagrams of each beam into an
+ * output directory. Run again with the same output directory to resume an
+ * interrupted batch (see {@link BeamBatchRunner}).
+ * 
+ * @author Berthold
+ */
+public class MainBatchCalculator {
+
+	private static final String USAGE = "Usage: MainBatchCalculator <file or directory> <output directory> [options]\n"
+			+ "  -h <m>          Section length, 0 = supporting forces only (default 0.001)\n"
+			+ "  -threads <n>    Threads solving beams (default: number of cores)\n"
+			+ "  -inflight <n>   Beams read but not yet written (default: 16 per thread)\n"
+			+ "  -json           Write JSON Lines instead of CSV\n"
+			+ "  -tables         Write all sections, not only maxima, zero points and discontinuities\n"
+			+ "  -nodiagrams     Do not draw diagrams";
+
+	/**
+	 * Main
+	 * 
+	 * @param args Input, output directory and options.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println(USAGE);
+			System.exit(2);
+		}
+
+		BeamBatchRunner runner = new BeamBatchRunner(Paths.get(args[0]), Paths.get(args[1]));
+		try {
+			for (int i = 2; i <= args.length - 1; i++) {
+				if (args[i].equals("-h"))
+					runner.setSectionLength_m(Double.parseDouble(args[++i]));
+				else if (args[i].equals("-threads"))
+					runner.setNumberOfThreads(Integer.parseInt(args[++i]));
+				else if (args[i].equals("-inflight"))
+					runner.setMaxBeamsInFlight(Integer.parseInt(args[++i]));
+				else if (args[i].equals("-json"))
+					runner.setFormat(BeamResultExporter.JSON_LINES);
+				else if (args[i].equals("-tables"))
+					runner.setFeaturesOnly(false);
+				else if (args[i].equals("-nodiagrams"))
+					runner.setDrawDiagrams(false);
+				else
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		} catch (RuntimeException e) {
+			System.out.println("Invalid arguments: " + e.getMessage());
+			System.out.println(USAGE);
+			System.exit(2);
+		}
+
+		// Ctrl+C: Stop reading, write the beams in flight and save the journal.
+		CountDownLatch finished = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			runner.stop();
+			try {
+				finished.await();
+			} catch (InterruptedException e) {
+			}
+		}));
+
+		// Show progress every second
+		ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "progress");
+			thread.setDaemon(true);
+			return thread;
+		});
+		progress.scheduleAtFixedRate(() -> showProgress(runner), 1, 1, TimeUnit.SECONDS);
+
+		int exitCode = 0;
+		try {
+			runner.run();
+		} catch (Exception e) {
+			System.out.println("Batch failed: " + e);
+			exitCode = 1;
+		} finally {
+			progress.shutdownNow();
+		}
+
+		showProgress(runner);
+		for (String error : runner.getErrors())
+			System.out.println("Error: " + error);
+		if (runner.getNumberOfBeamsFailed() > 0)
+			exitCode = 1;
+		System.out.println("Results: " + runner.getResultsFile());
+		if (runner.isStopped())
+			System.out.println("Stopped. Run again with the same output directory to resume.");
+
+		finished.countDown();
+		System.exit(exitCode);
+	}
+
+	/*
+	 * Shows the number of beams done so far.
+	 */
+	private static void showProgress(BeamBatchRunner runner) {
+		double elapsed_s = runner.getElapsedTime_ns() / 1e9;
+		long written = runner.getNumberOfBeamsWritten();
+		System.out.println(String.format("%.1f s: %d read, %d written, %d failed, %d skipped, %.0f beams/s", elapsed_s,
+				runner.getNumberOfBeamsRead(), written, runner.getNumberOfBeamsFailed(),
+				runner.getNumberOfBeamsSkipped(), elapsed_s > 0 ? written / elapsed_s : 0));
+	}
+}
@@ -0,0 +1,41 @@
+import org.berthold.beamCalc.*;
+import java.net.InetSocketAddress;
+
+/**
+ * Beam calculation service.
+ * 
+ * Starts a {@link BeamCalcServer} on localhost. Ctrl+C stops it, requests in
+ * progress are finished first.
+ * 
+ * Example: curl -d @beam.json http://localhost:8080/result
+ * 
+ * @author Berthold
+ */
+public class MainBeamCalcServer {
+
+	/**
+	 * Main
+	 * 
+	 * @param args Port (default 8080), number of threads (default: number of
+	 *             cores) and number of requests which may wait (default: 64).
+	 * @throws Exception If the server could not be started.
+	 */
+	public static void main(String[] args) throws Exception {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int queued = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+		BeamCalcServer server = new BeamCalcServer(new InetSocketAddress("localhost", port), threads, queued);
+		server.start();
+		System.out.println("Listening on http://localhost:" + server.getAddress().getPort() + "/ with " + threads
+				+ " threads");
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				server.stop(10);
+			} catch (InterruptedException e) {
+			}
+			System.out.println("Stopped");
+		}));
+	}
+}
@@ -0,0 +1,211 @@
+package org.berthold.beamCalc;
+
+import java.util.Arrays;
+
+/**
+ * Calculates the stress resultants Q(x), M(x) and N(x) along a {@link Beam} as
+ * exact, piecewise polynomial functions ({@link StressResultantFunction}).
+ * <p>
+ * 
+ * Other than the {@link QSolver}, {@link MSolver} and {@link NSolver} the beam
+ * is not divided into sections of a fixed length. The only breakpoints are the
+ * supports, the point loads and the start and end of the distributed loads, so
+ * the effort depends on the number of loads, not on the length of the beam.
+ * <p>
+ * 
+ * Inside a segment:
+ * <p>
+ * q(x) is linear (uniformly distributed and uniformly changing line loads)<br>
+ * Q(x) is the integral of q(x) plus all forces left of x => quadratic<br>
+ * M(x) is the integral of Q(x) => cubic<br>
+ * N(x) is constant (point loads only).
+ * <p>
+ * 
+ * Leading signs are the same as for the {@link QSolver}, {@link MSolver} and
+ * {@link NSolver}.
+ * 
+ * @author Berthold
+ *
+ */
+public class AnalyticSolver {
+
+	/**
+	 * Calculates the shearing forces along the length of the beam.
+	 * 
+	 * @param beam A {@link Beam}- object.
+	 * @param unit The unit (N, kN.....).
+	 * @return Q(x) or null if the {@link BeamSolver} found errors (e.g. a load
+	 *         outside of the beam).
+	 */
+	public static StressResultantFunction solveQ(Beam beam, String unit) {
+		return solveQ(new BeamSnapshot(beam), unit);
+	}
+
+	/**
+	 * Calculates the shearing forces along the length of the beam.
+	 * 
+	 * @param beam A {@link BeamSnapshot} of the beam.
+	 * @param unit The unit (N, kN.....).
+	 * @return Q(x) or null if the snapshot contains errors.
+	 */
+	public static StressResultantFunction solveQ(BeamSnapshot beam, String unit) {
+
+		BeamResult result = BeamSolver.getReactions(beam);
+		if (result.getErrorCount() > 0)
+			return null;
+
+		double xLeftSupport_m = beam.getXOfLeftSupport_m();
+		double xRightSupport_m = beam.getXOfRightSupport_m();
+
+		// Breakpoints
+		double[] breakpoints_m = new double[4 + beam.getNumberOfPointLoads() + 2 * beam.getNumberOfLineLoads()];
+		int n = 0;
+		breakpoints_m[n++] = 0;
+		breakpoints_m[n++] = beam.getLength();
+		breakpoints_m[n++] = xLeftSupport_m;
+		breakpoints_m[n++] = xRightSupport_m;
+
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++)
+			breakpoints_m[n++] = beam.getXOfPointLoad_m(i);
+		for (int i = 0; i <= beam.getNumberOfLineLoads() - 1; i++) {
+			breakpoints_m[n++] = beam.getStartOfLineLoad_m(i);
+			breakpoints_m[n++] = beam.getStartOfLineLoad_m(i) + beam.getLengthOfLineLoad_m(i);
+		}
+		breakpoints_m = getSortedAndDistinct(breakpoints_m, n);
+		int segments = breakpoints_m.length - 1;
+
+		// Everything happening at each breakpoint:
+		// Point forces, change of load intensity and change of the slope of q(x)
+		double[] force_N = new double[breakpoints_m.length];
+		double[] deltaQ_Nm = new double[breakpoints_m.length];
+		double[] deltaSlope_Nm2 = new double[breakpoints_m.length];
+
+		force_N[indexOf(breakpoints_m, xLeftSupport_m)] += result.getResultingForceAtLeftBearing_N();
+		force_N[indexOf(breakpoints_m, xRightSupport_m)] += result.getResultingForceAtRightBearing_N();
+
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++)
+			force_N[indexOf(breakpoints_m, beam.getXOfPointLoad_m(i))] += beam.getVerticalForceOfPointLoad_N(i);
+
+		for (int i = 0; i <= beam.getNumberOfLineLoads() - 1; i++) {
+			double x_m = beam.getStartOfLineLoad_m(i);
+			double length_m = beam.getLengthOfLineLoad_m(i);
+			double slope = (beam.getForceEndOfLineLoad_N(i) - beam.getForceStartOfLineLoad_N(i)) / length_m;
+			int start = indexOf(breakpoints_m, x_m);
+			int end = indexOf(breakpoints_m, x_m + length_m);
+
+			deltaQ_Nm[start] += beam.getForceStartOfLineLoad_N(i);
+			deltaSlope_Nm2[start] += slope;
+			deltaQ_Nm[end] -= beam.getForceEndOfLineLoad_N(i);
+			deltaSlope_Nm2[end] -= slope;
+		}
+
+		// Walk from left to right
+		double[][] coefficients = new double[segments][];
+		double shearingForce_N = 0;
+		double lineLoad_Nm = 0;
+		double slope_Nm2 = 0;
+
+		for (int i = 0; i <= segments - 1; i++) {
+			double length_m = breakpoints_m[i + 1] - breakpoints_m[i];
+
+			shearingForce_N = shearingForce_N + force_N[i];
+			lineLoad_Nm = lineLoad_Nm + deltaQ_Nm[i];
+			slope_Nm2 = slope_Nm2 + deltaSlope_Nm2[i];
+
+			coefficients[i] = new double[] { shearingForce_N, lineLoad_Nm, slope_Nm2 / 2 };
+
+			shearingForce_N = StressResultantFunction.evaluate(coefficients[i], length_m);
+			lineLoad_Nm = lineLoad_Nm + slope_Nm2 * length_m;
+		}
+		return new StressResultantFunction(breakpoints_m, coefficients, unit);
+	}
+
+	/**
+	 * Calculates the bending moments along the length of the beam.
+	 * 
+	 * @param qFunction Q(x) as obtained from {@link #solveQ(Beam, String)}.
+	 * @param unit      The unit (Nm, kNm.....).
+	 * @return M(x)
+	 */
+	public static StressResultantFunction solveM(StressResultantFunction qFunction, String unit) {
+		return qFunction.integrate(unit);
+	}
+
+	/**
+	 * Calculates the normal forces along the length of the beam.
+	 * 
+	 * Same as the {@link NSolver}: Normal forces are summed up from both ends of
+	 * the beam in the direction of the pin support.
+	 * 
+	 * @param beam A {@link Beam}- object.
+	 * @param unit The unit (N, kN.....).
+	 * @return N(x)
+	 */
+	public static StressResultantFunction solveN(Beam beam, String unit) {
+		return solveN(new BeamSnapshot(beam), unit);
+	}
+
+	/**
+	 * Calculates the normal forces along the length of the beam.
+	 * 
+	 * @param beam A {@link BeamSnapshot} of the beam.
+	 * @param unit The unit (N, kN.....).
+	 * @return N(x)
+	 */
+	public static StressResultantFunction solveN(BeamSnapshot beam, String unit) {
+
+		// Get position of pin support (at this support normal forces are 0)
+		double xPosOfPinSupport_m = beam.getXOfPinSupport_m();
+
+		double[] breakpoints_m = new double[3 + beam.getNumberOfPointLoads()];
+		int n = 0;
+		breakpoints_m[n++] = 0;
+		breakpoints_m[n++] = beam.getLength();
+		breakpoints_m[n++] = xPosOfPinSupport_m;
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++)
+			breakpoints_m[n++] = beam.getXOfPointLoad_m(i);
+		breakpoints_m = getSortedAndDistinct(breakpoints_m, n);
+		int segments = breakpoints_m.length - 1;
+
+		double[] horizontalLoad_N = new double[breakpoints_m.length];
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++)
+			horizontalLoad_N[indexOf(breakpoints_m, beam.getXOfPointLoad_m(i))] += beam
+					.getHorizontalForceOfPointLoad_N(i);
+
+		// Left of the pin support: Sum of all loads left of x.
+		// Right of the pin support: Sum of all loads right of x.
+		double[][] coefficients = new double[segments][];
+		double sumFromLeft_N = 0;
+		for (int i = 0; i <= segments - 1; i++) {
+			sumFromLeft_N = sumFromLeft_N + horizontalLoad_N[i];
+			if (breakpoints_m[i + 1] <= xPosOfPinSupport_m)
+				coefficients[i] = new double[] { sumFromLeft_N };
+		}
+
+		double sumFromRight_N = 0;
+		for (int i = segments - 1; i >= 0; i--) {
+			sumFromRight_N = sumFromRight_N + horizontalLoad_N[i + 1];
+			if (coefficients[i] == null)
+				coefficients[i] = new double[] { sumFromRight_N };
+		}
+		return new StressResultantFunction(breakpoints_m, coefficients, unit);
+	}
+
+	/*
+	 * Sorts the first n values and removes duplicates.
+	 */
+	private static double[] getSortedAndDistinct(double[] values, int n) {
+		double[] sorted = Arrays.copyOf(values, n);
+		Arrays.sort(sorted);
+
+		int distinct = 0;
+		for (int i = 0; i <= n - 1; i++)
+			if (distinct == 0 || sorted[i] != sorted[distinct - 1])
+				sorted[distinct++] = sorted[i];
+		return Arrays.copyOf(sorted, distinct);
+	}
+
+	private static int indexOf(double[] breakpoints_m, double x_m) {
+		return Arrays.binarySearch(breakpoints_m, x_m);
+	}
+}
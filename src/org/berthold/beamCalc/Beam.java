@@ -3,6 +3,7 @@ package org.berthold.beamCalc;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * A beam.
@@ -15,6 +16,7 @@ public class Beam {
 	private List<Support> support;
 	private int numberOfSupports;
 	private List<Load> loads;
+	private List<LoadCase> loadCases;
 
 	/**
 	 * A new beam.
@@ -26,6 +28,25 @@ public class Beam {
 		support = new ArrayList<Support>();
 		numberOfSupports = 0;
 		loads = new ArrayList<Load>();
+		loadCases = new ArrayList<LoadCase>();
+	}
+
+	/**
+	 * A new beam with room for the supports and loads expected.
+	 * 
+	 * Used by readers which know the number of supports and loads before the
+	 * beam is build, see {@link BeamDefinitionReader}.
+	 * 
+	 * @param lengthOfBeam_m
+	 * @param numberOfSupports Number of supports expected.
+	 * @param numberOfLoads    Number of loads expected.
+	 */
+	Beam(double lengthOfBeam_m, int numberOfSupports, int numberOfLoads) {
+		this.lengthOfBeam_m = lengthOfBeam_m;
+		support = new ArrayList<Support>(numberOfSupports);
+		this.numberOfSupports = 0;
+		loads = new ArrayList<Load>(numberOfLoads);
+		loadCases = new ArrayList<LoadCase>(0);
 	}
 
 	/**
@@ -37,6 +58,18 @@ public class Beam {
 		loads.add(load);
 	}
 
+	/**
+	 * Adds a load case.
+	 * 
+	 * Load cases are not taken into account by the {@link BeamSolver}, the
+	 * {@link QSolver} etc. They are combined by the {@link LoadCombinationSolver}.
+	 * 
+	 * @param loadCase The {@link LoadCase}- object.
+	 */
+	public void addLoadCase(LoadCase loadCase) {
+		loadCases.add(loadCase);
+	}
+
 	/**
 	 * Add's a support.
 	 * 
@@ -182,4 +215,49 @@ public class Beam {
 		Collections.sort(this.support);
 		return this.support;
 	}
+
+	/**
+	 * List of all load cases of this beam.
+	 * 
+	 * @return A {@link List} of {@link LoadCase} objects.
+	 */
+	public List<LoadCase> getLoadCases() {
+		return loadCases;
+	}
+
+	/**
+	 * Gets the specified load case.
+	 * 
+	 * @param nameOfLoadCase
+	 * @return The {@link LoadCase}- object or null if there is no load case of
+	 *         this name.
+	 */
+	public LoadCase getLoadCase(String nameOfLoadCase) {
+		for (LoadCase loadCase : loadCases)
+			if (loadCase.getName().equals(nameOfLoadCase))
+				return loadCase;
+		return null;
+	}
+
+	/**
+	 * Two beams are equal if they have the same length, the same supports, loads
+	 * and load cases, each in the same order.
+	 * 
+	 * Beams are mutable, do not change a beam while it is used as a key.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof Beam))
+			return false;
+		Beam b = (Beam) o;
+		return Double.compare(lengthOfBeam_m, b.lengthOfBeam_m) == 0 && support.equals(b.support)
+				&& loads.equals(b.loads) && loadCases.equals(b.loadCases);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(lengthOfBeam_m, support, loads, loadCases);
+	}
 }
@@ -0,0 +1,67 @@
+package org.berthold.beamCalc;
+
+/**
+ * Contains the complete analysis of a {@link Beam}: The supporting forces and
+ * the stress resultants Q(x), M(x) and N(x).
+ * 
+ * Objects from this class are created by the {@link QMNSolver}- Class
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamAnalysis {
+	private BeamResult result;
+	private StressResultantTable qTable, mTable, nTable;
+
+	/**
+	 * Creates a new analysis.
+	 * 
+	 * @param result The supporting forces, see {@link BeamResult}.
+	 * @param qTable Shearing forces or null if not calculated.
+	 * @param mTable Bending moments or null if not calculated.
+	 * @param nTable Normal forces or null if not calculated.
+	 */
+	public BeamAnalysis(BeamResult result, StressResultantTable qTable, StressResultantTable mTable,
+			StressResultantTable nTable) {
+		this.result = result;
+		this.qTable = qTable;
+		this.mTable = mTable;
+		this.nTable = nTable;
+	}
+
+	/**
+	 * Supporting forces and errors.
+	 * 
+	 * @return {@link BeamResult}
+	 */
+	public BeamResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Shearing forces.
+	 * 
+	 * @return Q(x) or null if the beam could not be solved.
+	 */
+	public StressResultantTable getQTable() {
+		return qTable;
+	}
+
+	/**
+	 * Bending moments.
+	 * 
+	 * @return M(x) or null if the beam could not be solved.
+	 */
+	public StressResultantTable getMTable() {
+		return mTable;
+	}
+
+	/**
+	 * Normal forces.
+	 * 
+	 * @return N(x) or null if the beam could not be solved.
+	 */
+	public StressResultantTable getNTable() {
+		return nTable;
+	}
+}
@@ -0,0 +1,121 @@
+package org.berthold.beamCalc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Contains the results of a batch of beams solved by the
+ * {@link BeamBatchSolver} and some statistics.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamBatchResult {
+	private List<BeamAnalysis> analyses;
+	private int numberOfFailedBeams;
+	private long elapsedTime_ns;
+	private int parallelism;
+
+	/**
+	 * Creates a new batch result.
+	 * 
+	 * @param analyses            One {@link BeamAnalysis} for each beam, same order
+	 *                            as the beams were passed.
+	 * @param numberOfFailedBeams Number of beams whose result contains errors.
+	 * @param elapsedTime_ns      Time it took to solve the batch.
+	 * @param parallelism         Number of threads used.
+	 */
+	public BeamBatchResult(List<BeamAnalysis> analyses, int numberOfFailedBeams, long elapsedTime_ns,
+			int parallelism) {
+		this.analyses = Collections.unmodifiableList(analyses);
+		this.numberOfFailedBeams = numberOfFailedBeams;
+		this.elapsedTime_ns = elapsedTime_ns;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Results of all beams.
+	 * 
+	 * @return A list of {@link BeamAnalysis}- objects in the same order as the
+	 *         beams were passed.
+	 */
+	public List<BeamAnalysis> getAnalyses() {
+		return analyses;
+	}
+
+	/**
+	 * Result of one beam.
+	 * 
+	 * @param index Index of the beam in the batch.
+	 * @return {@link BeamAnalysis}
+	 */
+	public BeamAnalysis getAnalysis(int index) {
+		return analyses.get(index);
+	}
+
+	/**
+	 * Number of beams in the batch.
+	 * 
+	 * @return Number of beams.
+	 */
+	public int getNumberOfBeams() {
+		return analyses.size();
+	}
+
+	/**
+	 * Number of beams which could not be solved.
+	 * 
+	 * @return Number of beams whose {@link BeamResult} contains at least one
+	 *         {@link BeamCalcError}.
+	 */
+	public int getNumberOfFailedBeams() {
+		return numberOfFailedBeams;
+	}
+
+	/**
+	 * Time it took to solve the batch.
+	 * 
+	 * @return Time in nanoseconds.
+	 */
+	public long getElapsedTime_ns() {
+		return elapsedTime_ns;
+	}
+
+	/**
+	 * Number of threads the batch was solved with.
+	 * 
+	 * @return Parallelism of the pool used.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Throughput.
+	 * 
+	 * @return Beams solved per second.
+	 */
+	public double getBeamsPerSecond() {
+		if (elapsedTime_ns == 0)
+			return 0;
+		return analyses.size() / (elapsedTime_ns / 1e9);
+	}
+
+	/**
+	 * Average time it took to solve one beam, all threads together.
+	 * 
+	 * @return Time in nanoseconds per beam.
+	 */
+	public double getAverageTimePerBeam_ns() {
+		if (analyses.size() == 0)
+			return 0;
+		return (double) elapsedTime_ns * parallelism / analyses.size();
+	}
+
+	@Override
+	public String toString() {
+		return getNumberOfBeams() + " beams, " + numberOfFailedBeams + " failed, "
+				+ String.format("%.2f", elapsedTime_ns / 1e6) + " ms, "
+				+ String.format("%.1f", getBeamsPerSecond()) + " beams/s, " + parallelism + " threads";
+	}
+}
@@ -0,0 +1,583 @@
+package org.berthold.beamCalc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves all beams of a beam definition file, or of all such files in a
+ * directory, and writes the results and the diagrams of each beam.
+ * <p>
+ * 
+ * The work is done in three stages, each on its own threads:
+ * <ul>
+ * <li>Reading: The thread calling {@link #run()} reads the beams (see
+ * {@link BeamDefinitionReader}).</li>
+ * <li>Solving: A fixed number of threads, by default one per core, solves each
+ * beam and draws and encodes its diagrams.</li>
+ * <li>Writing: The diagrams are written by a pool of I/O threads which grows as
+ * needed, the results and the journal by one writer thread.</li>
+ * </ul>
+ * A thread waiting for the disk never holds up solving. At most
+ * {@link #setMaxBeamsInFlight(int)} beams are read but not yet written. If
+ * solving or writing falls behind, reading waits, so the memory used does not
+ * depend on the number of beams.
+ * <p>
+ * 
+ * Each beam is handled on its own: A beam which can not be solved is written
+ * with its errors (see {@link BeamBatchSolver}), a beam whose diagrams could not
+ * be written is counted as failed and the batch goes on. A damaged file is read
+ * up to the damage.
+ * <p>
+ * 
+ * Each beam written is recorded in a journal in the output directory. When the
+ * runner is started again with the same output directory, beams found in the
+ * journal are skipped and the results of the remaining beams are written to a
+ * new results file (results-2.csv, results-3.csv.....). The journal is saved
+ * after the results it lists, so no beam is lost. A beam written just before an
+ * interruption may appear in two results files.
+ * <p>
+ * 
+ * Beams are named after their file and their index in it, e.g. beams-17 for the
+ * 18th beam of beams.bcbd. Its diagrams are beams-17-Q.png, beams-17-M.png and
+ * beams-17-N.png.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamBatchRunner {
+
+	public static final String DEFINITION_FILE_EXTENSION = ".bcbd";
+	public static final String JOURNAL_FILE = "journal.txt";
+
+	// The journal is saved after this many beams or after this time, whichever
+	// comes first.
+	private static final int CHECKPOINT_BEAMS = 1000;
+	private static final long CHECKPOINT_INTERVAL_NS = 1000000000L;
+
+	// Beams in flight for each solver thread, if not set.
+	private static final int BEAMS_IN_FLIGHT_PER_THREAD = 16;
+
+	// Only the first errors are kept, the number of failed beams tells the
+	// rest.
+	private static final int MAX_ERRORS = 1000;
+
+	private static final String[] DIAGRAMS = { "Q", "M", "N" };
+
+	private final Path input, outputDirectory;
+
+	// Settings
+	private double sectionLength_m = 0.001;
+	private String forceUnit = "N", momentUnit = "Nm";
+	private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+	private int maxBeamsInFlight;
+	private int format = BeamResultExporter.CSV;
+	private boolean featuresOnly = true;
+	private boolean drawDiagrams = true;
+
+	// Progress
+	private final AtomicLong beamsRead = new AtomicLong();
+	private final AtomicLong beamsWritten = new AtomicLong();
+	private final AtomicLong beamsFailed = new AtomicLong();
+	private final AtomicLong beamsSkipped = new AtomicLong();
+	private final List<String> errors = new ArrayList<String>();
+	private long start_ns;
+	private volatile long end_ns;
+
+	// State of a run
+	private boolean started;
+	private volatile boolean stopped;
+	private volatile IOException fatal;
+	private Path resultsFile;
+	private ExecutorService solvers, io, writer;
+	private Semaphore inFlight;
+
+	// Owned by the writer thread
+	private FileChannel resultsChannel, journalChannel;
+	private BeamResultExporter exporter;
+	private final StringBuilder journal = new StringBuilder();
+	private int beamsSinceCheckpoint;
+	private long lastCheckpoint_ns;
+
+	/**
+	 * Creates a new runner.
+	 * 
+	 * @param input           A beam definition file (see
+	 *                        {@link BeamDefinitionWriter}) or a directory. All
+	 *                        files of a directory ending with
+	 *                        {@link #DEFINITION_FILE_EXTENSION} are read, sorted by
+	 *                        name.
+	 * @param outputDirectory Directory the results, the diagrams and the journal
+	 *                        are written to. Created if it does not exist.
+	 */
+	public BeamBatchRunner(Path input, Path outputDirectory) {
+		this.input = input;
+		this.outputDirectory = outputDirectory;
+	}
+
+	/**
+	 * Sets the length of the sections the beams are divided into.
+	 * 
+	 * @param sectionLength_m Section length, see {@link QMNSolver}. Default is
+	 *                        0.001 m. If 0, only the supporting forces are
+	 *                        calculated and no diagrams are drawn.
+	 */
+	public void setSectionLength_m(double sectionLength_m) {
+		if (sectionLength_m < 0)
+			throw new IllegalArgumentException("Section length must not be negative:" + sectionLength_m);
+		this.sectionLength_m = sectionLength_m;
+	}
+
+	/**
+	 * Sets the units of the stress resultants.
+	 * 
+	 * @param forceUnit  Unit of Q and N (N, kN.....). Default is N.
+	 * @param momentUnit Unit of M (Nm, kNm.....). Default is Nm.
+	 */
+	public void setUnits(String forceUnit, String momentUnit) {
+		this.forceUnit = forceUnit;
+		this.momentUnit = momentUnit;
+	}
+
+	/**
+	 * Sets the number of threads solving beams.
+	 * 
+	 * @param numberOfThreads At least 1. Default is the number of cores.
+	 */
+	public void setNumberOfThreads(int numberOfThreads) {
+		if (numberOfThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be at least 1, was " + numberOfThreads);
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Sets the number of beams read but not yet written.
+	 * 
+	 * @param maxBeamsInFlight At least 1. Default is 16 for each solver thread.
+	 */
+	public void setMaxBeamsInFlight(int maxBeamsInFlight) {
+		if (maxBeamsInFlight < 1)
+			throw new IllegalArgumentException("Beams in flight must be at least 1, was " + maxBeamsInFlight);
+		this.maxBeamsInFlight = maxBeamsInFlight;
+	}
+
+	/**
+	 * Sets the format of the results file.
+	 * 
+	 * @param format {@link BeamResultExporter#CSV} (default) or
+	 *               {@link BeamResultExporter#JSON_LINES}.
+	 */
+	public void setFormat(int format) {
+		if (format != BeamResultExporter.CSV && format != BeamResultExporter.JSON_LINES)
+			throw new IllegalArgumentException("Unknown format " + format);
+		this.format = format;
+	}
+
+	/**
+	 * Sets which sections of the stress resultants are written.
+	 * 
+	 * @param featuresOnly If true (default), only maxima, zero points and
+	 *                     discontinuities, otherwise all sections.
+	 */
+	public void setFeaturesOnly(boolean featuresOnly) {
+		this.featuresOnly = featuresOnly;
+	}
+
+	/**
+	 * Sets if the diagrams of Q, M and N are drawn.
+	 * 
+	 * @param drawDiagrams True (default) if diagrams are drawn.
+	 */
+	public void setDrawDiagrams(boolean drawDiagrams) {
+		this.drawDiagrams = drawDiagrams;
+	}
+
+	/**
+	 * Reads, solves and writes all beams.
+	 * 
+	 * Returns when all beams are written or, after {@link #stop()} was called,
+	 * when all beams in flight are written.
+	 * 
+	 * @throws IOException          If the input does not exist, or the results or
+	 *                              the journal could not be written.
+	 * @throws InterruptedException If the calling thread was interrupted. Beams in
+	 *                              flight may not be recorded in the journal.
+	 */
+	public void run() throws IOException, InterruptedException {
+		if (started)
+			throw new IllegalStateException("This runner was already started");
+		started = true;
+		start_ns = System.nanoTime();
+
+		List<Path> files = getDefinitionFiles();
+		Files.createDirectories(outputDirectory);
+		resultsFile = getNextResultsFile();
+
+		int permits = maxBeamsInFlight > 0 ? maxBeamsInFlight : BEAMS_IN_FLIGHT_PER_THREAD * numberOfThreads;
+		inFlight = new Semaphore(permits);
+		solvers = Executors.newFixedThreadPool(numberOfThreads, getThreadFactory("beam-solver"));
+		io = Executors.newCachedThreadPool(getThreadFactory("beam-io"));
+		writer = Executors.newSingleThreadExecutor(getThreadFactory("beam-writer"));
+
+		try (FileChannel journalChannel = FileChannel.open(outputDirectory.resolve(JOURNAL_FILE),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				FileChannel resultsChannel = FileChannel.open(resultsFile, StandardOpenOption.CREATE_NEW,
+						StandardOpenOption.WRITE)) {
+			Set<String> written = readJournal(journalChannel);
+			this.journalChannel = journalChannel;
+			this.resultsChannel = resultsChannel;
+			exporter = new BeamResultExporter(resultsChannel, format);
+			lastCheckpoint_ns = System.nanoTime();
+
+			for (Path file : files)
+				if (!read(file, written))
+					break;
+
+			// All permits are back when the last beam is written
+			inFlight.acquire(permits);
+			writer.submit(() -> {
+				if (fatal == null)
+					try {
+						checkpoint();
+					} catch (IOException e) {
+						fatal = e;
+					}
+			}).get();
+		} catch (ExecutionException e) {
+			throw new IOException("Results could not be written", e.getCause());
+		} finally {
+			solvers.shutdownNow();
+			io.shutdownNow();
+			writer.shutdownNow();
+			end_ns = System.nanoTime();
+		}
+
+		if (fatal != null)
+			throw fatal;
+	}
+
+	/**
+	 * Stops reading beams.
+	 * 
+	 * Returns at once, {@link #run()} returns when the beams in flight are written
+	 * and recorded in the journal. Can be called from any thread, e.g. a shutdown
+	 * hook.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Checks if the runner was stopped.
+	 * 
+	 * @return True if {@link #stop()} was called or writing the results failed.
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Number of beams read and passed to the solver threads so far.
+	 * 
+	 * @return Number of beams.
+	 */
+	public long getNumberOfBeamsRead() {
+		return beamsRead.get();
+	}
+
+	/**
+	 * Number of beams whose results were written so far.
+	 * 
+	 * @return Number of beams, including those with errors.
+	 */
+	public long getNumberOfBeamsWritten() {
+		return beamsWritten.get();
+	}
+
+	/**
+	 * Number of beams which could not be solved, or whose diagrams could not be
+	 * drawn or written.
+	 * 
+	 * @return Number of beams.
+	 */
+	public long getNumberOfBeamsFailed() {
+		return beamsFailed.get();
+	}
+
+	/**
+	 * Number of beams skipped because they were written by an earlier run.
+	 * 
+	 * @return Number of beams.
+	 */
+	public long getNumberOfBeamsSkipped() {
+		return beamsSkipped.get();
+	}
+
+	/**
+	 * Time since the run was started, or the time it took if it has finished.
+	 * 
+	 * @return Time in ns.
+	 */
+	public long getElapsedTime_ns() {
+		if (!started)
+			return 0;
+		return (end_ns == 0 ? System.nanoTime() : end_ns) - start_ns;
+	}
+
+	/**
+	 * Errors of beams and files which could not be read, solved or written.
+	 * 
+	 * Errors of a beam which was solved are also written to the results file.
+	 * 
+	 * @return Description of each error, at most the first 1000 ones.
+	 */
+	public List<String> getErrors() {
+		synchronized (errors) {
+			return new ArrayList<String>(errors);
+		}
+	}
+
+	/**
+	 * The results file of this run.
+	 * 
+	 * @return Path or null if the runner was not started.
+	 */
+	public Path getResultsFile() {
+		return resultsFile;
+	}
+
+	/*
+	 * Stage 1 (calling thread): Reads the beams of a file and passes each beam
+	 * not written before to the solver threads. Waits if there are too many
+	 * beams in flight. Returns false if the runner was stopped.
+	 */
+	private boolean read(Path file, Set<String> written) throws InterruptedException {
+		String nameOfBeams = getNameOfBeams(file);
+		try (BeamDefinitionReader reader = new BeamDefinitionReader(file)) {
+			Beam beam;
+			for (int i = 0; !stopped && (beam = reader.readBeam()) != null; i++) {
+				String name = nameOfBeams + "-" + i;
+				if (written.contains(name)) {
+					beamsSkipped.incrementAndGet();
+					continue;
+				}
+
+				inFlight.acquire();
+				if (stopped) {
+					inFlight.release();
+					break;
+				}
+				beamsRead.incrementAndGet();
+
+				Beam b = beam;
+				int index = i;
+				solvers.execute(() -> solve(name, b, index));
+			}
+		} catch (IOException e) {
+			addError(file + ": " + e.getMessage());
+		}
+		return !stopped;
+	}
+
+	/*
+	 * Stage 2 (solver threads): Solves a beam, draws and encodes its diagrams.
+	 * Any failure, also an Error like OutOfMemoryError, gives the permit of the
+	 * beam back, otherwise the run would wait for it forever.
+	 */
+	private void solve(String name, Beam beam, int index) {
+		try {
+			BeamAnalysis analysis = BeamBatchSolver.solve(beam, index, sectionLength_m, forceUnit, momentUnit);
+
+			byte[][] diagrams = null;
+			if (drawDiagrams && analysis.getQTable() != null && analysis.getResult().getErrorCount() == 0) {
+				try {
+					diagrams = drawDiagrams(beam, analysis);
+				} catch (IOException | RuntimeException e) {
+					analysis.getResult().addError(new BeamCalcError(BeamCalcError.SOLVER_ERROR, index,
+							"Diagrams of beam #" + index + " could not be drawn: " + e));
+				}
+			}
+
+			if (diagrams == null) {
+				writer.execute(() -> write(name, analysis));
+			} else {
+				byte[][] png = diagrams;
+				io.execute(() -> writeDiagrams(name, analysis, png));
+			}
+		} catch (Throwable e) {
+			beamFailed(name, e.toString());
+		}
+	}
+
+	private static byte[][] drawDiagrams(Beam beam, BeamAnalysis analysis) throws IOException {
+		StressResultantTable[] tables = { analysis.getQTable(), analysis.getMTable(), analysis.getNTable() };
+		byte[][] png = new byte[tables.length][];
+		for (int i = 0; i <= tables.length - 1; i++)
+			png[i] = new StressResultantDraw(DIAGRAMS[i], beam, tables[i], 600, 1200, 10, 10, "%.2f").toPng();
+		return png;
+	}
+
+	/*
+	 * Stage 3 (I/O threads): Writes the diagrams of a beam. The beam is recorded
+	 * in the journal only if all of them were written, so they are written
+	 * again when resuming.
+	 */
+	private void writeDiagrams(String name, BeamAnalysis analysis, byte[][] png) {
+		try {
+			for (int i = 0; i <= png.length - 1; i++)
+				Files.write(outputDirectory.resolve(name + "-" + DIAGRAMS[i] + ".png"), png[i]);
+		} catch (Throwable e) {
+			beamFailed(name, "Diagrams could not be written: " + e);
+			return;
+		}
+		writer.execute(() -> write(name, analysis));
+	}
+
+	/*
+	 * Stage 3 (writer thread): Writes the results of a beam and records it in
+	 * the journal. If this fails, the run is stopped, there is no place left for
+	 * the results.
+	 */
+	private void write(String name, BeamAnalysis analysis) {
+		try {
+			if (fatal != null)
+				return;
+			exporter.writeAnalysis(name, analysis, featuresOnly);
+			journal.append(name).append('\n');
+
+			if (analysis.getResult().getErrorCount() > 0)
+				beamsFailed.incrementAndGet();
+			beamsWritten.incrementAndGet();
+
+			beamsSinceCheckpoint++;
+			if (beamsSinceCheckpoint >= CHECKPOINT_BEAMS
+					|| System.nanoTime() - lastCheckpoint_ns >= CHECKPOINT_INTERVAL_NS)
+				checkpoint();
+		} catch (IOException e) {
+			fatal = e;
+			stopped = true;
+		} catch (RuntimeException e) {
+			fatal = new IOException("Results of " + name + " could not be written", e);
+			stopped = true;
+		} finally {
+			inFlight.release();
+		}
+	}
+
+	/*
+	 * Saves the results written so far and then the journal.
+	 */
+	private void checkpoint() throws IOException {
+		exporter.flush();
+		resultsChannel.force(false);
+
+		ByteBuffer names = StandardCharsets.UTF_8.encode(CharBuffer.wrap(journal));
+		while (names.hasRemaining())
+			journalChannel.write(names);
+		journalChannel.force(false);
+
+		journal.setLength(0);
+		beamsSinceCheckpoint = 0;
+		lastCheckpoint_ns = System.nanoTime();
+	}
+
+	private void beamFailed(String name, String description) {
+		beamsFailed.incrementAndGet();
+		addError(name + ": " + description);
+		inFlight.release();
+	}
+
+	private void addError(String description) {
+		synchronized (errors) {
+			if (errors.size() < MAX_ERRORS)
+				errors.add(description);
+		}
+	}
+
+	/*
+	 * Names of all beams recorded in the journal. A line without a line break at
+	 * the end was cut off by an interruption, it is removed. Leaves the channel
+	 * positioned at the end.
+	 */
+	private static Set<String> readJournal(FileChannel journalChannel) throws IOException {
+		long size = journalChannel.size();
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("Journal is too large: " + size + " bytes");
+
+		ByteBuffer bytes = ByteBuffer.allocate((int) size);
+		while (bytes.hasRemaining() && journalChannel.read(bytes) >= 0)
+			;
+		bytes.flip();
+
+		int end = bytes.limit();
+		while (end > 0 && bytes.get(end - 1) != '\n')
+			end--;
+		bytes.limit(end);
+		journalChannel.truncate(end);
+		journalChannel.position(end);
+
+		Set<String> names = new HashSet<String>();
+		for (String name : StandardCharsets.UTF_8.decode(bytes).toString().split("\n"))
+			if (!name.isEmpty())
+				names.add(name);
+		return names;
+	}
+
+	private List<Path> getDefinitionFiles() throws IOException {
+		if (Files.isRegularFile(input))
+			return Collections.singletonList(input);
+		if (!Files.isDirectory(input))
+			throw new NoSuchFileException(input.toString());
+
+		try (Stream<Path> files = Files.list(input)) {
+			return files.filter(f -> f.getFileName().toString().endsWith(DEFINITION_FILE_EXTENSION))
+					.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/*
+	 * First results file not written by an earlier run.
+	 */
+	private Path getNextResultsFile() {
+		int part = 1;
+		while (Files.exists(outputDirectory.resolve("results-" + part + ".csv"))
+				|| Files.exists(outputDirectory.resolve("results-" + part + ".jsonl")))
+			part++;
+		return outputDirectory.resolve("results-" + part + (format == BeamResultExporter.CSV ? ".csv" : ".jsonl"));
+	}
+
+	private static String getNameOfBeams(Path file) {
+		String name = file.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+
+	private static ThreadFactory getThreadFactory(String name) {
+		AtomicInteger number = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, name + "-" + number.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
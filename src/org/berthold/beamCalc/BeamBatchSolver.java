@@ -0,0 +1,192 @@
+package org.berthold.beamCalc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves many independent {@link Beam}'s in parallel.
+ * <p>
+ * 
+ * The beams are split into chunks which are solved by a {@link ForkJoinPool}.
+ * Idle threads steal chunks from busy ones, so beams which take long to solve
+ * (many loads, long beams) do not stall the batch.
+ * <p>
+ * 
+ * Results are returned in the same order as the beams were passed. Each beam is
+ * solved on its own: If solving a beam fails, a {@link BeamCalcError} of type
+ * {@link BeamCalcError#SOLVER_ERROR} is added to it's result and the batch goes
+ * on.
+ * <p>
+ * 
+ * Solving does not change the beams, the same beam may appear more than once
+ * in one batch. Beams must not be changed while the batch is solved.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamBatchSolver {
+
+	// Minimum number of beams solved by one task. Smaller chunks are not worth
+	// the overhead of forking.
+	private static final int MIN_CHUNK_SIZE = 4;
+
+	// Each thread gets about this many chunks, which leaves enough work to be
+	// stolen.
+	private static final int CHUNKS_PER_THREAD = 8;
+
+	private ForkJoinPool pool;
+
+	/**
+	 * Creates a new batch solver using all cores.
+	 */
+	public BeamBatchSolver() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new batch solver.
+	 * 
+	 * @param pool The {@link ForkJoinPool} the beams are solved in.
+	 */
+	public BeamBatchSolver(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Calculates the supporting forces of all beams.
+	 * 
+	 * @param beams The beams.
+	 * @return {@link BeamBatchResult}. The tables of each {@link BeamAnalysis}
+	 *         are null.
+	 */
+	public BeamBatchResult solve(Collection<Beam> beams) {
+		return solve(beams, 0, null, null);
+	}
+
+	/**
+	 * Calculates the supporting forces and Q(x), M(x) and N(x) of all beams.
+	 * 
+	 * @param beams           The beams.
+	 * @param sectionLength_m Length of the sections the beams are divided into,
+	 *                        see {@link QMNSolver}.
+	 * @param forceUnit       Unit of Q and N (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @return {@link BeamBatchResult}
+	 */
+	public BeamBatchResult solve(Collection<Beam> beams, double sectionLength_m, String forceUnit,
+			String momentUnit) {
+		if (sectionLength_m < 0)
+			throw new IllegalArgumentException("Section length must not be negative:" + sectionLength_m);
+
+		Beam[] batch = beams.toArray(new Beam[beams.size()]);
+		BeamAnalysis[] analyses = new BeamAnalysis[batch.length];
+
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, batch.length / (pool.getParallelism() * CHUNKS_PER_THREAD));
+
+		long start_ns = System.nanoTime();
+		if (batch.length > 0)
+			pool.invoke(new SolveTask(batch, analyses, 0, batch.length, chunkSize, sectionLength_m, forceUnit,
+					momentUnit));
+		long elapsed_ns = System.nanoTime() - start_ns;
+
+		int failed = 0;
+		for (BeamAnalysis analysis : analyses)
+			if (analysis.getResult().getErrorCount() > 0)
+				failed++;
+
+		return new BeamBatchResult(new ArrayList<BeamAnalysis>(Arrays.asList(analyses)), failed, elapsed_ns,
+				pool.getParallelism());
+	}
+
+	/**
+	 * Calculates the supporting forces of all beams.
+	 * 
+	 * The stream is collected before solving starts.
+	 * 
+	 * @param beams The beams.
+	 * @return {@link BeamBatchResult}.
+	 */
+	public BeamBatchResult solve(Stream<Beam> beams) {
+		return solve(beams.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Calculates the supporting forces and Q(x), M(x) and N(x) of all beams.
+	 * 
+	 * The stream is collected before solving starts.
+	 * 
+	 * @param beams           The beams.
+	 * @param sectionLength_m Length of the sections the beams are divided into.
+	 * @param forceUnit       Unit of Q and N (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @return {@link BeamBatchResult}
+	 */
+	public BeamBatchResult solve(Stream<Beam> beams, double sectionLength_m, String forceUnit, String momentUnit) {
+		return solve(beams.collect(Collectors.toList()), sectionLength_m, forceUnit, momentUnit);
+	}
+
+	/*
+	 * Solves one beam. Any exception is turned into an error of this beam. Also
+	 * used by the {@link BeamBatchRunner}.
+	 */
+	static BeamAnalysis solve(Beam beam, int index, double sectionLength_m, String forceUnit,
+			String momentUnit) {
+		try {
+			if (sectionLength_m == 0)
+				return new BeamAnalysis(BeamSolver.getReactions(beam), null, null, null);
+			else
+				return QMNSolver.solve(beam, sectionLength_m, forceUnit, momentUnit);
+		} catch (RuntimeException e) {
+			BeamResult result = new BeamResult();
+			result.addError(new BeamCalcError(BeamCalcError.SOLVER_ERROR, index,
+					"Beam #" + index + " could not be solved: " + e));
+			return new BeamAnalysis(result, null, null, null);
+		}
+	}
+
+	/*
+	 * Solves the beams from index 'from' to 'to' (exclusive). Splits in two
+	 * halves until the chunk is small enough.
+	 */
+	private static class SolveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Beam[] beams;
+		private final BeamAnalysis[] analyses;
+		private final int from, to, chunkSize;
+		private final double sectionLength_m;
+		private final String forceUnit, momentUnit;
+
+		SolveTask(Beam[] beams, BeamAnalysis[] analyses, int from, int to, int chunkSize, double sectionLength_m,
+				String forceUnit, String momentUnit) {
+			this.beams = beams;
+			this.analyses = analyses;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.sectionLength_m = sectionLength_m;
+			this.forceUnit = forceUnit;
+			this.momentUnit = momentUnit;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunkSize) {
+				for (int i = from; i <= to - 1; i++)
+					analyses[i] = solve(beams[i], i, sectionLength_m, forceUnit, momentUnit);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(
+						new SolveTask(beams, analyses, from, middle, chunkSize, sectionLength_m, forceUnit,
+								momentUnit),
+						new SolveTask(beams, analyses, middle, to, chunkSize, sectionLength_m, forceUnit,
+								momentUnit));
+			}
+		}
+	}
+}
@@ -10,6 +10,7 @@ public class BeamCalcError {
 
 	public static final int LOAD_ERROR=1;		// Origin of error.....
 	public static final int SUPPORT_ERROR=2;
+	public static final int SOLVER_ERROR=3;		// Solver failed, e.g. invalid beam definition in a batch
 	
 	private int originOfError;
 	private int indexOfError; 					// Index of load or bearing in source data list that may have caused the error
@@ -0,0 +1,490 @@
+package org.berthold.beamCalc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP service solving beams on demand.
+ * <p>
+ * 
+ * One JVM, once warmed up, serves all clients. Only the HTTP server of the JDK
+ * is used. Beams are posted as JSON (see {@link BeamJsonReader}):
+ * 
+ * <pre>
+ * POST /result                  Supporting forces, solution terms and errors
+ * POST /table/Q, /table/M, /table/N
+ *      ?h=0.001&amp;all=true        Maxima, zero points and discontinuities, or
+ *                               all sections of a stress resultant
+ * POST /diagram/Q, /diagram/M, /diagram/N
+ *      ?h=0.001&amp;width=1200&amp;height=600
+ *                               Diagram as PNG
+ * GET  /metrics                 Requests, errors and latency of each request
+ *                               type as JSON
+ * GET  /health                  OK
+ * </pre>
+ * 
+ * Results and tables are JSON Lines, written by the
+ * {@link BeamResultExporter}. The number of decimals can be passed by
+ * decimals=n. If the beam has errors, they are returned with status 422.
+ * <p>
+ * 
+ * Beams with more than two supports are solved by the
+ * {@link ContinuousBeamSolver}, their result contains the force at each
+ * support and no solution terms. Tables and diagrams are calculated for beams
+ * with two supports only, for other beams an error is returned with status
+ * 422.
+ * <p>
+ * 
+ * Requests are handled by a fixed number of threads. If all of them are busy,
+ * up to a maximum number of requests wait. Any further request is answered at
+ * once with 503 (service unavailable), so a burst of requests does not make
+ * each of them slow. Solving is bounded, too: A section length which would
+ * divide a beam into more than 4194304 sections is refused.
+ * <p>
+ * 
+ * {@link #stop(int)} answers requests accepted after it was called with 503 and
+ * waits for the requests in progress or waiting for a thread before the server
+ * is closed.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamCalcServer {
+
+	// Request types
+	private static final int RESULT = 0;
+	private static final int TABLE = 1;
+	private static final int DIAGRAM = 2;
+	private static final int METRICS = 3;
+	private static final int HEALTH = 4;
+	private static final String[] REQUESTS = { "result", "table", "diagram", "metrics", "health" };
+
+	private static final double DEFAULT_SECTION_LENGTH_M = .001;
+	private static final int MAX_SECTIONS = 1 << 22;
+	private static final int MAX_REQUEST_BYTES = 1 << 20;
+	private static final int MAX_IMAGE_SIZE_PX = 4000;
+
+	// Set while a request is answered by the thread of the server itself,
+	// because all threads are busy and the queue is full or because it was
+	// accepted after the server was stopped.
+	private static final ThreadLocal<Boolean> REJECTED = new ThreadLocal<Boolean>();
+
+	private final HttpServer server;
+	private final ThreadPoolExecutor executor;
+	private final RequestMetrics[] metrics = new RequestMetrics[REQUESTS.length];
+	private final AtomicInteger requestsInProgress = new AtomicInteger();
+	private volatile boolean stopping;
+	private long start_ns;
+
+	/**
+	 * Creates a new server.
+	 * 
+	 * @param address           Address and port, e.g. new
+	 *                          InetSocketAddress("localhost", 8080).
+	 * @param numberOfThreads   Number of requests handled at the same time.
+	 * @param maxQueuedRequests Number of requests waiting for a thread, before
+	 *                          further requests are answered with 503.
+	 * @throws IOException If the address could not be bound.
+	 */
+	public BeamCalcServer(InetSocketAddress address, int numberOfThreads, int maxQueuedRequests)
+			throws IOException {
+		if (numberOfThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be at least 1, was " + numberOfThreads);
+		if (maxQueuedRequests < 1)
+			throw new IllegalArgumentException("Queued requests must be at least 1, was " + maxQueuedRequests);
+
+		AtomicInteger number = new AtomicInteger();
+		executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(maxQueuedRequests), r -> {
+					Thread thread = new Thread(r, "beam-server-" + number.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, (r, e) -> reject(r));
+
+		for (int i = 0; i <= REQUESTS.length - 1; i++)
+			metrics[i] = new RequestMetrics();
+
+		server = HttpServer.create(address, 0);
+		// Whether the server is stopping is checked when a request is accepted,
+		// requests waiting for a thread are still answered.
+		server.setExecutor(r -> {
+			if (stopping)
+				reject(r);
+			else
+				executor.execute(r);
+		});
+		server.createContext("/result", exchange -> handle(exchange, RESULT));
+		server.createContext("/table/", exchange -> handle(exchange, TABLE));
+		server.createContext("/diagram/", exchange -> handle(exchange, DIAGRAM));
+		server.createContext("/metrics", exchange -> handle(exchange, METRICS));
+		server.createContext("/health", exchange -> handle(exchange, HEALTH));
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		start_ns = System.nanoTime();
+		server.start();
+	}
+
+	/**
+	 * Stops the server.
+	 * 
+	 * New requests are answered with 503. Requests in progress or waiting for a
+	 * thread are finished, then the server is closed.
+	 * 
+	 * @param gracePeriod_s Longest time to wait for the requests in progress.
+	 * @throws InterruptedException If the calling thread was interrupted.
+	 */
+	public void stop(int gracePeriod_s) throws InterruptedException {
+		stopping = true;
+		long end_ns = System.nanoTime() + TimeUnit.SECONDS.toNanos(gracePeriod_s);
+		while ((requestsInProgress.get() > 0 || !executor.getQueue().isEmpty()) && System.nanoTime() < end_ns)
+			Thread.sleep(10);
+
+		server.stop(0);
+		executor.shutdown();
+		executor.awaitTermination(Math.max(0, end_ns - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * The address the server listens to.
+	 * 
+	 * @return Address and port. If the server was created for port 0, this is the
+	 *         port chosen by the system.
+	 */
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	 * Number of requests being answered.
+	 * 
+	 * @return Number of requests.
+	 */
+	public int getRequestsInProgress() {
+		return requestsInProgress.get();
+	}
+
+	/**
+	 * Metrics of all request types, as returned by GET /metrics.
+	 * 
+	 * @return JSON.
+	 */
+	public String getMetrics() {
+		StringBuilder json = new StringBuilder();
+		json.append(String.format(Locale.ROOT, "{\"uptime_s\":%.1f,\"inProgress\":%d,\"queued\":%d,\"threads\":%d,",
+				(System.nanoTime() - start_ns) / 1e9, requestsInProgress.get(), executor.getQueue().size(),
+				executor.getMaximumPoolSize()));
+		json.append("\"requests\":{");
+		for (int i = 0; i <= REQUESTS.length - 1; i++) {
+			if (i > 0)
+				json.append(',');
+			json.append('"').append(REQUESTS[i]).append("\":");
+			metrics[i].append(json);
+		}
+		return json.append("}}\n").toString();
+	}
+
+	/*
+	 * Answers a request with 503 on the calling thread.
+	 */
+	private static void reject(Runnable r) {
+		REJECTED.set(Boolean.TRUE);
+		try {
+			r.run();
+		} finally {
+			REJECTED.remove();
+		}
+	}
+
+	/*
+	 * Answers a request and records its latency. Any failure of one request only
+	 * affects this request.
+	 */
+	private void handle(HttpExchange exchange, int request) {
+		long start_ns = System.nanoTime();
+		int status = 500;
+		boolean inProgress = false;
+		try {
+			if (REJECTED.get() != null) {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				status = sendText(exchange, 503, "Busy, try again later");
+				return;
+			}
+			requestsInProgress.incrementAndGet();
+			inProgress = true;
+			status = answer(exchange, request);
+		} catch (IllegalArgumentException e) {
+			status = trySendText(exchange, 400, e.getMessage());
+		} catch (IOException e) {
+			// Client has gone
+		} catch (RuntimeException e) {
+			status = trySendText(exchange, 500, e.toString());
+		} finally {
+			if (inProgress)
+				requestsInProgress.decrementAndGet();
+			exchange.close();
+			metrics[request].record(status, System.nanoTime() - start_ns);
+		}
+	}
+
+	private int answer(HttpExchange exchange, int request) throws IOException {
+		String method = request == METRICS || request == HEALTH ? "GET" : "POST";
+		if (!exchange.getRequestMethod().equals(method))
+			return sendText(exchange, 405, method + " expected");
+
+		if (request == HEALTH)
+			return sendText(exchange, 200, "OK");
+		if (request == METRICS)
+			return send(exchange, 200, "application/json", getMetrics().getBytes(StandardCharsets.UTF_8));
+
+		String body = getBody(exchange);
+		if (body == null)
+			return sendText(exchange, 413, "Request is larger than " + MAX_REQUEST_BYTES + " bytes");
+		BeamJsonReader definition = new BeamJsonReader(body);
+		Beam beam = definition.getBeam();
+		Map<String, String> parameters = getParameters(exchange);
+		int decimals = (int) getNumber(parameters, "decimals", 9);
+		if (decimals < 0 || decimals > 15)
+			throw new IllegalArgumentException("Decimals must be between 0 and 15, was " + decimals);
+
+		if (request == RESULT) {
+			BeamResult result;
+			if (beam.getNumberOfBearings() > 2)
+				result = ContinuousBeamSolver.solve(beam);
+			else
+				result = BeamSolver.getResults(beam, decimals + "f");
+			int status = result.getErrorCount() > 0 ? 422 : 200;
+			try (BeamResultExporter exporter = startJsonLines(exchange, status, decimals)) {
+				exporter.writeResult(definition.getName(), result);
+			}
+			return status;
+		}
+
+		// Q, M or N
+		String path = exchange.getRequestURI().getPath();
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		int table = "Q".equals(name) ? 0 : "M".equals(name) ? 1 : "N".equals(name) ? 2 : -1;
+		if (table < 0)
+			return sendText(exchange, 404, "Q, M or N expected, was " + name);
+
+		double sectionLength_m = getNumber(parameters, "h", DEFAULT_SECTION_LENGTH_M);
+		if (!(sectionLength_m > 0) || beam.getLength() / sectionLength_m > MAX_SECTIONS)
+			throw new IllegalArgumentException("Section length " + sectionLength_m + " is not positive or divides "
+					+ "the beam into more than " + MAX_SECTIONS + " sections");
+		int width_px = (int) getNumber(parameters, "width", 1200);
+		int height_px = (int) getNumber(parameters, "height", 600);
+		if (width_px < 100 || width_px > MAX_IMAGE_SIZE_PX || height_px < 100 || height_px > MAX_IMAGE_SIZE_PX)
+			throw new IllegalArgumentException("Width and height must be between 100 and " + MAX_IMAGE_SIZE_PX);
+
+		if (beam.getNumberOfBearings() > 2) {
+			BeamResult result = new BeamResult();
+			result.addError(new BeamCalcError(BeamCalcError.SUPPORT_ERROR, 2, "Beam has "
+					+ beam.getNumberOfBearings() + " supports, tables are calculated for two supports only"));
+			try (BeamResultExporter exporter = startJsonLines(exchange, 422, decimals)) {
+				exporter.writeResult(definition.getName(), result);
+			}
+			return 422;
+		}
+
+		BeamAnalysis analysis = QMNSolver.solve(beam, sectionLength_m, "N", "Nm");
+		if (analysis.getResult().getErrorCount() > 0) {
+			try (BeamResultExporter exporter = startJsonLines(exchange, 422, decimals)) {
+				exporter.writeResult(definition.getName(), analysis.getResult());
+			}
+			return 422;
+		}
+
+		StressResultantTable[] tables = { analysis.getQTable(), analysis.getMTable(), analysis.getNTable() };
+		if (request == DIAGRAM)
+			return send(exchange, 200, "image/png", new StressResultantDraw(name, beam, tables[table], height_px,
+					width_px, 10, 10, "%.2f").toPng());
+
+		try (BeamResultExporter exporter = startJsonLines(exchange, 200, decimals)) {
+			if ("true".equals(parameters.get("all")))
+				exporter.writeTable(definition.getName(), name, tables[table]);
+			else
+				exporter.writeFeatures(definition.getName(), name, tables[table]);
+		}
+		return 200;
+	}
+
+	/*
+	 * Starts a response of unknown length and returns an exporter writing JSON
+	 * Lines into it. Closing the exporter ends the response.
+	 */
+	private static BeamResultExporter startJsonLines(HttpExchange exchange, int status, int decimals)
+			throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+		exchange.sendResponseHeaders(status, 0);
+		BeamResultExporter exporter = new BeamResultExporter(Channels.newChannel(exchange.getResponseBody()),
+				BeamResultExporter.JSON_LINES);
+		exporter.setDecimals(decimals);
+		return exporter;
+	}
+
+	/*
+	 * Body of the request, null if it is too large.
+	 */
+	private static String getBody(HttpExchange exchange) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		try (InputStream in = exchange.getRequestBody()) {
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				body.write(buffer, 0, n);
+				if (body.size() > MAX_REQUEST_BYTES)
+					return null;
+			}
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static Map<String, String> getParameters(HttpExchange exchange) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<String, String>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null)
+			return parameters;
+		for (String parameter : query.split("&")) {
+			int equals = parameter.indexOf('=');
+			if (equals > 0)
+				parameters.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+						URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+		}
+		return parameters;
+	}
+
+	private static double getNumber(Map<String, String> parameters, String name, double defaultValue) {
+		String value = parameters.get(name);
+		if (value == null)
+			return defaultValue;
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Number expected for " + name + ", was " + value);
+		}
+	}
+
+	private static int sendText(HttpExchange exchange, int status, String text) throws IOException {
+		return send(exchange, status, "text/plain; charset=utf-8", (text + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/*
+	 * Same as sendText, but the response may already be started. Then the
+	 * client only sees the connection closed.
+	 */
+	private static int trySendText(HttpExchange exchange, int status, String text) {
+		try {
+			return sendText(exchange, status, text);
+		} catch (IOException e) {
+			return status;
+		}
+	}
+
+	private static int send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+		return status;
+	}
+
+	/*
+	 * Number of requests, errors and the distribution of the latency of one
+	 * request type. Latencies are counted in buckets, four for each power of
+	 * two of microseconds, so a percentile is known within 25% without storing
+	 * each request. Lock free, may be recorded by any number of threads.
+	 */
+	private static final class RequestMetrics {
+		private static final int BUCKETS = 4 * 40;
+
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicLong max_ns = new AtomicLong();
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		void record(int status, long latency_ns) {
+			requests.incrementAndGet();
+			if (status == 503)
+				rejected.incrementAndGet();
+			else if (status >= 400)
+				errors.incrementAndGet();
+
+			buckets.incrementAndGet(Math.min(BUCKETS - 1, getBucket(latency_ns / 1000)));
+			long max;
+			while (latency_ns > (max = max_ns.get()) && !max_ns.compareAndSet(max, latency_ns))
+				;
+		}
+
+		void append(StringBuilder json) {
+			json.append(String.format(Locale.ROOT,
+					"{\"count\":%d,\"errors\":%d,\"rejected\":%d,\"p50_ms\":%.3f,\"p90_ms\":%.3f,"
+							+ "\"p99_ms\":%.3f,\"max_ms\":%.3f}",
+					requests.get(), errors.get(), rejected.get(), getPercentile_ms(0.5), getPercentile_ms(0.9),
+					getPercentile_ms(0.99), max_ns.get() / 1e6));
+		}
+
+		/*
+		 * Latency not exceeded by the part of the requests passed (upper bound
+		 * of its bucket, at most the longest latency).
+		 */
+		private double getPercentile_ms(double part) {
+			long[] counts = new long[BUCKETS];
+			long total = 0;
+			for (int b = 0; b <= BUCKETS - 1; b++) {
+				counts[b] = buckets.get(b);
+				total = total + counts[b];
+			}
+			if (total == 0)
+				return 0;
+
+			long rank = (long) Math.ceil(part * total);
+			long sum = 0;
+			for (int b = 0; b <= BUCKETS - 1; b++) {
+				sum = sum + counts[b];
+				if (sum >= rank)
+					return Math.min(getUpperBound_us(b) / 1000.0, max_ns.get() / 1e6);
+			}
+			return max_ns.get() / 1e6;
+		}
+
+		// 0..3 us have a bucket each, above each power of two is split into
+		// four.
+		private static int getBucket(long latency_us) {
+			if (latency_us < 4)
+				return (int) latency_us;
+			int log = 63 - Long.numberOfLeadingZeros(latency_us);
+			return 4 * (log - 1) + (int) ((latency_us >>> (log - 2)) & 3);
+		}
+
+		private static long getUpperBound_us(int bucket) {
+			if (bucket < 4)
+				return bucket + 1;
+			int log = bucket / 4 + 1;
+			return (4 + bucket % 4 + 1L) << (log - 2);
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package org.berthold.beamCalc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@link Beam}- objects written by the {@link BeamDefinitionWriter}.
+ * <p>
+ * 
+ * The channel is read in large blocks. Each beam is preceded by its size, so it
+ * is read completely before it is build. Numbers are read directly from the
+ * buffer, there is no text to be parsed. The lists of supports and loads of a
+ * beam are created with the size needed.
+ * <p>
+ * 
+ * Beams are read one by one (see {@link #readBeam()}), so files holding
+ * millions of beams can be processed without keeping them in memory.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamDefinitionReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// Smallest size of a support and a load
+	private static final int MIN_SIZE_OF_SUPPORT = 8 + 1 + 2;
+	private static final int MIN_SIZE_OF_LOAD = 1 + 4 * 8 + 2;
+
+	private final ReadableByteChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private boolean endOfChannel;
+	private final int version;
+
+	/**
+	 * Creates a new reader and reads the header.
+	 * 
+	 * @param channel The channel, e.g. a {@link FileChannel}.
+	 * @throws IOException If the channel could not be read, is not a beam
+	 *                     definition file or was written by a later version.
+	 */
+	public BeamDefinitionReader(ReadableByteChannel channel) throws IOException {
+		this(channel, false);
+	}
+
+	/**
+	 * Creates a new reader reading from a file.
+	 * 
+	 * @param path The file.
+	 * @throws IOException If the file could not be read, is not a beam definition
+	 *                     file or was written by a later version.
+	 */
+	public BeamDefinitionReader(Path path) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.READ), true);
+	}
+
+	/*
+	 * Reads the header. A channel opened by the reader is closed if the header
+	 * can not be read.
+	 */
+	private BeamDefinitionReader(ReadableByteChannel channel, boolean closeOnError) throws IOException {
+		this.channel = channel;
+		buffer.limit(0);
+
+		try {
+			if (!fill(BeamDefinitionWriter.HEADER_SIZE) || buffer.getInt() != BeamDefinitionWriter.MAGIC)
+				throw new IOException("Not a beam definition file");
+			version = buffer.getShort();
+			buffer.getShort();
+			if (version < 1 || version > BeamDefinitionWriter.VERSION)
+				throw new IOException(
+						"Unsupported version " + version + ", expected " + BeamDefinitionWriter.VERSION + " or less");
+		} catch (IOException | RuntimeException e) {
+			if (closeOnError) {
+				try {
+					channel.close();
+				} catch (IOException closeFailed) {
+					e.addSuppressed(closeFailed);
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads all beams of a file.
+	 * 
+	 * @param path The file.
+	 * @return List of {@link Beam}- objects, in the order they were written.
+	 * @throws IOException If the file could not be read or is damaged.
+	 */
+	public static List<Beam> readAll(Path path) throws IOException {
+		List<Beam> beams = new ArrayList<Beam>();
+		try (BeamDefinitionReader reader = new BeamDefinitionReader(path)) {
+			Beam beam;
+			while ((beam = reader.readBeam()) != null)
+				beams.add(beam);
+		}
+		return beams;
+	}
+
+	/**
+	 * Version of the file format the beams were written with.
+	 * 
+	 * @return Version.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Reads the next beam.
+	 * 
+	 * @return The {@link Beam} or null if there are no more beams.
+	 * @throws IOException If the channel could not be read or is damaged.
+	 */
+	public Beam readBeam() throws IOException {
+		if (!fill(4)) {
+			if (buffer.hasRemaining())
+				throw new IOException("Beam definition file is damaged or incomplete");
+			return null;
+		}
+
+		int size = buffer.getInt();
+		if (size < 0 || !fill(size))
+			throw new IOException("Beam definition file is damaged or incomplete");
+
+		// Nothing beyond this beam can be read by accident
+		int end = buffer.position() + size;
+		int limit = buffer.limit();
+		buffer.limit(end);
+		try {
+			Beam beam = getBeam(size);
+			if (buffer.position() != end)
+				throw new IOException("Beam definition file is damaged or incomplete");
+			return beam;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("Beam definition file is damaged or incomplete", e);
+		} finally {
+			buffer.limit(limit);
+			buffer.position(end);
+		}
+	}
+
+	/**
+	 * Closes the channel.
+	 * 
+	 * @throws IOException If the channel could not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private Beam getBeam(int size) throws IOException {
+		double lengthOfBeam_m = buffer.getDouble();
+		int numberOfSupports = buffer.getInt();
+		int numberOfLoads = buffer.getInt();
+		int numberOfLoadCases = buffer.getInt();
+
+		// Checked before the lists are created, a damaged count must not
+		// allocate huge lists.
+		if (numberOfSupports < 0 || numberOfLoads < 0 || numberOfLoadCases < 0
+				|| (long) numberOfSupports * MIN_SIZE_OF_SUPPORT + (long) numberOfLoads * MIN_SIZE_OF_LOAD > size)
+			throw new IOException("Beam definition file is damaged or incomplete");
+
+		Beam beam = new Beam(lengthOfBeam_m, numberOfSupports, numberOfLoads);
+
+		for (int i = 0; i <= numberOfSupports - 1; i++) {
+			double x_m = buffer.getDouble();
+			int type = buffer.get();
+			beam.addBearing(new Support(getString(), x_m, type));
+		}
+
+		for (int i = 0; i <= numberOfLoads - 1; i++)
+			beam.addLoad(getLoad());
+
+		for (int i = 0; i <= numberOfLoadCases - 1; i++) {
+			LoadCase loadCase = new LoadCase(getString());
+			int loads = buffer.getInt();
+			if (loads < 0 || (long) loads * MIN_SIZE_OF_LOAD > buffer.remaining())
+				throw new IOException("Beam definition file is damaged or incomplete");
+			for (int k = 0; k <= loads - 1; k++)
+				loadCase.addLoad(getLoad());
+			beam.addLoadCase(loadCase);
+		}
+		return beam;
+	}
+
+	private Load getLoad() {
+		int flags = buffer.get();
+		boolean included = (flags & BeamDefinitionWriter.LOAD_INCLUDED) != 0;
+		boolean hasError = (flags & BeamDefinitionWriter.LOAD_HAS_ERROR) != 0;
+
+		double x_m = buffer.getDouble();
+		double angle_degrees = buffer.getDouble();
+		double length_m = buffer.getDouble();
+
+		if ((flags & BeamDefinitionWriter.LOAD_CHANGING) != 0) {
+			double forceStart_N = buffer.getDouble();
+			double forceEnd_N = buffer.getDouble();
+			return new Load(getString(), forceStart_N, forceEnd_N, x_m, angle_degrees, length_m, included, hasError);
+		}
+		double force_N = buffer.getDouble();
+		return new Load(getString(), force_N, x_m, angle_degrees, length_m, included, hasError);
+	}
+
+	private String getString() {
+		int length = buffer.getShort();
+		if (length < 0)
+			return null;
+		if (length > buffer.remaining())
+			throw new BufferUnderflowException();
+
+		String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+				StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return s;
+	}
+
+	/*
+	 * Makes sure the buffer holds at least the number of bytes passed. Returns
+	 * false if the channel ends before. The buffer grows with the bytes read, a
+	 * damaged size does not allocate more memory than the channel holds.
+	 */
+	private boolean fill(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes)
+			return true;
+
+		if (channel instanceof SeekableByteChannel) {
+			SeekableByteChannel seekable = (SeekableByteChannel) channel;
+			if (buffer.remaining() + seekable.size() - seekable.position() < bytes)
+				return false;
+		}
+
+		buffer.compact();
+		while (buffer.position() < bytes && !endOfChannel) {
+			if (!buffer.hasRemaining()) {
+				ByteBuffer larger = ByteBuffer.allocate((int) Math.min(bytes, 2L * buffer.capacity()))
+						.order(ByteOrder.LITTLE_ENDIAN);
+				buffer.flip();
+				larger.put(buffer);
+				buffer = larger;
+			}
+			if (channel.read(buffer) < 0)
+				endOfChannel = true;
+		}
+		buffer.flip();
+		return buffer.remaining() >= bytes;
+	}
+}
@@ -0,0 +1,261 @@
+package org.berthold.beamCalc;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes {@link Beam}- objects in a compact binary format.
+ * <p>
+ * 
+ * A file holds any number of beams, written one after the other. It is read by
+ * the {@link BeamDefinitionReader}. File format, version 1. All numbers are
+ * little endian:
+ * 
+ * <pre>
+ * Header:
+ *   int    Magic number 'BCBD'
+ *   short  Version
+ *   short  0
+ * Each beam:
+ *   int    Number of bytes following, up to the next beam
+ *   double Length of the beam
+ *   int    Number of supports, number of loads, number of load cases
+ *   Supports:   double position, byte type, string name
+ *   Loads:      see below
+ *   Load cases: string name, int number of loads, loads
+ * Each load:
+ *   byte   Bit 0: included into calculation, bit 1: has an error, bit 2:
+ *          force changes from start to end
+ *   double Position, angle, length of the line load (0 for point loads)
+ *   double Force (bit 2 clear) or force at the start and at the end (bit 2 set)
+ *   string Name
+ * Strings:
+ *   short  Length in bytes (UTF-8), -1 for null, followed by the bytes
+ * </pre>
+ * 
+ * Beams are written into a buffer which is passed to the channel when it is
+ * full.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamDefinitionWriter implements Closeable, Flushable {
+
+	// 'BCBD'
+	static final int MAGIC = 0x42434244;
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 8;
+
+	// Bits of the flags of a load
+	static final int LOAD_INCLUDED = 1;
+	static final int LOAD_HAS_ERROR = 2;
+	static final int LOAD_CHANGING = 4;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final WritableByteChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private int numberOfBeams;
+
+	/**
+	 * Creates a new writer and writes the header.
+	 * 
+	 * @param channel The channel, e.g. a {@link FileChannel}.
+	 */
+	public BeamDefinitionWriter(WritableByteChannel channel) {
+		this.channel = channel;
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+	}
+
+	/**
+	 * Creates a new writer writing to a file.
+	 * 
+	 * An existing file is replaced.
+	 * 
+	 * @param path The file.
+	 * @throws IOException If the file could not be created.
+	 */
+	public BeamDefinitionWriter(Path path) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	/**
+	 * Writes all beams of a list into a file.
+	 * 
+	 * @param beams The beams.
+	 * @param path  The file.
+	 * @throws IOException If the file could not be written.
+	 */
+	public static void write(List<Beam> beams, Path path) throws IOException {
+		try (BeamDefinitionWriter writer = new BeamDefinitionWriter(path)) {
+			for (Beam beam : beams)
+				writer.writeBeam(beam);
+		}
+	}
+
+	/**
+	 * Writes a beam.
+	 * 
+	 * @param beam The {@link Beam}- object.
+	 * @throws IOException              If the channel could not be written.
+	 * @throws IllegalArgumentException If a name is longer than 32767 bytes.
+	 *                                  Nothing of the beam is written then.
+	 */
+	public void writeBeam(Beam beam) throws IOException {
+		ensureCapacity(getMaxSize(beam));
+
+		// Nothing of the beam is left in the buffer if it can not be written
+		int start = buffer.position();
+		try {
+			buffer.putInt(0);
+			buffer.putDouble(beam.getLength());
+			buffer.putInt(beam.getNumberOfBearings());
+			buffer.putInt(beam.getNumberOfLoads());
+			buffer.putInt(beam.getLoadCases().size());
+
+			for (int i = 0; i <= beam.getNumberOfBearings() - 1; i++) {
+				Support support = beam.getBearing(i);
+				buffer.putDouble(support.getDistanceFromLeftEndOfBeam_m());
+				buffer.put((byte) support.getType());
+				putString(support.getNameOfSupport());
+			}
+
+			for (int i = 0; i <= beam.getNumberOfLoads() - 1; i++)
+				putLoad(beam.getLoad(i));
+
+			for (LoadCase loadCase : beam.getLoadCases()) {
+				putString(loadCase.getName());
+				buffer.putInt(loadCase.getNumberOfLoads());
+				for (Load load : loadCase.getLoads())
+					putLoad(load);
+			}
+		} catch (RuntimeException e) {
+			buffer.position(start);
+			throw e;
+		}
+		buffer.putInt(start, buffer.position() - start - 4);
+		numberOfBeams++;
+	}
+
+	/**
+	 * Number of beams written so far.
+	 * 
+	 * @return Number of beams.
+	 */
+	public int getNumberOfBeams() {
+		return numberOfBeams;
+	}
+
+	/**
+	 * Passes all beams written so far to the channel.
+	 * 
+	 * @throws IOException If the channel could not be written.
+	 */
+	@Override
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Flushes and closes the channel.
+	 * 
+	 * @throws IOException If the channel could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/*
+	 * A load is written with the force, if it was created by passing one force,
+	 * otherwise with the force at the start and at the end. This way the
+	 * reader creates the same load.
+	 */
+	private void putLoad(Load load) {
+		boolean changing = !(load.getForce_N() == load.getForceStart_N()
+				&& load.getForceStart_N() == load.getForceEnd_N());
+
+		int flags = 0;
+		if (load.getIncludeThisLoadIntoCalculation())
+			flags = flags | LOAD_INCLUDED;
+		if (load.getError())
+			flags = flags | LOAD_HAS_ERROR;
+		if (changing)
+			flags = flags | LOAD_CHANGING;
+
+		buffer.put((byte) flags);
+		buffer.putDouble(load.getDistanceFromLeftEndOfBeam_m());
+		buffer.putDouble(load.getAngleOfLoad_degrees());
+		buffer.putDouble(load.getLengthOfLineLoad_m());
+		if (changing) {
+			buffer.putDouble(load.getForceStart_N());
+			buffer.putDouble(load.getForceEnd_N());
+		} else {
+			buffer.putDouble(load.getForce_N());
+		}
+		putString(load.getName());
+	}
+
+	private void putString(String s) {
+		if (s == null) {
+			buffer.putShort((short) -1);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > Short.MAX_VALUE)
+			throw new IllegalArgumentException("Name is longer than " + Short.MAX_VALUE + " bytes");
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+	}
+
+	/*
+	 * Upper bound of the size of a beam. A char takes at most three bytes in
+	 * UTF-8.
+	 */
+	private static int getMaxSize(Beam beam) {
+		int size = 4 + 8 + 3 * 4;
+		for (int i = 0; i <= beam.getNumberOfBearings() - 1; i++)
+			size = size + 8 + 1 + getMaxSize(beam.getBearing(i).getNameOfSupport());
+		for (int i = 0; i <= beam.getNumberOfLoads() - 1; i++)
+			size = size + getMaxSize(beam.getLoad(i));
+		for (LoadCase loadCase : beam.getLoadCases()) {
+			size = size + getMaxSize(loadCase.getName()) + 4;
+			for (Load load : loadCase.getLoads())
+				size = size + getMaxSize(load);
+		}
+		return size;
+	}
+
+	private static int getMaxSize(Load load) {
+		return 1 + 5 * 8 + getMaxSize(load.getName());
+	}
+
+	private static int getMaxSize(String s) {
+		return 2 + (s == null ? 0 : 3 * s.length());
+	}
+
+	private void ensureCapacity(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes)
+			return;
+		flush();
+		if (buffer.capacity() < bytes)
+			buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,304 @@
+package org.berthold.beamCalc;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates a {@link Beam} from its definition in JSON.
+ * <p>
+ * 
+ * Example:
+ * 
+ * <pre>
+ * {"name":"B1","length_m":4,
+ *  "supports":[{"name":"A","x_m":1,"type":"roller"},{"name":"B","x_m":3,"type":"pin"}],
+ *  "loads":[{"name":"F1","force_N":-2,"x_m":2,"angle_degrees":45},
+ *           {"name":"q1","force_N":-5,"x_m":0,"length_m":4},
+ *           {"name":"q2","forceStart_N":-1,"forceEnd_N":-3,"x_m":0,"length_m":2}]}
+ * </pre>
+ * 
+ * Name, angle and length of a load are optional. A load is either given by its
+ * force (point load or constant line load) or by the force at the start and at
+ * the end (uniformly changing line load).
+ * <p>
+ * 
+ * Only the JSON needed for this is understood, there is no outside library.
+ * 
+ * @author Berthold
+ *
+ */
+final class BeamJsonReader {
+
+	// Objects and arrays nested deeper are refused, the definition of a beam
+	// needs three levels.
+	private static final int MAX_DEPTH = 32;
+
+	private final String json;
+	private int position, depth;
+	private final Map<String, Object> definition;
+
+	/**
+	 * Reads the definition of a beam.
+	 * 
+	 * @param json Definition of the beam.
+	 * @throws IllegalArgumentException If the definition is not valid JSON or no
+	 *                                  object.
+	 */
+	BeamJsonReader(String json) {
+		this.json = json;
+		Object value = getValue();
+		skipWhitespace();
+		if (position != json.length())
+			throw error("End of input expected");
+		definition = toObject(value, "beam");
+	}
+
+	/**
+	 * Creates the beam.
+	 * 
+	 * @return The {@link Beam}- object.
+	 * @throws IllegalArgumentException If a value is missing or has the wrong
+	 *                                  type.
+	 */
+	Beam getBeam() {
+		return toBeam(definition);
+	}
+
+	/**
+	 * Name of the beam.
+	 * 
+	 * @return The name or "beam" if there is none.
+	 */
+	String getName() {
+		Object name = definition.get("name");
+		return name instanceof String ? (String) name : "beam";
+	}
+
+	/*
+	 * Beam, supports and loads
+	 */
+
+	private static Beam toBeam(Map<String, Object> definition) {
+		List<Object> supports = toList(definition.get("supports"), "supports");
+		List<Object> loads = definition.containsKey("loads") ? toList(definition.get("loads"), "loads")
+				: new ArrayList<Object>();
+
+		Beam beam = new Beam(getNumber(definition, "length_m"), supports.size(), loads.size());
+
+		for (Object s : supports) {
+			Map<String, Object> support = toObject(s, "support");
+			beam.addBearing(new Support(getName(support), getNumber(support, "x_m"), getTypeOfSupport(support)));
+		}
+
+		for (Object l : loads) {
+			Map<String, Object> load = toObject(l, "load");
+			double x_m = getNumber(load, "x_m");
+			double angle_degrees = getNumber(load, "angle_degrees", 0);
+			double length_m = getNumber(load, "length_m", 0);
+
+			if (load.containsKey("force_N"))
+				beam.addLoad(new Load(getName(load), getNumber(load, "force_N"), x_m, angle_degrees, length_m));
+			else
+				beam.addLoad(new Load(getName(load), getNumber(load, "forceStart_N"), getNumber(load, "forceEnd_N"),
+						x_m, angle_degrees, length_m));
+		}
+		return beam;
+	}
+
+	private static int getTypeOfSupport(Map<String, Object> support) {
+		Object type = support.get("type");
+		if (type == null)
+			return 0;
+		if (type instanceof Double)
+			return ((Double) type).intValue();
+		if ("roller".equals(type))
+			return Support.ROLLER_SUPPORT;
+		if ("pin".equals(type))
+			return Support.PIN_SUPPORT;
+		throw new IllegalArgumentException("Unknown type of support: " + type);
+	}
+
+	private static String getName(Map<String, Object> element) {
+		Object name = element.get("name");
+		return name == null ? "-" : name.toString();
+	}
+
+	private static double getNumber(Map<String, Object> element, String key) {
+		Object value = element.get(key);
+		if (!(value instanceof Double))
+			throw new IllegalArgumentException("Number expected for " + key + ", was " + value);
+		return (Double) value;
+	}
+
+	private static double getNumber(Map<String, Object> element, String key, double defaultValue) {
+		return element.containsKey(key) ? getNumber(element, key) : defaultValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> toObject(Object value, String what) {
+		if (!(value instanceof Map))
+			throw new IllegalArgumentException("Object expected for " + what);
+		return (Map<String, Object>) value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> toList(Object value, String what) {
+		if (!(value instanceof List))
+			throw new IllegalArgumentException("Array expected for " + what);
+		return (List<Object>) value;
+	}
+
+	/*
+	 * JSON. Objects become maps, arrays lists and numbers doubles.
+	 */
+
+	private Object getValue() {
+		skipWhitespace();
+		if (position >= json.length())
+			throw error("Value expected");
+
+		char c = json.charAt(position);
+		if ((c == '{' || c == '[') && ++depth > MAX_DEPTH)
+			throw error("Nested too deep");
+		if (c == '{')
+			return getObject();
+		if (c == '[')
+			return getArray();
+		if (c == '"')
+			return getString();
+		if (json.startsWith("true", position)) {
+			position = position + 4;
+			return Boolean.TRUE;
+		}
+		if (json.startsWith("false", position)) {
+			position = position + 5;
+			return Boolean.FALSE;
+		}
+		if (json.startsWith("null", position)) {
+			position = position + 4;
+			return null;
+		}
+		return getNumber();
+	}
+
+	private Map<String, Object> getObject() {
+		Map<String, Object> object = new LinkedHashMap<String, Object>();
+		position++;
+		skipWhitespace();
+		if (consume('}')) {
+			depth--;
+			return object;
+		}
+		do {
+			skipWhitespace();
+			if (position >= json.length() || json.charAt(position) != '"')
+				throw error("Name expected");
+			String key = getString();
+			skipWhitespace();
+			if (!consume(':'))
+				throw error("':' expected");
+			object.put(key, getValue());
+			skipWhitespace();
+		} while (consume(','));
+		if (!consume('}'))
+			throw error("'}' expected");
+		depth--;
+		return object;
+	}
+
+	private List<Object> getArray() {
+		List<Object> array = new ArrayList<Object>();
+		position++;
+		skipWhitespace();
+		if (consume(']')) {
+			depth--;
+			return array;
+		}
+		do {
+			array.add(getValue());
+			skipWhitespace();
+		} while (consume(','));
+		if (!consume(']'))
+			throw error("']' expected");
+		depth--;
+		return array;
+	}
+
+	private String getString() {
+		StringBuilder s = new StringBuilder();
+		position++;
+		while (position < json.length()) {
+			char c = json.charAt(position++);
+			if (c == '"')
+				return s.toString();
+			if (c != '\\') {
+				s.append(c);
+				continue;
+			}
+			if (position >= json.length())
+				break;
+			char escaped = json.charAt(position++);
+			switch (escaped) {
+			case 'b':
+				s.append('\b');
+				break;
+			case 'f':
+				s.append('\f');
+				break;
+			case 'n':
+				s.append('\n');
+				break;
+			case 'r':
+				s.append('\r');
+				break;
+			case 't':
+				s.append('\t');
+				break;
+			case 'u':
+				if (position + 4 > json.length())
+					throw error("Unicode escape expected");
+				try {
+					s.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+				} catch (NumberFormatException e) {
+					throw error("Unicode escape expected");
+				}
+				position = position + 4;
+				break;
+			default:
+				s.append(escaped);
+			}
+		}
+		throw error("Unterminated string");
+	}
+
+	private Double getNumber() {
+		int start = position;
+		while (position < json.length() && "+-0123456789.eE".indexOf(json.charAt(position)) >= 0)
+			position++;
+		try {
+			return Double.valueOf(json.substring(start, position));
+		} catch (NumberFormatException e) {
+			position = start;
+			throw error("Value expected");
+		}
+	}
+
+	private boolean consume(char c) {
+		if (position < json.length() && json.charAt(position) == c) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void skipWhitespace() {
+		while (position < json.length() && Character.isWhitespace(json.charAt(position)))
+			position++;
+	}
+
+	private IllegalArgumentException error(String description) {
+		return new IllegalArgumentException(description + " at position " + position);
+	}
+}
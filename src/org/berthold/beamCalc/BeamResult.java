@@ -6,7 +6,9 @@ package org.berthold.beamCalc;
  * If errors (e.g. load outside of beam length) occur, an {@link Error} object is
  * added which contains a description of the problem.
  * 
- * Objects from this class are created by the {@link BeamSolver}- Class
+ * Objects from this class are created by the {@link BeamSolver}- Class. For
+ * continuous beams they are created by the {@link ContinuousBeamSolver} and
+ * contain the forces at all supports.
  * 
  * @author 	Berthold
  */
@@ -18,6 +20,7 @@ public class BeamResult {
 	private List<BeamCalcError> error;
 	private double resultingForceAtLeftBearing_N, resultingForceAtRightBearing_N, sumOfHorizontalForcesIn_N;
 	private String solutionTermForRightBearing,solutionTermForLeftBearing,solutionTermForHorizontalForces;
+	private double[] forcesAtSupports_N;
 	
 	/**
 	 * Creates a new result.
@@ -27,6 +30,29 @@ public class BeamResult {
 		this.error = new ArrayList<>();
 	}
 
+	/**
+	 * Creates a copy of a result.
+	 * 
+	 * Errors are copied too, so the copy can be changed without changing the
+	 * original.
+	 * 
+	 * @param result The result to be copied.
+	 */
+	public BeamResult(BeamResult result) {
+		this.error = new ArrayList<>();
+		for (BeamCalcError e : result.error)
+			this.error.add(new BeamCalcError(e.getOriginOfError(), e.getIndexOfError(), e.getErrorDescription()));
+
+		this.resultingForceAtLeftBearing_N = result.resultingForceAtLeftBearing_N;
+		this.resultingForceAtRightBearing_N = result.resultingForceAtRightBearing_N;
+		this.sumOfHorizontalForcesIn_N = result.sumOfHorizontalForcesIn_N;
+		this.solutionTermForLeftBearing = result.solutionTermForLeftBearing;
+		this.solutionTermForRightBearing = result.solutionTermForRightBearing;
+		this.solutionTermForHorizontalForces = result.solutionTermForHorizontalForces;
+		if (result.forcesAtSupports_N != null)
+			this.forcesAtSupports_N = result.forcesAtSupports_N.clone();
+	}
+
 	public void addError(BeamCalcError error) {
 		this.error.add(error);
 	}
@@ -62,6 +88,46 @@ public class BeamResult {
 	public void setResultingHorizontalForceAtRightSupport_N(double sumOfHorizontalForces) {
 		this.sumOfHorizontalForcesIn_N = sumOfHorizontalForces;
 	}
+
+	/**
+	 * Number of supporting forces.
+	 * 
+	 * @return Number of supports of the beam solved. 2 for a simply supported
+	 *         beam.
+	 */
+	public int getNumberOfSupportingForces() {
+		if (forcesAtSupports_N == null)
+			return 2;
+		return forcesAtSupports_N.length;
+	}
+
+	/**
+	 * Supporting force.
+	 * 
+	 * For a simply supported beam index 0 is the left and index 1 the right
+	 * bearing.
+	 * 
+	 * @param index Index of the support, supports sorted by distance from left end
+	 *              of beam.
+	 * @return Vertical force at the support.
+	 */
+	public double getForceAtSupport_N(int index) {
+		if (forcesAtSupports_N == null)
+			return index == 0 ? resultingForceAtLeftBearing_N : resultingForceAtRightBearing_N;
+		return forcesAtSupports_N[index];
+	}
+
+	/**
+	 * Sets the forces at all supports of a continuous beam.
+	 * 
+	 * This method is invoked by the {@link ContinuousBeamSolver}.
+	 * 
+	 * @param forcesAtSupports_N Vertical forces, supports sorted by distance from
+	 *                           left end of beam.
+	 */
+	public void setForcesAtSupports_N(double[] forcesAtSupports_N) {
+		this.forcesAtSupports_N = forcesAtSupports_N;
+	}
 	
 
 	/**
@@ -0,0 +1,254 @@
+package org.berthold.beamCalc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the results of beams already solved.
+ * <p>
+ * 
+ * Beams are identified by their content (length, supports and loads, see
+ * {@link BeamSnapshot#equals(Object)}), not by the object. If a beam equal to
+ * one already solved is passed, the stored result is returned instead of
+ * solving the beam again.
+ * <p>
+ * 
+ * The cache holds at most a given number of results and a given amount of
+ * memory. If any of the limits is exceeded, the results used least recently are
+ * removed.
+ * <p>
+ * 
+ * The cache can be used by many threads at the same time. Results are shared:
+ * The tables are read only (see {@link StressResultantTable#isReadOnly()}), the
+ * {@link BeamResult} is copied each time it is returned.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamResultCache {
+
+	// Estimated size of a result without tables
+	private static final long SIZE_OF_ENTRY_BYTES = 256;
+
+	private final int maxEntries;
+	private final long maxSizeInBytes;
+
+	private final LinkedHashMap<Key, Entry> entries;
+	private long sizeInBytes;
+	private long hits, misses, evictions;
+
+	/**
+	 * Creates a new, empty cache.
+	 * 
+	 * @param maxEntries     Maximum number of results stored.
+	 * @param maxSizeInBytes Maximum memory used by the results stored.
+	 */
+	public BeamResultCache(int maxEntries, long maxSizeInBytes) {
+		if (maxEntries <= 0 || maxSizeInBytes <= 0)
+			throw new IllegalArgumentException("Cache limits must be greater than 0");
+
+		this.maxEntries = maxEntries;
+		this.maxSizeInBytes = maxSizeInBytes;
+		this.entries = new LinkedHashMap<Key, Entry>(16, .75f, true);
+	}
+
+	/**
+	 * Calculates the supporting forces and Q(x), M(x) and N(x) or gets them from
+	 * the cache.
+	 * 
+	 * @param beam            A {@link Beam}- object.
+	 * @param sectionLength_m Length of the sections the beam is divided into.
+	 * @param forceUnit       Unit of Q and N (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @return {@link BeamAnalysis}, see {@link QMNSolver}. The tables are read
+	 *         only.
+	 */
+	public BeamAnalysis solve(Beam beam, double sectionLength_m, String forceUnit, String momentUnit) {
+		return solve(new BeamSnapshot(beam), sectionLength_m, forceUnit, momentUnit);
+	}
+
+	/**
+	 * Calculates the supporting forces and Q(x), M(x) and N(x) or gets them from
+	 * the cache.
+	 * 
+	 * @param beam            A {@link BeamSnapshot} of the beam.
+	 * @param sectionLength_m Length of the sections the beam is divided into.
+	 * @param forceUnit       Unit of Q and N (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @return {@link BeamAnalysis}, see {@link QMNSolver}. The tables are read
+	 *         only.
+	 */
+	public BeamAnalysis solve(BeamSnapshot beam, double sectionLength_m, String forceUnit, String momentUnit) {
+		Key key = new Key(beam, sectionLength_m, forceUnit, momentUnit);
+
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null) {
+				hits++;
+				return entry.getAnalysis();
+			}
+			misses++;
+		}
+
+		// Solve outside of the lock, so other threads are not blocked. If two
+		// threads solve the same beam, the first result is kept.
+		BeamAnalysis analysis = QMNSolver.solve(beam, sectionLength_m, forceUnit, momentUnit);
+		Entry entry = new Entry(analysis);
+
+		synchronized (this) {
+			Entry existing = entries.get(key);
+			if (existing != null)
+				return existing.getAnalysis();
+
+			if (entry.sizeInBytes <= maxSizeInBytes) {
+				entries.put(key, entry);
+				sizeInBytes = sizeInBytes + entry.sizeInBytes;
+				evict();
+			}
+		}
+		return entry.getAnalysis();
+	}
+
+	/**
+	 * Removes all results.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		sizeInBytes = 0;
+	}
+
+	/**
+	 * Number of results stored.
+	 * 
+	 * @return Number of entries.
+	 */
+	public synchronized int getNumberOfEntries() {
+		return entries.size();
+	}
+
+	/**
+	 * Estimated memory used by the results stored.
+	 * 
+	 * @return Size in bytes.
+	 */
+	public synchronized long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	/**
+	 * Number of results returned from the cache.
+	 * 
+	 * @return Hits.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Number of beams which had to be solved.
+	 * 
+	 * @return Misses.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Number of results removed because a limit was exceeded.
+	 * 
+	 * @return Evictions.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Hit rate.
+	 * 
+	 * @return Hits/ (hits + misses) or 0 if nothing was asked yet.
+	 */
+	public synchronized double getHitRate() {
+		if (hits + misses == 0)
+			return 0;
+		return (double) hits / (hits + misses);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return entries.size() + " entries, " + sizeInBytes + " bytes, " + hits + " hits, " + misses + " misses, "
+				+ evictions + " evictions";
+	}
+
+	/*
+	 * Removes the least recently used results until both limits are met.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+		while ((entries.size() > maxEntries || sizeInBytes > maxSizeInBytes) && eldest.hasNext()) {
+			sizeInBytes = sizeInBytes - eldest.next().getValue().sizeInBytes;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/*
+	 * Beam and everything else the result depends on.
+	 */
+	private static final class Key {
+		private final BeamSnapshot beam;
+		private final double sectionLength_m;
+		private final String forceUnit, momentUnit;
+
+		Key(BeamSnapshot beam, double sectionLength_m, String forceUnit, String momentUnit) {
+			this.beam = beam;
+			this.sectionLength_m = sectionLength_m;
+			this.forceUnit = forceUnit;
+			this.momentUnit = momentUnit;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return Double.compare(sectionLength_m, k.sectionLength_m) == 0 && Objects.equals(forceUnit, k.forceUnit)
+					&& Objects.equals(momentUnit, k.momentUnit) && beam.equals(k.beam);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(beam, sectionLength_m, forceUnit, momentUnit);
+		}
+	}
+
+	/*
+	 * A result stored. The tables are made read only so they can be shared.
+	 */
+	private static final class Entry {
+		private final BeamAnalysis analysis;
+		private final long sizeInBytes;
+
+		Entry(BeamAnalysis analysis) {
+			this.analysis = analysis;
+
+			long size = SIZE_OF_ENTRY_BYTES;
+			StressResultantTable[] tables = { analysis.getQTable(), analysis.getMTable(), analysis.getNTable() };
+			for (StressResultantTable table : tables)
+				if (table != null) {
+					table.setReadOnly();
+					size = size + table.getSizeInBytes();
+				}
+			this.sizeInBytes = size;
+		}
+
+		/*
+		 * Shares the tables, copies the result.
+		 */
+		BeamAnalysis getAnalysis() {
+			return new BeamAnalysis(new BeamResult(analysis.getResult()), analysis.getQTable(),
+					analysis.getMTable(), analysis.getNTable());
+		}
+	}
+}
@@ -0,0 +1,637 @@
+package org.berthold.beamCalc;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * Writes solver results as CSV or JSON Lines.
+ * <p>
+ * 
+ * Supporting forces, solution terms and errors of a {@link BeamResult} and the
+ * sections of a {@link StressResultantTable} (all of them or only those marked
+ * as maxima, zero points or discontinuities) are written as one record per
+ * line. Each record holds the same fields:
+ * <p>
+ * 
+ * beam,record,name,index,x_m,value,unit,flags
+ * <p>
+ * 
+ * <ul>
+ * <li>beam: Name of the beam, passed by the caller.</li>
+ * <li>record: force, term, error or section.</li>
+ * <li>name: Name of the force (left, right, horizontal, support), of the term,
+ * of the stress resultant (e.g. Q, M, N) or the origin of the error.</li>
+ * <li>index: Index of the support, the section or the error.</li>
+ * <li>x_m: Position of the section.</li>
+ * <li>value: The force, the term, the value of the section or the error
+ * message.</li>
+ * <li>unit: Unit of the value.</li>
+ * <li>flags: Any of D (discontinuity), Z (zero point) and M (maximum).</li>
+ * </ul>
+ * Fields not used by a record are left empty (CSV) or are missing (JSON).
+ * <p>
+ * 
+ * The exporter writes into a byte buffer which is passed to the channel when it
+ * is full. Numbers and strings are formatted directly into the buffer, no
+ * string is created for a section. Memory used does not depend on the size of
+ * the tables. Numbers are written with a fixed number of decimals (see
+ * {@link #setDecimals(int)}), trailing zeros are omitted.
+ * <p>
+ * 
+ * Objects of this class are not thread safe.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamResultExporter implements Closeable, Flushable {
+
+	public static final int CSV = 0; // Format
+	public static final int JSON_LINES = 1;
+
+	// Fields of a record, in the order they are written
+	private static final String[] FIELDS = { "beam", "record", "name", "index", "x_m", "value", "unit", "flags" };
+	private static final int BEAM = 0;
+	private static final int RECORD = 1;
+	private static final int NAME = 2;
+	private static final int INDEX = 3;
+	private static final int X = 4;
+	private static final int VALUE = 5;
+	private static final int UNIT = 6;
+	private static final int FLAGS = 7;
+
+	// "field":
+	private static final byte[][] JSON_KEYS = new byte[FIELDS.length][];
+	static {
+		for (int i = 0; i <= FIELDS.length - 1; i++)
+			JSON_KEYS[i] = ("\"" + FIELDS[i] + "\":").getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// Longest number or field name written at once
+	private static final int RESERVE = 64;
+
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	// Tens and ones digit of 0..99
+	private static final byte[] DIGIT_TENS = new byte[100];
+	private static final byte[] DIGIT_ONES = new byte[100];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i <= POWERS_OF_TEN.length - 1; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		for (int i = 0; i <= 99; i++) {
+			DIGIT_TENS[i] = (byte) ('0' + i / 10);
+			DIGIT_ONES[i] = (byte) ('0' + i % 10);
+		}
+	}
+
+	private final WritableByteChannel channel;
+	private final int format;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+	private int position;
+
+	private int decimals = 9;
+	private boolean headerWritten;
+
+	// Number of fields of the current record written so far
+	private int fields;
+
+	// Last string written to each field and its formatted bytes
+	private final String[] lastString = new String[FIELDS.length];
+	private final byte[][] lastFormatted = new byte[FIELDS.length][];
+	private long numberOfFlushes;
+
+	/**
+	 * Creates a new exporter writing to a channel.
+	 * 
+	 * @param channel The channel, e.g. a {@link FileChannel} or a socket.
+	 * @param format  {@link #CSV} or {@link #JSON_LINES}.
+	 */
+	public BeamResultExporter(WritableByteChannel channel, int format) {
+		if (format != CSV && format != JSON_LINES)
+			throw new IllegalArgumentException("Unknown format " + format);
+		this.channel = channel;
+		this.format = format;
+	}
+
+	/**
+	 * Creates a new exporter writing to a file.
+	 * 
+	 * An existing file is replaced.
+	 * 
+	 * @param path   The file.
+	 * @param format {@link #CSV} or {@link #JSON_LINES}.
+	 * @throws IOException If the file could not be created.
+	 */
+	public BeamResultExporter(Path path, int format) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING), format);
+	}
+
+	/**
+	 * Sets the number of decimals numbers are written with.
+	 * 
+	 * @param decimals 0 to 15, default is 9.
+	 */
+	public void setDecimals(int decimals) {
+		if (decimals < 0 || decimals > 15)
+			throw new IllegalArgumentException("Decimals must be between 0 and 15, was " + decimals);
+		this.decimals = decimals;
+	}
+
+	/**
+	 * Writes the supporting forces, the solution terms and the errors.
+	 * 
+	 * @param beam   Name of the beam.
+	 * @param result {@link BeamResult}- object.
+	 * @throws IOException If the channel could not be written.
+	 */
+	public void writeResult(String beam, BeamResult result) throws IOException {
+		for (int i = 0; i <= result.getErrorCount() - 1; i++) {
+			BeamCalcError error = result.getError(i);
+			startRecord(beam, "error", getOriginOfError(error.getOriginOfError()));
+			putField(INDEX, error.getIndexOfError());
+			putField(VALUE, error.getErrorDescription());
+			endRecord();
+		}
+
+		writeForce(beam, "left", -1, result.getResultingForceAtLeftBearing_N());
+		writeForce(beam, "right", -1, result.getResultingForceAtRightBearing_N());
+		writeForce(beam, "horizontal", -1, result.getResultingHorizontalForceAtRightSupport_N());
+		if (result.getNumberOfSupportingForces() > 2)
+			for (int i = 0; i <= result.getNumberOfSupportingForces() - 1; i++)
+				writeForce(beam, "support", i, result.getForceAtSupport_N(i));
+
+		writeTerm(beam, "left", result.getSolutionTermForLeftBearing());
+		writeTerm(beam, "right", result.getSolutionTermForRightBearing());
+		writeTerm(beam, "horizontal", result.getSolutionTermForHorizontalForces());
+	}
+
+	/**
+	 * Writes the result and all stress resultants of an analysis.
+	 * 
+	 * @param beam         Name of the beam.
+	 * @param analysis     {@link BeamAnalysis}- object.
+	 * @param featuresOnly If true, only maxima, zero points and discontinuities
+	 *                     are written, see
+	 *                     {@link #writeFeatures(String, String, StressResultantTable)}.
+	 * @throws IOException If the channel could not be written.
+	 */
+	public void writeAnalysis(String beam, BeamAnalysis analysis, boolean featuresOnly) throws IOException {
+		writeResult(beam, analysis.getResult());
+
+		String[] names = { "Q", "M", "N" };
+		StressResultantTable[] tables = { analysis.getQTable(), analysis.getMTable(), analysis.getNTable() };
+		for (int i = 0; i <= tables.length - 1; i++) {
+			if (tables[i] == null)
+				continue;
+			if (featuresOnly)
+				writeFeatures(beam, names[i], tables[i]);
+			else
+				writeTable(beam, names[i], tables[i]);
+		}
+	}
+
+	/**
+	 * Writes all sections of a table.
+	 * 
+	 * @param beam  Name of the beam.
+	 * @param name  Name of the stress resultant, e.g. Q, M, N.
+	 * @param table {@link StressResultantTable}.
+	 * @throws IOException If the channel could not be written.
+	 */
+	public void writeTable(String beam, String name, StressResultantTable table) throws IOException {
+		for (int n = 0; n <= table.getLength() - 1; n++)
+			writeSection(beam, name, table, n);
+	}
+
+	/**
+	 * Writes all sections of a table which are maxima, zero points or points of
+	 * discontinuity.
+	 * 
+	 * @param beam  Name of the beam.
+	 * @param name  Name of the stress resultant, e.g. Q, M, N.
+	 * @param table {@link StressResultantTable}.
+	 * @throws IOException If the channel could not be written.
+	 */
+	public void writeFeatures(String beam, String name, StressResultantTable table) throws IOException {
+		for (int n = 0; n <= table.getLength() - 1; n++)
+			if (table.isMaximaAtIndex(n) || table.isZeroPointAtIndex(n) || table.isDiscontiunuityAtIndex(n))
+				writeSection(beam, name, table, n);
+	}
+
+	/**
+	 * Samples an exact stress resultant and writes the samples.
+	 * 
+	 * No table is created, see {@link StressResultantFunction#sample(double)}.
+	 * 
+	 * @param beam            Name of the beam.
+	 * @param name            Name of the stress resultant, e.g. Q, M, N.
+	 * @param function        {@link StressResultantFunction}.
+	 * @param sectionLength_m Distance between two samples.
+	 * @throws IOException If the channel could not be written.
+	 */
+	public void writeSamples(String beam, String name, StressResultantFunction function, double sectionLength_m)
+			throws IOException {
+		String unit = function.getUnit();
+		PrimitiveIterator.OfDouble values = function.sample(sectionLength_m).iterator();
+		for (int n = 0; values.hasNext(); n++) {
+			startRecord(beam, "section", name);
+			putField(INDEX, n);
+			putField(X, n * sectionLength_m);
+			putField(VALUE, values.nextDouble());
+			putField(UNIT, unit);
+			endRecord();
+		}
+	}
+
+	/**
+	 * Passes all records written so far to the channel.
+	 * 
+	 * @throws IOException If the channel could not be written.
+	 */
+	@Override
+	public void flush() throws IOException {
+		byteBuffer.limit(position);
+		byteBuffer.position(0);
+		while (byteBuffer.hasRemaining())
+			channel.write(byteBuffer);
+		byteBuffer.clear();
+		position = 0;
+		numberOfFlushes++;
+	}
+
+	/**
+	 * Flushes and closes the channel.
+	 * 
+	 * @throws IOException If the channel could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/*
+	 * Records
+	 */
+
+	private void writeSection(String beam, String name, StressResultantTable table, int n) throws IOException {
+		startRecord(beam, "section", name);
+		putField(INDEX, n);
+		putField(X, table.getX_mAtIndex(n));
+		putField(VALUE, table.getValueAtIndex(n));
+		putField(UNIT, table.getUnit());
+		putFlags(table.isDiscontiunuityAtIndex(n), table.isZeroPointAtIndex(n), table.isMaximaAtIndex(n));
+		endRecord();
+	}
+
+	private void writeForce(String beam, String name, int index, double force_N) throws IOException {
+		startRecord(beam, "force", name);
+		if (index >= 0)
+			putField(INDEX, index);
+		putField(VALUE, force_N);
+		putField(UNIT, "N");
+		endRecord();
+	}
+
+	private void writeTerm(String beam, String name, String term) throws IOException {
+		if (term == null)
+			return;
+		startRecord(beam, "term", name);
+		putField(VALUE, term);
+		endRecord();
+	}
+
+	private static String getOriginOfError(int originOfError) {
+		switch (originOfError) {
+		case BeamCalcError.LOAD_ERROR:
+			return "load";
+		case BeamCalcError.SUPPORT_ERROR:
+			return "support";
+		case BeamCalcError.SOLVER_ERROR:
+			return "solver";
+		default:
+			return "unknown";
+		}
+	}
+
+	/*
+	 * Fields. For CSV each record has all fields in a fixed order, so missing
+	 * fields are written as empty ones.
+	 */
+
+	private void startRecord(String beam, String record, String name) throws IOException {
+		if (format == CSV && !headerWritten) {
+			for (int i = 0; i <= FIELDS.length - 1; i++) {
+				if (i > 0)
+					putAscii(',');
+				putAscii(FIELDS[i]);
+			}
+			putAscii('\n');
+			headerWritten = true;
+		}
+
+		fields = 0;
+		if (format == JSON_LINES)
+			putAscii('{');
+		putField(BEAM, beam);
+		putField(RECORD, record);
+		putField(NAME, name);
+	}
+
+	private void endRecord() throws IOException {
+		if (format == CSV)
+			skipTo(FIELDS.length);
+		else
+			putAscii('}');
+		putAscii('\n');
+	}
+
+	private void putField(int field, String value) throws IOException {
+		startField(field);
+
+		// Beam, record and name are the same for many records, they are
+		// formatted once.
+		if (value != null && value == lastString[field]) {
+			putAscii(lastFormatted[field]);
+			return;
+		}
+
+		int start = position;
+		long flushes = numberOfFlushes;
+		if (format == CSV)
+			putCsvString(value);
+		else
+			putJsonString(value);
+
+		if (numberOfFlushes == flushes) {
+			lastString[field] = value;
+			lastFormatted[field] = Arrays.copyOfRange(buffer, start, position);
+		}
+	}
+
+	private void putField(int field, long value) throws IOException {
+		startField(field);
+		putLong(value);
+	}
+
+	private void putField(int field, double value) throws IOException {
+		startField(field);
+		putDouble(value);
+	}
+
+	private void putFlags(boolean discontinuity, boolean zeroPoint, boolean maxima) throws IOException {
+		if (!discontinuity && !zeroPoint && !maxima)
+			return;
+		startField(FLAGS);
+		if (format == JSON_LINES)
+			putAscii('"');
+		if (discontinuity)
+			putAscii('D');
+		if (zeroPoint)
+			putAscii('Z');
+		if (maxima)
+			putAscii('M');
+		if (format == JSON_LINES)
+			putAscii('"');
+	}
+
+	private void startField(int field) throws IOException {
+		if (format == CSV) {
+			skipTo(field);
+			if (fields > 0)
+				putAscii(',');
+		} else {
+			if (fields > 0)
+				putAscii(',');
+			putAscii(JSON_KEYS[field]);
+		}
+		fields++;
+	}
+
+	/*
+	 * Writes empty CSV fields up to the field passed.
+	 */
+	private void skipTo(int field) throws IOException {
+		while (fields < field) {
+			if (fields > 0)
+				putAscii(',');
+			fields++;
+		}
+	}
+
+	/*
+	 * Formatting, directly into the buffer.
+	 */
+
+	private void putCsvString(String s) throws IOException {
+		if (s == null)
+			return;
+
+		boolean quote = false;
+		for (int i = 0; i <= s.length() - 1 && !quote; i++) {
+			char c = s.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+
+		if (quote)
+			putAscii('"');
+		for (int i = 0; i <= s.length() - 1; i++) {
+			char c = s.charAt(i);
+			if (c == '"')
+				putAscii('"');
+			i = putChar(s, i);
+		}
+		if (quote)
+			putAscii('"');
+	}
+
+	private void putJsonString(String s) throws IOException {
+		if (s == null) {
+			putAscii("null");
+			return;
+		}
+
+		putAscii('"');
+		for (int i = 0; i <= s.length() - 1; i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				putAscii('\\');
+				putAscii(c);
+			} else if (c == '\n') {
+				putAscii("\\n");
+			} else if (c == '\r') {
+				putAscii("\\r");
+			} else if (c == '\t') {
+				putAscii("\\t");
+			} else if (c < 0x20) {
+				putAscii("\\u00");
+				putAscii(Character.forDigit(c >> 4, 16));
+				putAscii(Character.forDigit(c & 0xF, 16));
+			} else {
+				i = putChar(s, i);
+			}
+		}
+		putAscii('"');
+	}
+
+	/*
+	 * Writes the character at index i as UTF-8. Returns the index of the last
+	 * char used (surrogate pairs use two).
+	 */
+	private int putChar(String s, int i) throws IOException {
+		ensureCapacity(4);
+		char c = s.charAt(i);
+		if (c < 0x80) {
+			buffer[position++] = (byte) c;
+			return i;
+		}
+		if (c < 0x800) {
+			buffer[position++] = (byte) (0xC0 | (c >> 6));
+			buffer[position++] = (byte) (0x80 | (c & 0x3F));
+			return i;
+		}
+		if (Character.isHighSurrogate(c) && i + 1 <= s.length() - 1 && Character.isLowSurrogate(s.charAt(i + 1))) {
+			int codePoint = Character.toCodePoint(c, s.charAt(i + 1));
+			buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+			buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+			buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+			buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			return i + 1;
+		}
+		if (Character.isSurrogate(c))
+			c = '?';
+		buffer[position++] = (byte) (0xE0 | (c >> 12));
+		buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+		buffer[position++] = (byte) (0x80 | (c & 0x3F));
+		return i;
+	}
+
+	/*
+	 * Fixed number of decimals, trailing zeros omitted. Numbers too big to be
+	 * scaled into a long are rare, they are written by Double.toString().
+	 */
+	private void putDouble(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			if (format == JSON_LINES)
+				putAscii("null");
+			else
+				putAscii(Double.toString(value));
+			return;
+		}
+
+		long power = POWERS_OF_TEN[decimals];
+		double scaled = Math.abs(value) * power;
+		if (scaled >= 9e18) {
+			putAscii(Double.toString(value));
+			return;
+		}
+
+		long digits = Math.round(scaled);
+		long integerPart = digits / power;
+		long fraction = digits - integerPart * power;
+
+		ensureCapacity(RESERVE);
+		if (value < 0 && digits != 0)
+			buffer[position++] = '-';
+		putDigits(integerPart, getNumberOfDigits(integerPart));
+
+		if (fraction == 0)
+			return;
+
+		int length = decimals;
+		while (fraction % 10 == 0) {
+			fraction = fraction / 10;
+			length--;
+		}
+		buffer[position++] = '.';
+		putDigits(fraction, length);
+	}
+
+	private void putLong(long value) throws IOException {
+		ensureCapacity(RESERVE);
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				putAscii(Long.toString(value));
+				return;
+			}
+			buffer[position++] = '-';
+			value = -value;
+		}
+		putDigits(value, getNumberOfDigits(value));
+	}
+
+	/*
+	 * Digits of a value >= 0, padded with zeros to the length passed. Capacity
+	 * must have been ensured. Two digits are written at once, by int arithmetic
+	 * as soon as the value is small enough.
+	 */
+	private void putDigits(long value, int length) {
+		int end = position + length;
+		int i = end;
+
+		while (value > Integer.MAX_VALUE) {
+			long q = value / 100;
+			int r = (int) (value - q * 100);
+			buffer[--i] = DIGIT_ONES[r];
+			buffer[--i] = DIGIT_TENS[r];
+			value = q;
+		}
+
+		int v = (int) value;
+		while (i - position >= 2) {
+			int q = v / 100;
+			int r = v - q * 100;
+			buffer[--i] = DIGIT_ONES[r];
+			buffer[--i] = DIGIT_TENS[r];
+			v = q;
+		}
+		if (i > position)
+			buffer[--i] = (byte) ('0' + v % 10);
+		position = end;
+	}
+
+	private static int getNumberOfDigits(long value) {
+		int length = 1;
+		while (length <= POWERS_OF_TEN.length - 1 && value >= POWERS_OF_TEN[length])
+			length++;
+		return length;
+	}
+
+	private void putAscii(String s) throws IOException {
+		for (int i = 0; i <= s.length() - 1; i++)
+			putAscii(s.charAt(i));
+	}
+
+	private void putAscii(byte[] bytes) throws IOException {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position = position + bytes.length;
+	}
+
+	private void putAscii(char c) throws IOException {
+		ensureCapacity(1);
+		buffer[position++] = (byte) c;
+	}
+
+	private void ensureCapacity(int bytes) throws IOException {
+		if (position + bytes > buffer.length)
+			flush();
+	}
+}
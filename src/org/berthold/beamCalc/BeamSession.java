@@ -0,0 +1,471 @@
+package org.berthold.beamCalc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the supporting forces and, optionally, Q(x) and M(x) of a {@link Beam}
+ * up to date while loads are added, moved or removed.
+ * <p>
+ * 
+ * Supporting forces depend linearly on each load. The session keeps the sum of
+ * all vertical loads, the sum of all horizontal loads and the torque sum at the
+ * right support. Adding, moving or removing a load only adds or subtracts the
+ * contribution of that load, so the supporting forces are updated in O(1),
+ * regardless of the number of loads.
+ * <p>
+ * 
+ * If tables are requested, the exact contribution of the load and of the
+ * change of the supporting forces is added to each section right of them. The
+ * cost is O(number of sections affected). The tables of the loads the session
+ * is created with are built in one walk along the beam, O(number of loads +
+ * number of sections). Only the values of the tables are kept up to date,
+ * maxima, zero points and discontinuities are not marked (use the
+ * {@link QMNSolver} for that).
+ * <p>
+ * 
+ * Loads are identified by a handle which is returned when the load is added.
+ * The supports can not be changed, changes of the beam after the session was
+ * created are not seen by it. Loads outside of the beam do not contribute
+ * and are reported as {@link BeamCalcError}'s by {@link #getResult()}.
+ * <p>
+ * 
+ * A session must not be used by more than one thread at a time.
+ * 
+ * @author Berthold
+ *
+ */
+public class BeamSession {
+
+	private final double lengthOfBeam_m;
+	private final double xLeftSupport_m, xRightSupport_m;
+	private final double spaceBetweenSupports_m;
+
+	// Loads, index= handle. Removed loads are null.
+	private final List<Load> loads = new ArrayList<Load>();
+	private int numberOfLoads;
+	private int numberOfLoadsOutsideOfBeam;
+
+	private double torqueSum;
+	private double loadSumVertical;
+	private double loadSumHorizontal;
+
+	private double resultingForceAtLeftBearing_N, resultingForceAtRightBearing_N;
+
+	private final StressResultantTable qTable, mTable;
+
+	/**
+	 * Creates a new session which keeps the supporting forces up to date.
+	 * 
+	 * All loads of the beam are added, the handle of each load is it's index in
+	 * the beam. The beam itself is not changed by the session.
+	 * 
+	 * @param beam A {@link Beam}- object with two supports.
+	 * @throws IllegalArgumentException If the beam has less than two supports
+	 *                                  or any support is outside of the beam.
+	 */
+	public BeamSession(Beam beam) {
+		this(beam, 0, null, null);
+	}
+
+	/**
+	 * Creates a new session which keeps the supporting forces, Q(x) and M(x) up
+	 * to date.
+	 * 
+	 * @param beam            A {@link Beam}- object with two supports.
+	 * @param sectionLength_m Length of the sections the beam is divided into, 0
+	 *                        if no tables are needed.
+	 * @param forceUnit       Unit of Q (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @throws IllegalArgumentException If the beam has less than two supports
+	 *                                  or any support is outside of the beam.
+	 */
+	public BeamSession(Beam beam, double sectionLength_m, String forceUnit, String momentUnit) {
+		if (beam.getNumberOfBearings() < 2)
+			throw new IllegalArgumentException("Beam needs two supports");
+		lengthOfBeam_m = beam.getLength();
+
+		// Sort a copy, the beam passed is not changed
+		List<Support> supportsSorted = new ArrayList<Support>();
+		for (int i = 0; i <= beam.getNumberOfBearings() - 1; i++)
+			supportsSorted.add(beam.getBearing(i));
+		Collections.sort(supportsSorted);
+		xLeftSupport_m = supportsSorted.get(0).getDistanceFromLeftEndOfBeam_m();
+		xRightSupport_m = supportsSorted.get(1).getDistanceFromLeftEndOfBeam_m();
+		if (!isInsideOfBeamLength(xLeftSupport_m) || !isInsideOfBeamLength(xRightSupport_m))
+			throw new IllegalArgumentException("Support outside of beam");
+		spaceBetweenSupports_m = Math.abs(xLeftSupport_m - xRightSupport_m);
+
+		if (sectionLength_m > 0) {
+			qTable = new StressResultantTable(beam, sectionLength_m, forceUnit);
+			mTable = new StressResultantTable(beam, sectionLength_m, momentUnit);
+		} else
+			qTable = mTable = null;
+
+		// Sums first, then all loads are added to the tables at once
+		for (Load load : beam.getLoads()) {
+			loads.add(load);
+			numberOfLoads++;
+			addContributionOf(load, 1, false);
+		}
+		if (qTable != null)
+			addAllLoadsToTables();
+		updateSupportingForces();
+	}
+
+	/**
+	 * Adds a load.
+	 * 
+	 * @param load The {@link Load}- object.
+	 * @return Handle of the load.
+	 */
+	public int addLoad(Load load) {
+		loads.add(load);
+		numberOfLoads++;
+		addContributionOf(load, 1, true);
+		updateSupportingForces();
+		return loads.size() - 1;
+	}
+
+	/**
+	 * Removes a load.
+	 * 
+	 * @param handle Handle of the load as returned by {@link #addLoad(Load)}.
+	 * @throws IllegalArgumentException If there is no load for the handle.
+	 */
+	public void removeLoad(int handle) {
+		Load load = getLoad(handle);
+		addContributionOf(load, -1, true);
+		loads.set(handle, null);
+		numberOfLoads--;
+		updateSupportingForces();
+	}
+
+	/**
+	 * Moves a load.
+	 * 
+	 * @param handle                      Handle of the load.
+	 * @param distanceFromLeftEndOfBeam_m New position of the load (start of the
+	 *                                    load for line loads).
+	 * @throws IllegalArgumentException If there is no load for the handle.
+	 */
+	public void moveLoad(int handle, double distanceFromLeftEndOfBeam_m) {
+		Load load = getLoad(handle);
+		Load moved;
+		if (load.getLengthOfLineLoad_m() == 0)
+			moved = new Load(load.getName(), load.getForce_N(), distanceFromLeftEndOfBeam_m,
+					load.getAngleOfLoad_degrees(), 0, load.getIncludeThisLoadIntoCalculation(), load.getError());
+		else
+			moved = new Load(load.getName(), load.getForceStart_N(), load.getForceEnd_N(),
+					distanceFromLeftEndOfBeam_m, load.getAngleOfLoad_degrees(), load.getLengthOfLineLoad_m(),
+					load.getIncludeThisLoadIntoCalculation(), load.getError());
+
+		addContributionOf(load, -1, true);
+		addContributionOf(moved, 1, true);
+		loads.set(handle, moved);
+		updateSupportingForces();
+	}
+
+	/**
+	 * Load.
+	 * 
+	 * @param handle Handle of the load.
+	 * @return The {@link Load}- object.
+	 * @throws IllegalArgumentException If there is no load for the handle.
+	 */
+	public Load getLoad(int handle) {
+		if (handle < 0 || handle >= loads.size() || loads.get(handle) == null)
+			throw new IllegalArgumentException("No load for handle " + handle);
+		return loads.get(handle);
+	}
+
+	/**
+	 * Count all loads.
+	 * 
+	 * @return Number of loads acting.
+	 */
+	public int getNumberOfLoads() {
+		return numberOfLoads;
+	}
+
+	public double getResultingForceAtLeftBearing_N() {
+		return resultingForceAtLeftBearing_N;
+	}
+
+	public double getResultingForceAtRightBearing_N() {
+		return resultingForceAtRightBearing_N;
+	}
+
+	public double getResultingHorizontalForceAtRightSupport_N() {
+		return loadSumHorizontal;
+	}
+
+	/**
+	 * Supporting forces.
+	 * 
+	 * Same as the {@link BeamSolver} would return for the current loads, without
+	 * solution terms.
+	 * 
+	 * @return {@link BeamResult}. If there are loads outside of the beam, it
+	 *         contains an error for each of them and no forces.
+	 */
+	public BeamResult getResult() {
+		BeamResult result = new BeamResult();
+
+		if (numberOfLoadsOutsideOfBeam > 0) {
+			for (int i = 0; i <= loads.size() - 1; i++) {
+				Load load = loads.get(i);
+				if (load != null && !isInsideOfBeam(load))
+					result.addError(new BeamCalcError(BeamCalcError.LOAD_ERROR, i,
+							"Load #" + (i + 1) + " acts " + load.getDistanceFromLeftEndOfBeam_m()
+									+ " m from left end of Beam. Beam length is " + lengthOfBeam_m + " m"));
+			}
+			return result;
+		}
+
+		result.setResultingForceAtLeftBearingBearing_N(resultingForceAtLeftBearing_N);
+		result.setResultingForceAtRightBearing_N(resultingForceAtRightBearing_N);
+		result.setResultingHorizontalForceAtRightSupport_N(loadSumHorizontal);
+		return result;
+	}
+
+	/**
+	 * Shearing forces.
+	 * 
+	 * The table is changed by the session. Do not change it from outside.
+	 * 
+	 * @return Q(x) or null if the session was created without tables.
+	 */
+	public StressResultantTable getQTable() {
+		return qTable;
+	}
+
+	/**
+	 * Bending moments.
+	 * 
+	 * The table is changed by the session. Do not change it from outside.
+	 * 
+	 * @return M(x) or null if the session was created without tables.
+	 */
+	public StressResultantTable getMTable() {
+		return mTable;
+	}
+
+	/*
+	 * Adds (sign=1) or subtracts (sign=-1) the contribution of a load to the sums
+	 * and, if requested, to the tables.
+	 */
+	private void addContributionOf(Load load, int sign, boolean toTables) {
+		if (!isInsideOfBeam(load)) {
+			numberOfLoadsOutsideOfBeam = numberOfLoadsOutsideOfBeam + sign;
+			return;
+		}
+
+		double x_m = load.getDistanceFromLeftEndOfBeam_m();
+
+		if (load.getLengthOfLineLoad_m() == 0) {
+			// Single load, same as the BeamSolver
+			double verticalLoad = getVerticalForce_N(load);
+			double horizontalLoad = 0;
+			if (load.getAngleOfLoad_degrees() != 0) {
+				double angleOfLoadInRadians = load.getAngleOfLoad_degrees() * Math.PI / 180;
+				horizontalLoad = load.getForce_N() * Math.sin(angleOfLoadInRadians) * (-1);
+			}
+			loadSumVertical = loadSumVertical + sign * verticalLoad;
+			loadSumHorizontal = loadSumHorizontal + sign * horizontalLoad;
+			torqueSum = torqueSum + sign * verticalLoad * (xRightSupport_m - x_m);
+
+			if (toTables)
+				addPointLoadToTables(sign * verticalLoad, x_m);
+		} else {
+			// Line load
+			double resultandForce_N = load.getResultantForce_N();
+			double lever_m = xRightSupport_m - (load.getCenterOfGravity_m() + x_m);
+
+			loadSumVertical = loadSumVertical + sign * resultandForce_N;
+			torqueSum = torqueSum + sign * resultandForce_N * lever_m;
+
+			if (toTables)
+				addLineLoadToTables(sign, x_m, load.getLengthOfLineLoad_m(), load.getForceStart_N(),
+						load.getForceEnd_N());
+		}
+	}
+
+	private static double getVerticalForce_N(Load load) {
+		if (load.getAngleOfLoad_degrees() == 0)
+			return load.getForce_N();
+		return load.getForce_N() * Math.cos(load.getAngleOfLoad_degrees() * Math.PI / 180);
+	}
+
+	/*
+	 * Calculates the supporting forces from the sums and adds their change to
+	 * the tables.
+	 */
+	private void updateSupportingForces() {
+		double left_N = -1 * torqueSum / spaceBetweenSupports_m;
+		double right_N = -1 * loadSumVertical - left_N;
+
+		addPointLoadToTables(left_N - resultingForceAtLeftBearing_N, xLeftSupport_m);
+		addPointLoadToTables(right_N - resultingForceAtRightBearing_N, xRightSupport_m);
+
+		resultingForceAtLeftBearing_N = left_N;
+		resultingForceAtRightBearing_N = right_N;
+	}
+
+	/*
+	 * Q(x)+=F, M(x)+=F x (x-xF) right of the force.
+	 */
+	private void addPointLoadToTables(double force_N, double xF_m) {
+		if (qTable == null || force_N == 0)
+			return;
+
+		for (int n = getFirstIndexAtOrRightOf(xF_m); n <= qTable.getLength() - 1; n++) {
+			qTable.addValueAtIndex(n, force_N);
+			mTable.addValueAtIndex(n, force_N * (qTable.getX_mAtIndex(n) - xF_m));
+		}
+	}
+
+	/*
+	 * Adds or subtracts the exact integrals of a uniformly changing line load
+	 * q(t)=qStart+k x t, t=x-xStart:
+	 * 
+	 * Q(x)+=qStart x t+k x t^2/2, M(x)+=qStart x t^2/2+k x t^3/6 inside the
+	 * load. Right of the load Q(x)+=R, M(x)+=R x x-S1 with R the integral of
+	 * q and S1 the integral of q x x over the length of the load.
+	 */
+	private void addLineLoadToTables(int sign, double xStart_m, double length_m, double forceStart_N,
+			double forceEnd_N) {
+		if (qTable == null)
+			return;
+
+		double k = (forceEnd_N - forceStart_N) / length_m;
+		double r = sign * (forceStart_N * length_m + k * length_m * length_m / 2);
+		double s1 = sign * (forceStart_N * (xStart_m * length_m + length_m * length_m / 2)
+				+ k * (xStart_m * length_m * length_m / 2 + length_m * length_m * length_m / 3));
+		double qStart = sign * forceStart_N;
+		double kSigned = sign * k;
+
+		for (int n = getFirstIndexAtOrRightOf(xStart_m); n <= qTable.getLength() - 1; n++) {
+			double x_m = qTable.getX_mAtIndex(n);
+			double t = x_m - xStart_m;
+
+			if (t <= length_m) {
+				qTable.addValueAtIndex(n, qStart * t + kSigned * t * t / 2);
+				mTable.addValueAtIndex(n, qStart * t * t / 2 + kSigned * t * t * t / 6);
+			} else {
+				qTable.addValueAtIndex(n, r);
+				mTable.addValueAtIndex(n, r * x_m - s1);
+			}
+		}
+	}
+
+	/*
+	 * Adds all loads to the empty tables in one walk along the beam.
+	 * 
+	 * Each load adds the same polynomials in x as addPointLoadToTables() and
+	 * addLineLoadToTables() do, starting at the first section it acts on.
+	 * Only the changes of their coefficients are stored at the sections where
+	 * they start, the coefficients at each section are their running sums:
+	 * 
+	 * Q(x)=a0+a1 x x+a2 x x^2, M(x)=b0+b1 x x+b2 x x^2+b3 x x^3
+	 * 
+	 * The values of the tables hold a0 and b0.
+	 */
+	private void addAllLoadsToTables() {
+		int length = qTable.getLength();
+		double[] a0 = qTable.getValueArray();
+		double[] b0 = mTable.getValueArray();
+		double[] a1 = new double[length], a2 = new double[length];
+		double[] b1 = new double[length], b2 = new double[length], b3 = new double[length];
+
+		for (Load load : loads) {
+			if (!isInsideOfBeam(load))
+				continue;
+			double xStart_m = load.getDistanceFromLeftEndOfBeam_m();
+			int n = getFirstIndexAtOrRightOf(xStart_m);
+			if (n > length - 1)
+				continue;
+
+			if (load.getLengthOfLineLoad_m() == 0) {
+				// Q+=F, M+=F x x-F x xF
+				double force_N = getVerticalForce_N(load);
+				a0[n] = a0[n] + force_N;
+				b1[n] = b1[n] + force_N;
+				b0[n] = b0[n] - force_N * xStart_m;
+				continue;
+			}
+
+			// Inside of the load, t=x-xStart:
+			// Q+=qStart x t+k x t^2/2, M+=qStart x t^2/2+k x t^3/6
+			double length_m = load.getLengthOfLineLoad_m();
+			double qStart = load.getForceStart_N();
+			double k = (load.getForceEnd_N() - qStart) / length_m;
+			double s = xStart_m;
+
+			double[] q = { -qStart * s + k * s * s / 2, qStart - k * s, k / 2 };
+			double[] m = { qStart * s * s / 2 - k * s * s * s / 6, -qStart * s + k * s * s / 2, qStart / 2 - k * s / 2,
+					k / 6 };
+			addCoefficients(n, q, m, a0, a1, a2, b0, b1, b2, b3, 1);
+
+			// Right of the load: Q+=R, M+=R x x-S1
+			int right = getFirstIndexAtOrRightOf(xStart_m + length_m);
+			while (right > n && qTable.getX_mAtIndex(right - 1) - xStart_m > length_m)
+				right--;
+			while (right <= length - 1 && qTable.getX_mAtIndex(right) - xStart_m <= length_m)
+				right++;
+			if (right > length - 1)
+				continue;
+
+			double r = qStart * length_m + k * length_m * length_m / 2;
+			double s1 = qStart * (s * length_m + length_m * length_m / 2)
+					+ k * (s * length_m * length_m / 2 + length_m * length_m * length_m / 3);
+			addCoefficients(right, q, m, a0, a1, a2, b0, b1, b2, b3, -1);
+			addCoefficients(right, new double[] { r, 0, 0 }, new double[] { -s1, r, 0, 0 }, a0, a1, a2, b0, b1, b2,
+					b3, 1);
+		}
+
+		for (double[] coefficients : new double[][] { a0, a1, a2, b0, b1, b2, b3 })
+			StressResultantKernels.parallelPrefixSum(coefficients, 0, length);
+
+		StressResultantKernels.forEachChunk(0, length, (from, to) -> {
+			for (int n = from; n < to; n++) {
+				double x_m = qTable.getX_mAtIndex(n);
+				a0[n] = a0[n] + x_m * (a1[n] + x_m * a2[n]);
+				b0[n] = b0[n] + x_m * (b1[n] + x_m * (b2[n] + x_m * b3[n]));
+			}
+		});
+	}
+
+	private static void addCoefficients(int n, double[] q, double[] m, double[] a0, double[] a1, double[] a2,
+			double[] b0, double[] b1, double[] b2, double[] b3, int sign) {
+		a0[n] = a0[n] + sign * q[0];
+		a1[n] = a1[n] + sign * q[1];
+		a2[n] = a2[n] + sign * q[2];
+		b0[n] = b0[n] + sign * m[0];
+		b1[n] = b1[n] + sign * m[1];
+		b2[n] = b2[n] + sign * m[2];
+		b3[n] = b3[n] + sign * m[3];
+	}
+
+	/*
+	 * Index of the first section at or right of a position.
+	 */
+	private int getFirstIndexAtOrRightOf(double x_m) {
+		int n = qTable.getIndexOfSection(x_m);
+		while (n > 0 && qTable.getX_mAtIndex(n - 1) >= x_m)
+			n--;
+		while (n <= qTable.getLength() - 1 && qTable.getX_mAtIndex(n) < x_m)
+			n++;
+		return n;
+	}
+
+	private boolean isInsideOfBeam(Load load) {
+		return isInsideOfBeamLength(load.getDistanceFromLeftEndOfBeam_m())
+				&& isInsideOfBeamLength(load.getDistanceFromLeftEndOfBeam_m() + load.getLengthOfLineLoad_m());
+	}
+
+	private boolean isInsideOfBeamLength(double distanceFromLeftEndOfBeam_m) {
+		return distanceFromLeftEndOfBeam_m >= 0 && distanceFromLeftEndOfBeam_m <= lengthOfBeam_m;
+	}
+}
@@ -0,0 +1,432 @@
+package org.berthold.beamCalc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable copy of a {@link Beam}, prepared for solving.
+ * <p>
+ * 
+ * The beam is sorted and checked only once, when the snapshot is created:
+ * <p>
+ * 
+ * Supports are sorted by their distance from the left end of the beam.<br>
+ * Point loads and line loads are stored in separate, primitive arrays, sorted
+ * by their distance from the left end of the beam. Point loads are split into
+ * their vertical and horizontal part.<br>
+ * Supports and loads outside of the beam are reported as
+ * {@link BeamCalcError}'s, the same way as the {@link BeamSolver} does. Loads
+ * with errors are not part of the snapshot.
+ * <p>
+ * 
+ * Solving a snapshot requires neither sorting nor creating objects for each
+ * load. Since it can not be changed, a snapshot can be solved any number of
+ * times, also by many threads at the same time. Changes made to the beam after
+ * the snapshot was created are not visible. Creating a snapshot does not
+ * change the beam, so many snapshots of the same beam can be created at the
+ * same time.
+ * 
+ * @author Berthold
+ *
+ */
+public final class BeamSnapshot {
+
+	private final double lengthOfBeam_m;
+
+	// Supports, left and right
+	private final double xLeftSupport_m, xRightSupport_m;
+	private final String nameOfLeftSupport, nameOfRightSupport;
+	private final int typeOfLeftSupport, typeOfRightSupport;
+
+	// Point loads
+	private final String[] pointLoadNames;
+	private final double[] pointLoadX_m;
+	private final double[] pointLoadForce_N;
+	private final double[] pointLoadAngle_degrees;
+	private final double[] pointLoadVertical_N;
+	private final double[] pointLoadHorizontal_N;
+
+	// Line loads
+	private final String[] lineLoadNames;
+	private final double[] lineLoadStart_m;
+	private final double[] lineLoadLength_m;
+	private final double[] lineLoadForceStart_N;
+	private final double[] lineLoadForceEnd_N;
+	private final double[] lineLoadResultantForce_N;
+	private final double[] lineLoadCenterOfGravity_m;
+
+	private final List<BeamCalcError> errors;
+
+	// Cached hash code, 0 if not calculated yet
+	private int hash;
+
+	/**
+	 * Creates a snapshot of a beam.
+	 * 
+	 * @param beam A {@link Beam}- object.
+	 */
+	public BeamSnapshot(Beam beam) {
+		List<BeamCalcError> errors = new ArrayList<BeamCalcError>();
+
+		lengthOfBeam_m = beam.getLength();
+
+		// Supports
+		if (beam.getNumberOfBearings() < 2) {
+			errors.add(new BeamCalcError(BeamCalcError.SUPPORT_ERROR, 0, "Beam needs two supports"));
+			xLeftSupport_m = xRightSupport_m = 0;
+			nameOfLeftSupport = nameOfRightSupport = "-";
+			typeOfLeftSupport = typeOfRightSupport = 0;
+		} else {
+			// Sort a copy, the beam passed is not changed
+			List<Support> supportsSorted = new ArrayList<Support>();
+			for (int i = 0; i <= beam.getNumberOfBearings() - 1; i++)
+				supportsSorted.add(beam.getBearing(i));
+			Collections.sort(supportsSorted);
+			Support leftSupport = supportsSorted.get(0);
+			Support rightSupport = supportsSorted.get(1);
+
+			xLeftSupport_m = leftSupport.getDistanceFromLeftEndOfBeam_m();
+			xRightSupport_m = rightSupport.getDistanceFromLeftEndOfBeam_m();
+			nameOfLeftSupport = leftSupport.getNameOfSupport();
+			nameOfRightSupport = rightSupport.getNameOfSupport();
+			typeOfLeftSupport = leftSupport.getType();
+			typeOfRightSupport = rightSupport.getType();
+
+			if (!isInsideOfBeamLength(xLeftSupport_m) || !isInsideOfBeamLength(xRightSupport_m))
+				errors.add(new BeamCalcError(BeamCalcError.SUPPORT_ERROR, 0, "Support outside of beam"));
+		}
+
+		// Check loads, sort valid ones by position
+		List<Load> pointLoads = new ArrayList<Load>();
+		List<Load> lineLoads = new ArrayList<Load>();
+
+		for (int i = 0; i <= beam.getNumberOfLoads() - 1; i++) {
+			Load load = beam.getLoad(i);
+
+			if (isInsideOfBeamLength(load.getDistanceFromLeftEndOfBeam_m())
+					&& isInsideOfBeamLength(load.getDistanceFromLeftEndOfBeam_m() + load.getLengthOfLineLoad_m())) {
+				if (load.getLengthOfLineLoad_m() == 0)
+					pointLoads.add(load);
+				else
+					lineLoads.add(load);
+			} else
+				errors.add(new BeamCalcError(BeamCalcError.LOAD_ERROR, i,
+						"Load #" + (i + 1) + " acts " + load.getDistanceFromLeftEndOfBeam_m()
+								+ " m from left end of Beam. Beam length is " + beam.getLength() + " m"));
+		}
+
+		// List.sort is stable, loads at the same position keep their order.
+		Comparator<Load> byPosition = new Comparator<Load>() {
+			@Override
+			public int compare(Load l1, Load l2) {
+				return Double.compare(l1.getDistanceFromLeftEndOfBeam_m(), l2.getDistanceFromLeftEndOfBeam_m());
+			}
+		};
+		pointLoads.sort(byPosition);
+		lineLoads.sort(byPosition);
+
+		// Point loads
+		int n = pointLoads.size();
+		pointLoadNames = new String[n];
+		pointLoadX_m = new double[n];
+		pointLoadForce_N = new double[n];
+		pointLoadAngle_degrees = new double[n];
+		pointLoadVertical_N = new double[n];
+		pointLoadHorizontal_N = new double[n];
+
+		for (int i = 0; i <= n - 1; i++) {
+			Load load = pointLoads.get(i);
+			pointLoadNames[i] = load.getName();
+			pointLoadX_m[i] = load.getDistanceFromLeftEndOfBeam_m();
+			pointLoadForce_N[i] = load.getForce_N();
+			pointLoadAngle_degrees[i] = load.getAngleOfLoad_degrees();
+
+			if (load.getAngleOfLoad_degrees() != 0) {
+				double angleOfLoadInRadians = load.getAngleOfLoad_degrees() * Math.PI / 180;
+				pointLoadVertical_N[i] = load.getForce_N() * Math.cos(angleOfLoadInRadians);
+				pointLoadHorizontal_N[i] = load.getForce_N() * Math.sin(angleOfLoadInRadians);
+			} else
+				pointLoadVertical_N[i] = load.getForce_N();
+		}
+
+		// Line loads
+		n = lineLoads.size();
+		lineLoadNames = new String[n];
+		lineLoadStart_m = new double[n];
+		lineLoadLength_m = new double[n];
+		lineLoadForceStart_N = new double[n];
+		lineLoadForceEnd_N = new double[n];
+		lineLoadResultantForce_N = new double[n];
+		lineLoadCenterOfGravity_m = new double[n];
+
+		for (int i = 0; i <= n - 1; i++) {
+			Load load = lineLoads.get(i);
+			lineLoadNames[i] = load.getName();
+			lineLoadStart_m[i] = load.getDistanceFromLeftEndOfBeam_m();
+			lineLoadLength_m[i] = load.getLengthOfLineLoad_m();
+			lineLoadForceStart_N[i] = load.getForceStart_N();
+			lineLoadForceEnd_N[i] = load.getForceEnd_N();
+			lineLoadResultantForce_N[i] = load.getResultantForce_N();
+			lineLoadCenterOfGravity_m[i] = load.getCenterOfGravity_m() + load.getDistanceFromLeftEndOfBeam_m();
+		}
+
+		this.errors = Collections.unmodifiableList(errors);
+	}
+
+	/**
+	 * Length of beam.
+	 * 
+	 * @return The length of this beam.
+	 */
+	public double getLength() {
+		return lengthOfBeam_m;
+	}
+
+	/**
+	 * Checks if any given length is bigger as the length of this beam.
+	 * 
+	 * @param distanceFromLeftEndOfBeam_m
+	 * @return true if the given length is equal or smaller than the length of
+	 *         this beam. false if otherwise.
+	 */
+	public boolean isInsideOfBeamLength(double distanceFromLeftEndOfBeam_m) {
+		return distanceFromLeftEndOfBeam_m >= 0 && distanceFromLeftEndOfBeam_m <= lengthOfBeam_m;
+	}
+
+	/**
+	 * Errors found when the snapshot was created.
+	 * 
+	 * @return Number of errors. If > 0, the snapshot can not be solved.
+	 */
+	public int getErrorCount() {
+		return errors.size();
+	}
+
+	/**
+	 * Error found when the snapshot was created.
+	 * 
+	 * @param errorAtIndex
+	 * @return {@link BeamCalcError}
+	 */
+	public BeamCalcError getError(int errorAtIndex) {
+		return errors.get(errorAtIndex);
+	}
+
+	/*
+	 * Supports
+	 */
+
+	public double getXOfLeftSupport_m() {
+		return xLeftSupport_m;
+	}
+
+	public double getXOfRightSupport_m() {
+		return xRightSupport_m;
+	}
+
+	public String getNameOfLeftSupport() {
+		return nameOfLeftSupport;
+	}
+
+	public String getNameOfRightSupport() {
+		return nameOfRightSupport;
+	}
+
+	public int getTypeOfLeftSupport() {
+		return typeOfLeftSupport;
+	}
+
+	public int getTypeOfRightSupport() {
+		return typeOfRightSupport;
+	}
+
+	/**
+	 * Position of the pin support. At this support normal forces are 0.
+	 * 
+	 * @return Position of the pin support or 0 if there is none.
+	 */
+	public double getXOfPinSupport_m() {
+		if (typeOfLeftSupport == Support.PIN_SUPPORT)
+			return xLeftSupport_m;
+		if (typeOfRightSupport == Support.PIN_SUPPORT)
+			return xRightSupport_m;
+		return 0;
+	}
+
+	/**
+	 * Space between the supports.
+	 * 
+	 * @return Distance between left and right support.
+	 */
+	public double getSpaceBetweenSupports_m() {
+		return Math.abs(xLeftSupport_m - xRightSupport_m);
+	}
+
+	/*
+	 * Point loads, sorted by distance from left end of beam.
+	 */
+
+	public int getNumberOfPointLoads() {
+		return pointLoadX_m.length;
+	}
+
+	public String getNameOfPointLoad(int index) {
+		return pointLoadNames[index];
+	}
+
+	public double getXOfPointLoad_m(int index) {
+		return pointLoadX_m[index];
+	}
+
+	public double getForceOfPointLoad_N(int index) {
+		return pointLoadForce_N[index];
+	}
+
+	public double getAngleOfPointLoad_degrees(int index) {
+		return pointLoadAngle_degrees[index];
+	}
+
+	/**
+	 * Vertical part of a point load.
+	 * 
+	 * @param index
+	 * @return F x cos(angle). Acting downwards (-), upwards (+).
+	 */
+	public double getVerticalForceOfPointLoad_N(int index) {
+		return pointLoadVertical_N[index];
+	}
+
+	/**
+	 * Horizontal part of a point load.
+	 * 
+	 * @param index
+	 * @return F x sin(angle). Same leading sign as the {@link NSolver} uses.
+	 */
+	public double getHorizontalForceOfPointLoad_N(int index) {
+		return pointLoadHorizontal_N[index];
+	}
+
+	/*
+	 * Line loads, sorted by distance of their start from left end of beam.
+	 */
+
+	public int getNumberOfLineLoads() {
+		return lineLoadStart_m.length;
+	}
+
+	public String getNameOfLineLoad(int index) {
+		return lineLoadNames[index];
+	}
+
+	public double getStartOfLineLoad_m(int index) {
+		return lineLoadStart_m[index];
+	}
+
+	public double getLengthOfLineLoad_m(int index) {
+		return lineLoadLength_m[index];
+	}
+
+	public double getForceStartOfLineLoad_N(int index) {
+		return lineLoadForceStart_N[index];
+	}
+
+	public double getForceEndOfLineLoad_N(int index) {
+		return lineLoadForceEnd_N[index];
+	}
+
+	/**
+	 * Resultant force of a line load, see {@link Load#getResultantForce_N()}.
+	 * 
+	 * @param index
+	 * @return Resultant force.
+	 */
+	public double getResultantForceOfLineLoad_N(int index) {
+		return lineLoadResultantForce_N[index];
+	}
+
+	/**
+	 * Position of the resultant force of a line load.
+	 * 
+	 * @param index
+	 * @return Center of gravity relative to the left end of the beam.
+	 */
+	public double getCenterOfGravityOfLineLoad_m(int index) {
+		return lineLoadCenterOfGravity_m[index];
+	}
+
+	/**
+	 * Two snapshots are equal if they describe the same beam: Same length, same
+	 * supports, same loads in the same order and the same errors.
+	 * 
+	 * Since snapshots are immutable, they can be used as keys, see
+	 * {@link BeamResultCache}.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof BeamSnapshot))
+			return false;
+		BeamSnapshot b = (BeamSnapshot) o;
+		if (hashCode() != b.hashCode())
+			return false;
+
+		if (Double.compare(lengthOfBeam_m, b.lengthOfBeam_m) != 0
+				|| Double.compare(xLeftSupport_m, b.xLeftSupport_m) != 0
+				|| Double.compare(xRightSupport_m, b.xRightSupport_m) != 0
+				|| !Objects.equals(nameOfLeftSupport, b.nameOfLeftSupport)
+				|| !Objects.equals(nameOfRightSupport, b.nameOfRightSupport)
+				|| typeOfLeftSupport != b.typeOfLeftSupport || typeOfRightSupport != b.typeOfRightSupport)
+			return false;
+
+		if (!Arrays.equals(pointLoadNames, b.pointLoadNames) || !Arrays.equals(pointLoadX_m, b.pointLoadX_m)
+				|| !Arrays.equals(pointLoadForce_N, b.pointLoadForce_N)
+				|| !Arrays.equals(pointLoadAngle_degrees, b.pointLoadAngle_degrees))
+			return false;
+
+		if (!Arrays.equals(lineLoadNames, b.lineLoadNames) || !Arrays.equals(lineLoadStart_m, b.lineLoadStart_m)
+				|| !Arrays.equals(lineLoadLength_m, b.lineLoadLength_m)
+				|| !Arrays.equals(lineLoadForceStart_N, b.lineLoadForceStart_N)
+				|| !Arrays.equals(lineLoadForceEnd_N, b.lineLoadForceEnd_N))
+			return false;
+
+		if (errors.size() != b.errors.size())
+			return false;
+		for (int i = 0; i <= errors.size() - 1; i++) {
+			BeamCalcError e = errors.get(i);
+			BeamCalcError f = b.errors.get(i);
+			if (e.getOriginOfError() != f.getOriginOfError() || e.getIndexOfError() != f.getIndexOfError()
+					|| !Objects.equals(e.getErrorDescription(), f.getErrorDescription()))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Structural hash of the beam. Calculated once.
+	 */
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = Objects.hash(lengthOfBeam_m, xLeftSupport_m, xRightSupport_m, nameOfLeftSupport, nameOfRightSupport,
+					typeOfLeftSupport, typeOfRightSupport);
+			h = 31 * h + Arrays.hashCode(pointLoadNames);
+			h = 31 * h + Arrays.hashCode(pointLoadX_m);
+			h = 31 * h + Arrays.hashCode(pointLoadForce_N);
+			h = 31 * h + Arrays.hashCode(pointLoadAngle_degrees);
+			h = 31 * h + Arrays.hashCode(lineLoadNames);
+			h = 31 * h + Arrays.hashCode(lineLoadStart_m);
+			h = 31 * h + Arrays.hashCode(lineLoadLength_m);
+			h = 31 * h + Arrays.hashCode(lineLoadForceStart_N);
+			h = 31 * h + Arrays.hashCode(lineLoadForceEnd_N);
+			h = 31 * h + errors.size();
+			hash = h;
+		}
+		return h;
+	}
+}
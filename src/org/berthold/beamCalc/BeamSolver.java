@@ -1,6 +1,5 @@
 package org.berthold.beamCalc;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -31,18 +30,21 @@ import java.util.List;
  * Resulting force at right support is calculated by solving this equation:
  * <p>
  * SummOfVerticalForces=0=F_Left-F1-F2-....-Fn+F_Right
- *
- * @author Berthold
  * 
+ * @author Berthold
+ *
  */
 public class BeamSolver {
 
-	public static int NUMBER_OF_SUPPORTS = 2; // Not one more yet, sorry.
+	public static int NUMBER_OF_SUPPORTS = 2; // More: See ContinuousBeamSolver.
 
 	/**
 	 * Creates a new result.
 	 *
-	 *
+	 * Contains the supporting forces and the mathematical terms showing the
+	 * solution in detail. If the terms are not needed, use
+	 * {@link #getReactions(Beam)} which is much faster.
+	 * 
 	 * @param beam
 	 *            A simply supported {@link Beam} with two {@link Support}'s and
 	 *            at least one {@link Load}
@@ -55,159 +57,170 @@ public class BeamSolver {
 	 * @return {@link BeamResult}
 	 */
 	public static BeamResult getResults(Beam beam, String floatFormat) {
+		BeamResult result = getReactions(beam);
+		if (result.getErrorCount() == 0)
+			addSolutionTerms(beam, result, floatFormat);
+		return result;
+	}
+
+	/**
+	 * Calculates the supporting forces only.
+	 * 
+	 * Same as {@link #getResults(Beam, String)} but no mathematical terms
+	 * showing the solution in detail are build. Nothing but the result is
+	 * created, regardless of the number of loads (as long as there are no
+	 * errors). Use this if the supporting forces are needed for further
+	 * calculations, e.g. by the {@link QSolver}.
+	 * 
+	 * @param beam
+	 *            A simply supported {@link Beam} with two {@link Support}'s and
+	 *            at least one {@link Load}
+	 * @return {@link BeamResult}. The solution terms are null.
+	 */
+	public static BeamResult getReactions(Beam beam) {
+		return getReactions(new BeamSnapshot(beam));
+	}
+
+	/**
+	 * Calculates the supporting forces only.
+	 * 
+	 * Same as {@link #getReactions(Beam)}. The snapshot is already sorted and
+	 * checked, so solving it neither sorts nor creates any object except the
+	 * result.
+	 * 
+	 * @param beam
+	 *            A {@link BeamSnapshot} of a simply supported beam.
+	 * @return {@link BeamResult}. The solution terms are null.
+	 */
+	public static BeamResult getReactions(BeamSnapshot beam) {
 
 		BeamResult result = new BeamResult();
-		double spaceBetweenSupports_m = 0;
 		double torqueSum = 0;
 		double loadSumVertical = 0;
 		double loadSumHorizontal = 0;
-		Load load;
-		double verticalLoad, horizontalLoad;
 
-		// Sort supports by distance from left end of beam....
-		List<Support> supportsSorted = new ArrayList<Support>();
-		supportsSorted = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc();
-		Support leftSupport = supportsSorted.get(0);
-		Support rightSupport = supportsSorted.get(1);
+		// Errors were found when the snapshot was created
+		for (int i = 0; i <= beam.getErrorCount() - 1; i++)
+			result.addError(beam.getError(i));
+
+		if (result.getErrorCount() > 0)
+			return result;
+
+		double xRightSupport_m = beam.getXOfRightSupport_m();
+
+		// Single loads. If load is acting at an angle, the horizontal part
+		// increases the horizontal load sum.
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++) {
+			double verticalLoad = beam.getVerticalForceOfPointLoad_N(i);
 
-		// Check if support is inside beam length
-		if (beam.isInsideOfBeamLength(leftSupport.getDistanceFromLeftEndOfBeam_m())
-				&& beam.isInsideOfBeamLength(rightSupport.getDistanceFromLeftEndOfBeam_m())) {
-			spaceBetweenSupports_m = Math
-					.abs(leftSupport.getDistanceFromLeftEndOfBeam_m() - rightSupport.getDistanceFromLeftEndOfBeam_m());
-		} else {
-			BeamCalcError error = new BeamCalcError(BeamCalcError.SUPPORT_ERROR, 0, "Support outside of beam");
-			result.addError(error);
+			loadSumHorizontal = loadSumHorizontal + beam.getHorizontalForceOfPointLoad_N(i) * (-1);
+			loadSumVertical = loadSumVertical + verticalLoad;
+			torqueSum = torqueSum + verticalLoad * (xRightSupport_m - beam.getXOfPointLoad_m(i));
 		}
 
+		// Line loads
+		for (int i = 0; i <= beam.getNumberOfLineLoads() - 1; i++) {
+			double resultandForce_N = beam.getResultantForceOfLineLoad_N(i);
+
+			loadSumVertical = loadSumVertical + resultandForce_N;
+			torqueSum = torqueSum + resultandForce_N * (xRightSupport_m - beam.getCenterOfGravityOfLineLoad_m(i));
+		}
+
+		result.setResultingForceAtLeftBearingBearing_N(-1 * torqueSum / beam.getSpaceBetweenSupports_m());
+
+		//
+		// Calculate resulting force at right bearing.
+		//
+		result.setResultingForceAtRightBearing_N(-1 * loadSumVertical - result.getResultingForceAtLeftBearing_N());
+		result.setResultingHorizontalForceAtRightSupport_N(loadSumHorizontal);
+		return result;
+	}
+
+	/*
+	 * Builds the mathematical terms showing the solution in detail and adds them
+	 * to the result. The result must contain the supporting forces and no
+	 * errors.
+	 */
+	private static void addSolutionTerms(Beam beam, BeamResult result, String floatFormat) {
+
+		List<Support> supportsSorted = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc();
+		Support leftSupport = supportsSorted.get(0);
+		Support rightSupport = supportsSorted.get(1);
+		double spaceBetweenSupports_m = Math
+				.abs(leftSupport.getDistanceFromLeftEndOfBeam_m() - rightSupport.getDistanceFromLeftEndOfBeam_m());
+		Load load;
+
 		// Prepare string which will contain the term for the solution in
 		// detail.
 		String partOfMathTerm; // String holding current mathematical term.
 
 		StringBuilder termForSolutionAtLeftBearing = new StringBuilder();
-		termForSolutionAtLeftBearing.append(supportsSorted.get(0).getNameOfSupport() + "=(");
+		termForSolutionAtLeftBearing.append(leftSupport.getNameOfSupport() + "=(");
 
 		StringBuilder termForSolutionAtRightBearing = new StringBuilder();
-		termForSolutionAtRightBearing.append(supportsSorted.get(1).getNameOfSupport() + "=");
+		termForSolutionAtRightBearing.append(rightSupport.getNameOfSupport() + "=");
 
 		StringBuilder termForSolutionOfHorizForce = new StringBuilder();
 		termForSolutionOfHorizForce.append("N=");
 
-		// Get and check loads, calculate resultant forces at left and right
-		// bearing
 		for (int i = 0; i <= beam.getNumberOfLoads() - 1; i++) {
 			load = beam.getLoad(i);
 
-			if (beam.isInsideOfBeamLength(load.getDistanceFromLeftEndOfBeam_m()) && beam
-					.isInsideOfBeamLength(load.getDistanceFromLeftEndOfBeam_m() + load.getLengthOfLineLoad_m())) {
-
-				/*
-				 * Single load?
-				 */
-				if (load.getLengthOfLineLoad_m() == 0) {
-
-					// If load is acting at an angle, split!
-					// load in vertical and horizontal part and increase
-					// horizontal load sum.
-					double angleOfLoadInRadians = load.getAngleOfLoad_degrees() * Math.PI / 180;
-					
-					if (load.getAngleOfLoad_degrees() != 0) {
-
-						verticalLoad = load.getForce_N() * Math.cos(angleOfLoadInRadians);
-						horizontalLoad = load.getForce_N() * Math.sin(angleOfLoadInRadians) * (-1);
-						loadSumHorizontal = loadSumHorizontal + horizontalLoad;
-
-						// Build mathematical term accordingly.
-						// Vertical load
-						partOfMathTerm = FormatSolutionString.partOfTermForSingleLoad(load.getForce_N(),
-								load.getAngleOfLoad_degrees(),
-								rightSupport.getDistanceFromLeftEndOfBeam_m() - load.getDistanceFromLeftEndOfBeam_m(),
-								beam, i);
-						termForSolutionAtLeftBearing.append(partOfMathTerm);
-
-						// Horizontal force.
-						partOfMathTerm = FormatSolutionString.solutionTermForHorizForces(load);
-						termForSolutionOfHorizForce.append(partOfMathTerm);
-
-					} else {
-						// Load acting vertical up/ down.
-						verticalLoad = load.getForce_N();
-
-						// Build solution term
-						partOfMathTerm = FormatSolutionString.partOfTermForSingleLoad(verticalLoad, 0,
-								rightSupport.getDistanceFromLeftEndOfBeam_m() - load.getDistanceFromLeftEndOfBeam_m(),
-								beam, i);
-						termForSolutionAtLeftBearing.append(partOfMathTerm);
-
-					}
-					loadSumVertical = loadSumVertical + verticalLoad;
-					torqueSum = torqueSum + verticalLoad
-							* (rightSupport.getDistanceFromLeftEndOfBeam_m() - load.getDistanceFromLeftEndOfBeam_m());
-
-				} else {
-
-					/*
-					 * Load is line load
-					 */
-					double resultandForce_N = load.getResultantForce_N();
-					double distanceOfResultandForceFromLeftEndOfbeam_m = load.getCenterOfGravity_m()
-							+ load.getDistanceFromLeftEndOfBeam_m();
+			if (load.getLengthOfLineLoad_m() == 0) {
+				double distanceToRightBearing_m = rightSupport.getDistanceFromLeftEndOfBeam_m()
+						- load.getDistanceFromLeftEndOfBeam_m();
 
-					double lengthOfLeverToRightBearing_m = rightSupport.getDistanceFromLeftEndOfBeam_m()
-							- distanceOfResultandForceFromLeftEndOfbeam_m;
+				if (load.getAngleOfLoad_degrees() != 0) {
+					// Vertical load
+					partOfMathTerm = FormatSolutionString.partOfTermForSingleLoad(load.getForce_N(),
+							load.getAngleOfLoad_degrees(), distanceToRightBearing_m, beam, i);
+					termForSolutionAtLeftBearing.append(partOfMathTerm);
 
-					// Calculate torque- sum
-					loadSumVertical = loadSumVertical + resultandForce_N;
-					torqueSum = torqueSum + resultandForce_N * lengthOfLeverToRightBearing_m;
-
-					String p = FormatSolutionString.partOfTermForLineLoad(lengthOfLeverToRightBearing_m, beam, i);
-					termForSolutionAtLeftBearing.append(p);
+					// Horizontal force.
+					partOfMathTerm = FormatSolutionString.solutionTermForHorizForces(load);
+					termForSolutionOfHorizForce.append(partOfMathTerm);
+				} else {
+					partOfMathTerm = FormatSolutionString.partOfTermForSingleLoad(load.getForce_N(), 0,
+							distanceToRightBearing_m, beam, i);
+					termForSolutionAtLeftBearing.append(partOfMathTerm);
 				}
 			} else {
-				BeamCalcError error = new BeamCalcError(BeamCalcError.LOAD_ERROR, i,
-						"Load #" + i + 1 + " acts " + load.getDistanceFromLeftEndOfBeam_m()
-								+ " m from left end of Beam. Beam length is " + beam.getLength() + " m");
-				result.addError(error);
+				double lengthOfLeverToRightBearing_m = rightSupport.getDistanceFromLeftEndOfBeam_m()
+						- (load.getCenterOfGravity_m() + load.getDistanceFromLeftEndOfBeam_m());
+
+				partOfMathTerm = FormatSolutionString.partOfTermForLineLoad(lengthOfLeverToRightBearing_m, beam, i);
+				termForSolutionAtLeftBearing.append(partOfMathTerm);
 			}
 		}
-		if (result.getErrorCount() == 0) {
-			result.setResultingForceAtLeftBearingBearing_N(-1 * torqueSum / spaceBetweenSupports_m);
-
-			//
-			// Calculate resulting force at right bearing.
-			//
-			result.setResultingForceAtRightBearing_N(-1 * loadSumVertical - result.getResultingForceAtLeftBearing_N());
-			result.setResultingHorizontalForceAtRightSupport_N(loadSumHorizontal);
-
-			/*
-			 * Finish strings with detail solution and add them to the result-
-			 * instance
-			 */
-
-			// For the horizontal forces
-			String sumOfHorizontalLoadsFormated = String.format("%." + floatFormat, loadSumHorizontal);
-
-			if (loadSumHorizontal != 0)
-				termForSolutionOfHorizForce.append(" = " + sumOfHorizontalLoadsFormated + "N");
-			else
-				termForSolutionOfHorizForce.append(sumOfHorizontalLoadsFormated + "N");
-
-			result.addSolutionTermForHorizontalForce(termForSolutionOfHorizForce.toString());
-
-			// For the left bearing
-			String resultingForceAtLeftBearingFormatet = String.format("%." + floatFormat,
-					result.getResultingForceAtLeftBearing_N());
-			termForSolutionAtLeftBearing
-					.append(")/" + spaceBetweenSupports_m + "m = " + resultingForceAtLeftBearingFormatet + "N");
-			result.addSolutionTermForLeftBearing(termForSolutionAtLeftBearing.toString());
-
-			// For the right bearing
-			String finalTerm = FormatSolutionString.solutionTermForRightBearing(beam, result,
-					termForSolutionAtRightBearing, floatFormat);
-
-			// Finished....
-			result.addSolutionTermForRightBearing(finalTerm);
-		}
-		return result;
+
+		/*
+		 * Finish strings with detail solution and add them to the result-
+		 * instance
+		 */
+
+		// For the horizontal forces
+		double loadSumHorizontal = result.getResultingHorizontalForceAtRightSupport_N();
+		String sumOfHorizontalLoadsFormated = String.format("%." + floatFormat, loadSumHorizontal);
+
+		if (loadSumHorizontal != 0)
+			termForSolutionOfHorizForce.append(" = " + sumOfHorizontalLoadsFormated + "N");
+		else
+			termForSolutionOfHorizForce.append(sumOfHorizontalLoadsFormated + "N");
+
+		result.addSolutionTermForHorizontalForce(termForSolutionOfHorizForce.toString());
+
+		// For the left bearing
+		String resultingForceAtLeftBearingFormatet = String.format("%." + floatFormat,
+				result.getResultingForceAtLeftBearing_N());
+		termForSolutionAtLeftBearing
+				.append(")/" + spaceBetweenSupports_m + "m = " + resultingForceAtLeftBearingFormatet + "N");
+		result.addSolutionTermForLeftBearing(termForSolutionAtLeftBearing.toString());
+
+		// For the right bearing
+		String finalTerm = FormatSolutionString.solutionTermForRightBearing(beam, result,
+				termForSolutionAtRightBearing, floatFormat);
+
+		// Finished....
+		result.addSolutionTermForRightBearing(finalTerm);
 	}
 }
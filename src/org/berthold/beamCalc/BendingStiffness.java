@@ -0,0 +1,84 @@
+package org.berthold.beamCalc;
+
+import java.util.Arrays;
+
+/**
+ * Bending stiffness EI of a {@link Beam}.
+ * <p>
+ * 
+ * Either constant over the length of the beam or piecewise constant, e.g. for
+ * beams with a reinforced section. Each section starts at a given distance from
+ * the left end of the beam and ends where the next one starts.
+ * <p>
+ * 
+ * EI must be given in the unit of the bending moments times m<sup>2</sup>, e.g.
+ * M in Nm => EI in Nm<sup>2</sup>.
+ * 
+ * @author Berthold
+ *
+ */
+public class BendingStiffness {
+
+	private double[] startOfSection_m;
+	private double[] ei;
+	private int numberOfSections;
+
+	/**
+	 * Constant bending stiffness.
+	 * 
+	 * @param ei EI, must be greater than 0.
+	 */
+	public BendingStiffness(double ei) {
+		startOfSection_m = new double[4];
+		this.ei = new double[4];
+		addSection(0, ei);
+	}
+
+	/**
+	 * Adds a section with a different bending stiffness.
+	 * 
+	 * @param distanceFromLeftEndOfBeam_m Start of the section. Must be right of
+	 *                                    the start of the section added before.
+	 * @param ei                          EI of the section, must be greater than
+	 *                                    0.
+	 * @return This object, so calls can be chained.
+	 */
+	public BendingStiffness addSection(double distanceFromLeftEndOfBeam_m, double ei) {
+		if (!(ei > 0))
+			throw new IllegalArgumentException("Bending stiffness must be greater than 0, was " + ei);
+		if (numberOfSections > 0 && distanceFromLeftEndOfBeam_m <= startOfSection_m[numberOfSections - 1])
+			throw new IllegalArgumentException("Sections must be added from left to right");
+
+		if (numberOfSections == startOfSection_m.length) {
+			startOfSection_m = Arrays.copyOf(startOfSection_m, 2 * numberOfSections);
+			this.ei = Arrays.copyOf(this.ei, 2 * numberOfSections);
+		}
+		startOfSection_m[numberOfSections] = distanceFromLeftEndOfBeam_m;
+		this.ei[numberOfSections] = ei;
+		numberOfSections++;
+		return this;
+	}
+
+	/**
+	 * Bending stiffness at a position.
+	 * 
+	 * @param distanceFromLeftEndOfBeam_m Position.
+	 * @return EI of the section containing the position. At the border of two
+	 *         sections the EI of the right one.
+	 */
+	public double getEI(double distanceFromLeftEndOfBeam_m) {
+		int i = Arrays.binarySearch(startOfSection_m, 0, numberOfSections, distanceFromLeftEndOfBeam_m);
+		if (i < 0)
+			i = Math.max(0, -i - 2);
+		return ei[i];
+	}
+
+	/**
+	 * Checks if the bending stiffness is the same over the whole length.
+	 * 
+	 * @return true if there is only one section.
+	 */
+	public boolean isConstant() {
+		return numberOfSections == 1;
+	}
+}
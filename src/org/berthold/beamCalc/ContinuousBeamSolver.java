@@ -0,0 +1,283 @@
+package org.berthold.beamCalc;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves a continuous {@link Beam} resting on any number of supports.
+ * <p>
+ * 
+ * With more than two supports the beam is statically indeterminate. The
+ * bending moments at the supports are found from the three- moment equation
+ * (Clapeyron), which holds for each inner support j and a constant bending
+ * stiffness:
+ * <p>
+ * 
+ * M<sub>j-1</sub> x L<sub>j-1</sub> + 2 x M<sub>j</sub> x (L<sub>j-1</sub> +
+ * L<sub>j</sub>) + M<sub>j+1</sub> x L<sub>j</sub> = -6 x (A x a/ L)<sub>j-1</sub>
+ * -6 x (A x b/ L)<sub>j</sub>
+ * <p>
+ * 
+ * L is the length of a span, A x a/ L and A x b/ L are the load terms of the
+ * spans left and right of the support. The moments at the outer supports are
+ * given by the loads on the overhangs. The equations form a tridiagonal system
+ * which is solved by the Thomas algorithm, cost is O(number of spans). The
+ * supporting forces are then obtained span by span from the moments at the
+ * supports.
+ * <p>
+ * 
+ * Sign conventions are the same as for the {@link BeamSolver}. The type of the
+ * supports is ignored, the sum of the horizontal forces is taken by one support.
+ * Line loads are integrated exactly as a linear function of the position, for
+ * line loads whose start and end force have the same sign the results for two
+ * supports are the same as those of the {@link BeamSolver}.
+ * 
+ * @author Berthold
+ *
+ */
+public class ContinuousBeamSolver {
+
+	// Gauss- Legendre, 3 points. Exact for the load terms of line loads which are
+	// polynomials of degree 4.
+	private static final double GAUSS_NODE = Math.sqrt(3.0 / 5.0);
+	private static final double[] GAUSS_NODES = { -GAUSS_NODE, 0, GAUSS_NODE };
+	private static final double[] GAUSS_WEIGHTS = { 5.0 / 9.0, 8.0 / 9.0, 5.0 / 9.0 };
+
+	/**
+	 * Calculates the forces at all supports.
+	 * 
+	 * @param beam A {@link Beam} with at least two {@link Support}'s.
+	 * @return {@link BeamResult} containing one force for each support (see
+	 *         {@link BeamResult#getForceAtSupport_N(int)}). The forces at the
+	 *         leftmost and the rightmost support are also set as the forces at
+	 *         the left and right bearing. The solution terms are null.
+	 */
+	public static BeamResult solve(Beam beam) {
+		BeamResult result = new BeamResult();
+
+		if (beam.getNumberOfBearings() < 2) {
+			result.addError(new BeamCalcError(BeamCalcError.SUPPORT_ERROR, 0, "Beam needs two supports"));
+			return result;
+		}
+
+		// Supports
+		List<Support> supportsSorted = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc();
+		double[] xSupports_m = new double[supportsSorted.size()];
+
+		for (int i = 0; i <= xSupports_m.length - 1; i++) {
+			xSupports_m[i] = supportsSorted.get(i).getDistanceFromLeftEndOfBeam_m();
+
+			if (!beam.isInsideOfBeamLength(xSupports_m[i]))
+				result.addError(new BeamCalcError(BeamCalcError.SUPPORT_ERROR, i, "Support outside of beam"));
+			else if (i > 0 && xSupports_m[i] == xSupports_m[i - 1])
+				result.addError(
+						new BeamCalcError(BeamCalcError.SUPPORT_ERROR, i, "Two supports at the same position"));
+		}
+
+		// Loads are checked and prepared by the snapshot
+		BeamSnapshot snapshot = new BeamSnapshot(beam);
+		for (int i = 0; i <= snapshot.getErrorCount() - 1; i++)
+			if (snapshot.getError(i).getOriginOfError() == BeamCalcError.LOAD_ERROR)
+				result.addError(snapshot.getError(i));
+
+		if (result.getErrorCount() > 0)
+			return result;
+
+		// Collect load terms
+		LoadTerms terms = new LoadTerms(xSupports_m);
+		double loadSumHorizontal = 0;
+
+		for (int i = 0; i <= snapshot.getNumberOfPointLoads() - 1; i++) {
+			terms.addForce(snapshot.getXOfPointLoad_m(i), snapshot.getVerticalForceOfPointLoad_N(i));
+			loadSumHorizontal = loadSumHorizontal + snapshot.getHorizontalForceOfPointLoad_N(i) * (-1);
+		}
+
+		for (int i = 0; i <= snapshot.getNumberOfLineLoads() - 1; i++)
+			terms.addLineLoad(snapshot.getStartOfLineLoad_m(i), snapshot.getLengthOfLineLoad_m(i),
+					snapshot.getForceStartOfLineLoad_N(i), snapshot.getForceEndOfLineLoad_N(i));
+
+		double[] moments_Nm = getMomentsAtSupports(terms);
+		double[] forces_N = getForcesAtSupports(terms, moments_Nm);
+
+		result.setForcesAtSupports_N(forces_N);
+		result.setResultingForceAtLeftBearingBearing_N(forces_N[0]);
+		result.setResultingForceAtRightBearing_N(forces_N[forces_N.length - 1]);
+		result.setResultingHorizontalForceAtRightSupport_N(loadSumHorizontal);
+		return result;
+	}
+
+	/*
+	 * Solves the three- moment equations for the inner supports by the Thomas
+	 * algorithm. The moments at the outer supports are known from the overhangs.
+	 */
+	private static double[] getMomentsAtSupports(LoadTerms terms) {
+		int spans = terms.span_m.length;
+		double[] moments_Nm = new double[spans + 1];
+		moments_Nm[0] = terms.momentAtFirstSupport_Nm;
+		moments_Nm[spans] = terms.momentAtLastSupport_Nm;
+
+		int unknowns = spans - 1;
+		if (unknowns == 0)
+			return moments_Nm;
+
+		double[] c = new double[unknowns];
+		double[] d = new double[unknowns];
+
+		// Forward sweep. Equation k is the one for support j=k+1.
+		for (int k = 0; k <= unknowns - 1; k++) {
+			int j = k + 1;
+			double lower = terms.span_m[j - 1];
+			double diagonal = 2 * (terms.span_m[j - 1] + terms.span_m[j]);
+			double upper = terms.span_m[j];
+			double rhs = terms.termAtRightEnd_Nm2[j - 1] + terms.termAtLeftEnd_Nm2[j];
+
+			if (j == 1)
+				rhs = rhs - lower * moments_Nm[0];
+			if (j == spans - 1)
+				rhs = rhs - upper * moments_Nm[spans];
+
+			if (k > 0) {
+				diagonal = diagonal - lower * c[k - 1];
+				rhs = rhs - lower * d[k - 1];
+			}
+			c[k] = upper / diagonal;
+			d[k] = rhs / diagonal;
+		}
+
+		// Back substitution
+		moments_Nm[unknowns] = d[unknowns - 1];
+		for (int k = unknowns - 2; k >= 0; k--)
+			moments_Nm[k + 1] = d[k] - c[k] * moments_Nm[k + 2];
+
+		return moments_Nm;
+	}
+
+	/*
+	 * Walks from left to right. The shearing force right of a support follows
+	 * from the moments at both ends of the span, the force at the support is the
+	 * jump of the shearing force.
+	 */
+	private static double[] getForcesAtSupports(LoadTerms terms, double[] moments_Nm) {
+		int spans = terms.span_m.length;
+		double[] forces_N = new double[spans + 1];
+
+		double qLeft_N = terms.loadLeftOfFirstSupport_N;
+
+		for (int i = 0; i <= spans; i++) {
+			double qRight_N;
+			if (i < spans)
+				qRight_N = (moments_Nm[i + 1] - moments_Nm[i] - terms.torqueOfSpan_Nm[i]) / terms.span_m[i];
+			else
+				qRight_N = -1 * terms.loadRightOfLastSupport_N;
+
+			forces_N[i] = qRight_N - qLeft_N - terms.loadAtSupport_N[i];
+
+			if (i < spans)
+				qLeft_N = qRight_N + terms.loadOfSpan_N[i];
+		}
+		return forces_N;
+	}
+
+	/*
+	 * Sums of all loads for each span and overhang.
+	 */
+	private static final class LoadTerms {
+		final double[] xSupports_m;
+		final double[] span_m;
+
+		// Loads inside of a span, their torque at the right end of the span and
+		// the load terms of the three- moment equation at both ends.
+		final double[] loadOfSpan_N;
+		final double[] torqueOfSpan_Nm;
+		final double[] termAtLeftEnd_Nm2;
+		final double[] termAtRightEnd_Nm2;
+
+		// Loads exactly at a support
+		final double[] loadAtSupport_N;
+
+		// Overhangs
+		double loadLeftOfFirstSupport_N, loadRightOfLastSupport_N;
+		double momentAtFirstSupport_Nm, momentAtLastSupport_Nm;
+
+		LoadTerms(double[] xSupports_m) {
+			this.xSupports_m = xSupports_m;
+			int spans = xSupports_m.length - 1;
+
+			span_m = new double[spans];
+			for (int i = 0; i <= spans - 1; i++)
+				span_m[i] = xSupports_m[i + 1] - xSupports_m[i];
+
+			loadOfSpan_N = new double[spans];
+			torqueOfSpan_Nm = new double[spans];
+			termAtLeftEnd_Nm2 = new double[spans];
+			termAtRightEnd_Nm2 = new double[spans];
+			loadAtSupport_N = new double[spans + 1];
+		}
+
+		/*
+		 * Vertical point load. Load terms for a load F at distance a from the left
+		 * and b from the right end of a span: F x a x (L^2-a^2)/ L at the right
+		 * end, F x b x (L^2-b^2)/ L at the left end.
+		 */
+		void addForce(double x_m, double force_N) {
+			int last = xSupports_m.length - 1;
+
+			if (x_m < xSupports_m[0]) {
+				loadLeftOfFirstSupport_N = loadLeftOfFirstSupport_N + force_N;
+				momentAtFirstSupport_Nm = momentAtFirstSupport_Nm + force_N * (xSupports_m[0] - x_m);
+				return;
+			}
+			if (x_m > xSupports_m[last]) {
+				loadRightOfLastSupport_N = loadRightOfLastSupport_N + force_N;
+				momentAtLastSupport_Nm = momentAtLastSupport_Nm + force_N * (x_m - xSupports_m[last]);
+				return;
+			}
+
+			int i = Arrays.binarySearch(xSupports_m, x_m);
+			if (i >= 0) {
+				loadAtSupport_N[i] = loadAtSupport_N[i] + force_N;
+				return;
+			}
+
+			// Not found, insertion point is the index of the support right of
+			// the load.
+			i = -i - 2;
+			double l = span_m[i];
+			double a = x_m - xSupports_m[i];
+			double b = xSupports_m[i + 1] - x_m;
+
+			loadOfSpan_N[i] = loadOfSpan_N[i] + force_N;
+			torqueOfSpan_Nm[i] = torqueOfSpan_Nm[i] + force_N * b;
+			termAtRightEnd_Nm2[i] = termAtRightEnd_Nm2[i] + force_N * a * (l * l - a * a) / l;
+			termAtLeftEnd_Nm2[i] = termAtLeftEnd_Nm2[i] + force_N * b * (l * l - b * b) / l;
+		}
+
+		/*
+		 * Uniformly distributed or uniformly changing line load. The load is split
+		 * at the supports, each piece is replaced by three point loads at the
+		 * Gauss points. All sums collected are polynomials of degree 4 or less of
+		 * the position, so they are exact.
+		 */
+		void addLineLoad(double xStart_m, double length_m, double forceStart_N, double forceEnd_N) {
+			double xEnd_m = xStart_m + length_m;
+			double from_m = xStart_m;
+
+			int i = Arrays.binarySearch(xSupports_m, xStart_m);
+			i = i >= 0 ? i + 1 : -i - 1;
+
+			while (from_m < xEnd_m) {
+				double to_m = i <= xSupports_m.length - 1 ? Math.min(xSupports_m[i], xEnd_m) : xEnd_m;
+				double half_m = (to_m - from_m) / 2;
+				double middle_m = from_m + half_m;
+
+				for (int k = 0; k <= GAUSS_NODES.length - 1; k++) {
+					double x_m = middle_m + GAUSS_NODES[k] * half_m;
+					double q = forceStart_N + (forceEnd_N - forceStart_N) * (x_m - xStart_m) / length_m;
+					addForce(x_m, q * GAUSS_WEIGHTS[k] * half_m);
+				}
+				from_m = to_m;
+				i++;
+			}
+		}
+	}
+}
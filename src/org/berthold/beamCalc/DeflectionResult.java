@@ -0,0 +1,65 @@
+package org.berthold.beamCalc;
+
+/**
+ * Contains the slope and the deflection of a {@link Beam}.
+ * 
+ * Objects from this class are created by the {@link DeflectionSolver}- Class
+ * 
+ * @author Berthold
+ *
+ */
+public class DeflectionResult {
+	private StressResultantTable slopeTable, deflectionTable;
+	private int indexOfMaxDeflection;
+
+	/**
+	 * Creates a new result.
+	 * 
+	 * @param slopeTable           w'(x)
+	 * @param deflectionTable      w(x)
+	 * @param indexOfMaxDeflection Index of the biggest deflection (absolute
+	 *                             value) inside of the tables.
+	 */
+	public DeflectionResult(StressResultantTable slopeTable, StressResultantTable deflectionTable,
+			int indexOfMaxDeflection) {
+		this.slopeTable = slopeTable;
+		this.deflectionTable = deflectionTable;
+		this.indexOfMaxDeflection = indexOfMaxDeflection;
+	}
+
+	/**
+	 * Slope.
+	 * 
+	 * @return w'(x) in rad, (+) rising from left to right.
+	 */
+	public StressResultantTable getSlopeTable() {
+		return slopeTable;
+	}
+
+	/**
+	 * Deflection.
+	 * 
+	 * @return w(x) in m, (+) upwards (-) downwards.
+	 */
+	public StressResultantTable getDeflectionTable() {
+		return deflectionTable;
+	}
+
+	/**
+	 * Biggest deflection.
+	 * 
+	 * @return Deflection with the biggest absolute value, (-) downwards.
+	 */
+	public double getMaxDeflection_m() {
+		return deflectionTable.getValueAtIndex(indexOfMaxDeflection);
+	}
+
+	/**
+	 * Position of the biggest deflection.
+	 * 
+	 * @return Distance from the left end of the beam.
+	 */
+	public double getXOfMaxDeflection_m() {
+		return deflectionTable.getX_mAtIndex(indexOfMaxDeflection);
+	}
+}
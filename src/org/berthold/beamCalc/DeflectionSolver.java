@@ -0,0 +1,220 @@
+package org.berthold.beamCalc;
+
+/**
+ * Calculates slope and deflection along the length of a {@link Beam}.<br>
+ * M(x) => w'(x) => w(x)
+ * <p>
+ * 
+ * The bending line follows from w''(x)=M(x)/ EI(x). The curvature M/ EI is
+ * integrated twice by the trapezoidal rule, directly on the sections of the
+ * table of bending moments passed. No second table of bending moments is
+ * calculated and the cost is O(number of sections).
+ * <p>
+ * 
+ * The two constants of integration are chosen so that the deflection is 0 at
+ * the leftmost and the rightmost support. For a continuous beam the bending
+ * moments passed already make the deflection 0 at all inner supports, but only
+ * for a constant bending stiffness, which is what the
+ * {@link ContinuousBeamSolver} assumes. Beams with more than two supports and
+ * a bending stiffness changing along the beam are therefore refused.
+ * <p>
+ * 
+ * For M(x) from the {@link AnalyticSolver} and a constant bending stiffness,
+ * slope and deflection can be obtained as exact functions, see
+ * {@link #solveDeflection(StressResultantFunction, Beam, double)}.
+ * 
+ * @author Berthold
+ *
+ */
+public class DeflectionSolver {
+
+	/**
+	 * Calculates slope and deflection.
+	 * 
+	 * @param mTable    M(x) of the beam, e.g. from the {@link MSolver} or the
+	 *                  {@link QMNSolver}.
+	 * @param beam      The {@link Beam}- object M(x) was calculated for.
+	 * @param stiffness Bending stiffness, in the unit of M x m<sup>2</sup>.
+	 * @return {@link DeflectionResult}. Both tables have the same sections as
+	 *         M(x). The biggest deflection is marked as maximum in the table of
+	 *         deflections.
+	 * @throws IllegalArgumentException If the beam has less than two supports
+	 *                                  or more than two supports and a bending
+	 *                                  stiffness which is not constant.
+	 */
+	public static DeflectionResult solve(StressResultantTable mTable, Beam beam, BendingStiffness stiffness) {
+		if (beam.getNumberOfBearings() < 2)
+			throw new IllegalArgumentException("Beam needs two supports");
+		if (beam.getNumberOfBearings() > 2 && !stiffness.isConstant())
+			throw new IllegalArgumentException(
+					"Bending stiffness of a beam with more than two supports must be constant");
+
+		double xLeftSupport_m = getXOfOuterSupport_m(beam, true);
+		double xRightSupport_m = getXOfOuterSupport_m(beam, false);
+
+		StressResultantTable slopeTable = createTableLike(mTable, beam, "rad");
+		StressResultantTable deflectionTable = createTableLike(mTable, beam, "m");
+		int length = mTable.getLength();
+
+		// Integrate twice, starting with w(0)=0 and w'(0)=0
+		double x_m = mTable.getX_mAtIndex(0);
+		double curvature = mTable.getValueAtIndex(0) / stiffness.getEI(x_m);
+		double slope = 0;
+		double deflection_m = 0;
+
+		for (int n = 0; n <= length - 2; n++) {
+			double x1_m = mTable.getX_mAtIndex(n + 1);
+			double curvature1 = mTable.getValueAtIndex(n + 1) / stiffness.getEI(x1_m);
+			double dx_m = x1_m - x_m;
+
+			double slope1 = slope + (curvature + curvature1) / 2 * dx_m;
+			deflection_m = deflection_m + (slope + slope1) / 2 * dx_m;
+
+			slopeTable.setValueAtIndex(n + 1, slope1);
+			deflectionTable.setValueAtIndex(n + 1, deflection_m);
+
+			x_m = x1_m;
+			curvature = curvature1;
+			slope = slope1;
+		}
+
+		// Boundary conditions: w=0 at both supports. Adds c0+c1 x x to w and c1
+		// to w'.
+		double wLeft_m = getValueAt(deflectionTable, xLeftSupport_m);
+		double wRight_m = getValueAt(deflectionTable, xRightSupport_m);
+		double c1 = 0;
+		if (xRightSupport_m != xLeftSupport_m)
+			c1 = -1 * (wRight_m - wLeft_m) / (xRightSupport_m - xLeftSupport_m);
+		double c0 = -1 * wLeft_m - c1 * xLeftSupport_m;
+
+		int indexOfMaxDeflection = 0;
+		for (int n = 0; n <= length - 1; n++) {
+			slopeTable.addValueAtIndex(n, c1);
+			deflectionTable.addValueAtIndex(n, c0 + c1 * deflectionTable.getX_mAtIndex(n));
+
+			if (Math.abs(deflectionTable.getValueAtIndex(n)) > Math
+					.abs(deflectionTable.getValueAtIndex(indexOfMaxDeflection)))
+				indexOfMaxDeflection = n;
+
+			if (n > 0 && Math.signum(slopeTable.getValueAtIndex(n - 1)) != Math.signum(slopeTable.getValueAtIndex(n)))
+				slopeTable.setZeroPointAtIndex(n - 1, true);
+		}
+		deflectionTable.setMaximaAtIndex(indexOfMaxDeflection, true);
+
+		return new DeflectionResult(slopeTable, deflectionTable, indexOfMaxDeflection);
+	}
+
+	/**
+	 * Calculates the slope as an exact function.
+	 * 
+	 * @param mFunction M(x) from the {@link AnalyticSolver}.
+	 * @param beam      The {@link Beam}- object M(x) was calculated for.
+	 * @param ei        Constant bending stiffness, in the unit of M x
+	 *                  m<sup>2</sup>.
+	 * @return w'(x) in rad.
+	 * @throws IllegalArgumentException If the beam has less than two supports.
+	 */
+	public static StressResultantFunction solveSlope(StressResultantFunction mFunction, Beam beam, double ei) {
+		return solveAnalytic(mFunction, beam, ei)[0];
+	}
+
+	/**
+	 * Calculates the deflection as an exact function.
+	 * 
+	 * M(x) is a piecewise polynomial, so is w(x). There is no error caused by
+	 * sections, the biggest deflection is found by
+	 * {@link StressResultantFunction#getAbsMin()} and
+	 * {@link StressResultantFunction#getMaxima()}.
+	 * 
+	 * @param mFunction M(x) from the {@link AnalyticSolver}.
+	 * @param beam      The {@link Beam}- object M(x) was calculated for.
+	 * @param ei        Constant bending stiffness, in the unit of M x
+	 *                  m<sup>2</sup>.
+	 * @return w(x) in m, (+) upwards (-) downwards.
+	 * @throws IllegalArgumentException If the beam has less than two supports.
+	 */
+	public static StressResultantFunction solveDeflection(StressResultantFunction mFunction, Beam beam, double ei) {
+		return solveAnalytic(mFunction, beam, ei)[1];
+	}
+
+	/*
+	 * Integrates M/ EI twice and fits both constants of integration. Returns
+	 * slope and deflection.
+	 */
+	private static StressResultantFunction[] solveAnalytic(StressResultantFunction mFunction, Beam beam, double ei) {
+		if (beam.getNumberOfBearings() < 2)
+			throw new IllegalArgumentException("Beam needs two supports");
+		if (!(ei > 0))
+			throw new IllegalArgumentException("Bending stiffness must be greater than 0, was " + ei);
+
+		double xLeftSupport_m = getXOfOuterSupport_m(beam, true);
+		double xRightSupport_m = getXOfOuterSupport_m(beam, false);
+
+		StressResultantFunction slope = mFunction.multiply(1 / ei, "1/m").integrate("rad");
+		StressResultantFunction deflection = slope.integrate("m");
+
+		double wLeft_m = deflection.getValueAt(xLeftSupport_m);
+		double wRight_m = deflection.getValueAt(xRightSupport_m);
+		double c1 = 0;
+		if (xRightSupport_m != xLeftSupport_m)
+			c1 = -1 * (wRight_m - wLeft_m) / (xRightSupport_m - xLeftSupport_m);
+		double c0 = -1 * wLeft_m - c1 * xLeftSupport_m;
+
+		return new StressResultantFunction[] { slope.addLine(c1, 0), deflection.addLine(c0, c1) };
+	}
+
+	/*
+	 * Position of the leftmost or of the rightmost support.
+	 */
+	private static double getXOfOuterSupport_m(Beam beam, boolean left) {
+		double x_m = beam.getBearing(0).getDistanceFromLeftEndOfBeam_m();
+		for (int i = 1; i <= beam.getNumberOfBearings() - 1; i++) {
+			double xSupport_m = beam.getBearing(i).getDistanceFromLeftEndOfBeam_m();
+			x_m = left ? Math.min(x_m, xSupport_m) : Math.max(x_m, xSupport_m);
+		}
+		return x_m;
+	}
+
+	/*
+	 * Empty table with the same sections as the one passed.
+	 */
+	private static StressResultantTable createTableLike(StressResultantTable table, Beam beam, String unit) {
+		if (table.isUniform()) {
+			StressResultantTable uniform = new StressResultantTable(beam, table.getSectionLength_m(), unit);
+			if (uniform.getLength() == table.getLength())
+				return uniform;
+		}
+
+		double[] x_m = new double[table.getLength()];
+		for (int n = 0; n <= x_m.length - 1; n++)
+			x_m[n] = table.getX_mAtIndex(n);
+		return new StressResultantTable(beam, x_m, new double[x_m.length], unit);
+	}
+
+	/*
+	 * Linear interpolation between the two sections around a position.
+	 */
+	private static double getValueAt(StressResultantTable table, double x_m) {
+		int low = 0;
+		int high = table.getLength() - 1;
+
+		if (x_m <= table.getX_mAtIndex(low))
+			return table.getValueAtIndex(low);
+		if (x_m >= table.getX_mAtIndex(high))
+			return table.getValueAtIndex(high);
+
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (table.getX_mAtIndex(middle) <= x_m)
+				low = middle;
+			else
+				high = middle;
+		}
+
+		double dx_m = table.getX_mAtIndex(high) - table.getX_mAtIndex(low);
+		if (dx_m == 0)
+			return table.getValueAtIndex(low);
+		return table.getValueAtIndex(low)
+				+ (table.getValueAtIndex(high) - table.getValueAtIndex(low)) * (x_m - table.getX_mAtIndex(low)) / dx_m;
+	}
+}
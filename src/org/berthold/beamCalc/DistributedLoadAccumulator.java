@@ -0,0 +1,94 @@
+package org.berthold.beamCalc;
+
+/**
+ * Collects line loads acting on the sections of a {@link StressResultantTable}.
+ * <p>
+ * 
+ * The force acting on section n of a line load is a+b x n. For each load, a
+ * and b are stored in two difference arrays:
+ * <p>
+ * 
+ * constant[first]+=a, constant[last+1]-=a<br>
+ * slope[first]+=b, slope[last+1]-=b
+ * <p>
+ * 
+ * Adding a load costs O(1). The force acting on each section is obtained by
+ * calling {@link #next(int)} for n=0,1,2.... which sums up the difference
+ * arrays while walking along the table.
+ * 
+ * @author Berthold
+ *
+ */
+class DistributedLoadAccumulator {
+	private final double[] constant;
+	private final double[] slope;
+
+	private double constantSum;
+	private double slopeSum;
+
+	/**
+	 * Creates a new, empty accumulator.
+	 * 
+	 * @param length Number of sections.
+	 */
+	DistributedLoadAccumulator(int length) {
+		constant = new double[length + 1];
+		slope = new double[length + 1];
+	}
+
+	/**
+	 * Adds a line load.
+	 * 
+	 * @param first First section the load acts on.
+	 * @param last  Last section the load acts on.
+	 * @param a     Constant part of the force per section.
+	 * @param b     Change of the force from section to section.
+	 */
+	void add(int first, int last, double a, double b) {
+		constant[first] += a;
+		constant[last + 1] -= a;
+		slope[first] += b;
+		slope[last + 1] -= b;
+	}
+
+	/**
+	 * Force acting on the next section.
+	 * 
+	 * Must be called for n=0,1,2.... in ascending order.
+	 * 
+	 * @param n Index of the section.
+	 * @return Sum of the forces of all line loads acting on section n.
+	 */
+	double next(int n) {
+		constantSum = constantSum + constant[n];
+		slopeSum = slopeSum + slope[n];
+		return constantSum + slopeSum * n;
+	}
+
+	/**
+	 * Adds the forces of all line loads to the values of a table.
+	 * 
+	 * Same as adding {@link #next(int)} to each value, but large tables are
+	 * processed in parallel (see {@link StressResultantKernels}). The
+	 * accumulator can not be used afterwards.
+	 * 
+	 * @param values The values of the table.
+	 */
+	void addTo(double[] values) {
+		int length = values.length;
+
+		if (!StressResultantKernels.isParallel(length)) {
+			for (int n = 0; n <= length - 1; n++)
+				values[n] = values[n] + next(n);
+			return;
+		}
+
+		StressResultantKernels.parallelPrefixSum(constant, 0, length);
+		StressResultantKernels.parallelPrefixSum(slope, 0, length);
+
+		StressResultantKernels.forEachChunk(0, length, (from, to) -> {
+			for (int n = from; n < to; n++)
+				values[n] = values[n] + (constant[n] + slope[n] * n);
+		});
+	}
+}
@@ -0,0 +1,179 @@
+package org.berthold.beamCalc;
+
+/**
+ * Creates influence lines for a {@link Beam}.
+ * <p>
+ * 
+ * An influence line shows a supporting force or a stress resultant at a fixed
+ * point of the beam while a unit load (F=-1 N, acting downwards) travels from
+ * the left to the right end of the beam. The x- axis of the influence line is
+ * the position of the unit load, not the position of the point observed.
+ * <p>
+ * 
+ * The influence lines are calculated directly from the positions of the
+ * supports, the loads of the beam are ignored. For a statically determined beam
+ * all influence lines are linear between their breakpoints (the left and
+ * right end of the beam and the point observed), so they are returned as
+ * {@link StressResultantFunction}'s with at most two segments. Use
+ * {@link StressResultantFunction#getValueAt(double)} for evaluation or
+ * {@link StressResultantFunction#toTable(Beam, double)} to get a table.
+ * <p>
+ * 
+ * Leading signs are the same as for the {@link BeamSolver}, the {@link QSolver}
+ * and the {@link MSolver}. The influence of any load F at xi is obtained by
+ * multiplying the value at xi by -F.
+ * 
+ * @author Berthold
+ *
+ */
+public class InfluenceLine {
+
+	/**
+	 * Influence line of the supporting force at the left support.
+	 * 
+	 * @param beam A {@link Beam}- object.
+	 * @return A(xi) or null if the supports are not inside of the beam.
+	 */
+	public static StressResultantFunction forLeftSupport(Beam beam) {
+		double[] supports_m = getSupports(beam);
+		if (supports_m == null)
+			return null;
+		double span_m = supports_m[1] - supports_m[0];
+
+		// A=(xB-xi)/l
+		return getFunction(beam, 0, new double[] { supports_m[1] / span_m, supports_m[1] / span_m },
+				new double[] { -1 / span_m, -1 / span_m }, "N/N");
+	}
+
+	/**
+	 * Influence line of the supporting force at the right support.
+	 * 
+	 * @param beam A {@link Beam}- object.
+	 * @return B(xi) or null if the supports are not inside of the beam.
+	 */
+	public static StressResultantFunction forRightSupport(Beam beam) {
+		double[] supports_m = getSupports(beam);
+		if (supports_m == null)
+			return null;
+		double span_m = supports_m[1] - supports_m[0];
+
+		// B=(xi-xA)/l
+		return getFunction(beam, 0, new double[] { -supports_m[0] / span_m, -supports_m[0] / span_m },
+				new double[] { 1 / span_m, 1 / span_m }, "N/N");
+	}
+
+	/**
+	 * Influence line of the shearing force at a fixed point.
+	 * <p>
+	 * 
+	 * Q(x) is the sum of all forces left of x. The influence line jumps by 1 where
+	 * the unit load passes x. If the unit load acts exactly at x it counts as
+	 * being right of x, use {@link StressResultantFunction#getValueLeftOf(double)}
+	 * to get the other side.
+	 * 
+	 * @param beam A {@link Beam}- object.
+	 * @param x_m  The point observed, relative to the left end of the beam.
+	 * @return Q(x,xi) or null if the supports are not inside of the beam.
+	 * @throws IllegalArgumentException If x is not inside of the beam.
+	 */
+	public static StressResultantFunction forShearingForce(Beam beam, double x_m) {
+		checkPointObserved(beam, x_m);
+		double[] supports_m = getSupports(beam);
+		if (supports_m == null)
+			return null;
+		double span_m = supports_m[1] - supports_m[0];
+
+		// Q(x)=A x [xA<=x] + B x [xB<=x] - 1 x [xi<x]
+		// A support at the right end of the beam acts right of x=l, same as
+		// StressResultantFunction#getValueAt(double) returns the value left of
+		// the right end.
+		double c0 = 0, c1 = 0;
+		if (supports_m[0] <= x_m) {
+			c0 = c0 + supports_m[1] / span_m;
+			c1 = c1 - 1 / span_m;
+		}
+		if (supports_m[1] <= x_m && supports_m[1] < beam.getLength()) {
+			c0 = c0 - supports_m[0] / span_m;
+			c1 = c1 + 1 / span_m;
+		}
+		return getFunction(beam, x_m, new double[] { c0 - 1, c0 }, new double[] { c1, c1 }, "N/N");
+	}
+
+	/**
+	 * Influence line of the bending moment at a fixed point.
+	 * <p>
+	 * 
+	 * M(x) is the sum of the moments of all forces left of x. The influence line
+	 * has a kink where the unit load passes x.
+	 * 
+	 * @param beam A {@link Beam}- object.
+	 * @param x_m  The point observed, relative to the left end of the beam.
+	 * @return M(x,xi) or null if the supports are not inside of the beam.
+	 * @throws IllegalArgumentException If x is not inside of the beam.
+	 */
+	public static StressResultantFunction forBendingMoment(Beam beam, double x_m) {
+		checkPointObserved(beam, x_m);
+		double[] supports_m = getSupports(beam);
+		if (supports_m == null)
+			return null;
+		double span_m = supports_m[1] - supports_m[0];
+
+		// M(x)=A x (x-xA) x [xA<=x] + B x (x-xB) x [xB<=x] - 1 x (x-xi) x [xi<x]
+		double c0 = 0, c1 = 0;
+		if (supports_m[0] <= x_m) {
+			double lever_m = x_m - supports_m[0];
+			c0 = c0 + supports_m[1] / span_m * lever_m;
+			c1 = c1 - lever_m / span_m;
+		}
+		if (supports_m[1] <= x_m) {
+			double lever_m = x_m - supports_m[1];
+			c0 = c0 - supports_m[0] / span_m * lever_m;
+			c1 = c1 + lever_m / span_m;
+		}
+		return getFunction(beam, x_m, new double[] { c0 - x_m, c0 }, new double[] { c1 + 1, c1 }, "Nm/N");
+	}
+
+	/*
+	 * Positions of the left and the right support or null if any of them is not
+	 * inside of the beam.
+	 */
+	private static double[] getSupports(Beam beam) {
+		double x0_m = beam.getBearing(0).getDistanceFromLeftEndOfBeam_m();
+		double x1_m = beam.getBearing(1).getDistanceFromLeftEndOfBeam_m();
+		double xLeftSupport_m = Math.min(x0_m, x1_m);
+		double xRightSupport_m = Math.max(x0_m, x1_m);
+
+		if (!beam.isInsideOfBeamLength(xLeftSupport_m) || !beam.isInsideOfBeamLength(xRightSupport_m)
+				|| xLeftSupport_m == xRightSupport_m)
+			return null;
+		return new double[] { xLeftSupport_m, xRightSupport_m };
+	}
+
+	private static void checkPointObserved(Beam beam, double x_m) {
+		if (!beam.isInsideOfBeamLength(x_m))
+			throw new IllegalArgumentException(
+					"Point observed " + x_m + " m is outside of beam. Beam length is " + beam.getLength() + " m");
+	}
+
+	/*
+	 * Builds a function which is c0[0]+c1[0] x xi left of the breakpoint and
+	 * c0[1]+c1[1] x xi right of it (xi: position of the unit load). If the
+	 * breakpoint is not inside of the beam, the function has one segment only.
+	 */
+	private static StressResultantFunction getFunction(Beam beam, double breakpoint_m, double[] c0, double[] c1,
+			String unit) {
+		double length_m = beam.getLength();
+
+		if (breakpoint_m <= 0 || breakpoint_m >= length_m) {
+			int side = breakpoint_m <= 0 ? 1 : 0;
+			return new StressResultantFunction(new double[] { 0, length_m },
+					new double[][] { { c0[side], c1[side] } }, unit);
+		}
+
+		double[] breakpoints_m = new double[] { 0, breakpoint_m, length_m };
+		double[][] coefficients = new double[2][];
+		for (int i = 0; i <= 1; i++)
+			coefficients[i] = new double[] { c0[i] + c1[i] * breakpoints_m[i], c1[i] };
+		return new StressResultantFunction(breakpoints_m, coefficients, unit);
+	}
+}
@@ -1,5 +1,7 @@
 package org.berthold.beamCalc;
 
+import java.util.Objects;
+
 /**
  * Load.
  * 
@@ -274,6 +276,31 @@ public class Load implements Comparable<Load> {
 		thisLoadHasAnError = false;
 	}
 
+	/**
+	 * Two loads are equal if all their properties are equal.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof Load))
+			return false;
+		Load l = (Load) o;
+		return Objects.equals(nameOfLoad, l.nameOfLoad) && Double.compare(force_N, l.force_N) == 0
+				&& Double.compare(forceStart_N, l.forceStart_N) == 0 && Double.compare(forceEnd_N, l.forceEnd_N) == 0
+				&& Double.compare(lengthOfLineLoad_m, l.lengthOfLineLoad_m) == 0
+				&& Double.compare(distanceFromLeftEndOfBeam_m, l.distanceFromLeftEndOfBeam_m) == 0
+				&& Double.compare(angleOfLoad_degrees, l.angleOfLoad_degrees) == 0
+				&& includeThisLoadIntoCaclulation == l.includeThisLoadIntoCaclulation
+				&& thisLoadHasAnError == l.thisLoadHasAnError;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(nameOfLoad, force_N, forceStart_N, forceEnd_N, lengthOfLineLoad_m,
+				distanceFromLeftEndOfBeam_m, angleOfLoad_degrees, includeThisLoadIntoCaclulation, thisLoadHasAnError);
+	}
+
 	/**
 	 * Loads can be sorted by distance from left end of beam in ascending order.
 	 */
@@ -0,0 +1,85 @@
+package org.berthold.beamCalc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A load case.
+ * 
+ * A named group of {@link Load}'s which always act together, e.g. dead load,
+ * live load or wind. Load cases are added to a {@link Beam} and combined by a
+ * {@link LoadCombination}.
+ * 
+ * @author Berthold
+ *
+ */
+public class LoadCase {
+	private String nameOfLoadCase;
+	private List<Load> loads;
+
+	/**
+	 * A new, empty load case.
+	 * 
+	 * @param nameOfLoadCase Any name allowed (Dead load, Live load, Wind.....).
+	 */
+	public LoadCase(String nameOfLoadCase) {
+		this.nameOfLoadCase = nameOfLoadCase;
+		loads = new ArrayList<Load>();
+	}
+
+	/**
+	 * Adds a load which either can be a point load or a distributed load.
+	 * 
+	 * @param load The {@link Load}- object.
+	 */
+	public void addLoad(Load load) {
+		loads.add(load);
+	}
+
+	/**
+	 * Name of this load case.
+	 * 
+	 * @return Name.
+	 */
+	public String getName() {
+		return nameOfLoadCase;
+	}
+
+	/**
+	 * List of all loads of this load case.
+	 * 
+	 * @return A {@link List} of {@link Load} objects.
+	 */
+	public List<Load> getLoads() {
+		return loads;
+	}
+
+	/**
+	 * Two load cases are equal if they have the same name and the same loads in
+	 * the same order.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof LoadCase))
+			return false;
+		LoadCase l = (LoadCase) o;
+		return Objects.equals(nameOfLoadCase, l.nameOfLoadCase) && loads.equals(l.loads);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(nameOfLoadCase, loads);
+	}
+
+	/**
+	 * Count all loads of this load case.
+	 * 
+	 * @return Number of point and/ or distributed loads.
+	 */
+	public int getNumberOfLoads() {
+		return loads.size();
+	}
+}
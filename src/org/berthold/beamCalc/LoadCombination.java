@@ -0,0 +1,80 @@
+package org.berthold.beamCalc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A load combination.
+ * 
+ * Combines the {@link LoadCase}'s of a {@link Beam}, each multiplied by a
+ * factor (e.g. a partial safety factor):
+ * <p>
+ * 
+ * 1.35 x Dead load + 1.5 x Live load + 0.9 x Wind
+ * <p>
+ * 
+ * Load cases not contained in this combination do not act (factor 0).
+ * 
+ * @author Berthold
+ *
+ */
+public class LoadCombination {
+	private String nameOfCombination;
+	private Map<String, Double> factors;
+
+	/**
+	 * A new, empty load combination.
+	 * 
+	 * @param nameOfCombination Any name allowed (ULS 1, SLS.....).
+	 */
+	public LoadCombination(String nameOfCombination) {
+		this.nameOfCombination = nameOfCombination;
+		factors = new LinkedHashMap<String, Double>();
+	}
+
+	/**
+	 * Adds a load case to this combination.
+	 * 
+	 * If the load case was already added, it's factor is replaced.
+	 * 
+	 * @param nameOfLoadCase Name of the {@link LoadCase}.
+	 * @param factor         All loads of the load case are multiplied by this
+	 *                       factor.
+	 * @return This combination, so calls can be chained.
+	 */
+	public LoadCombination addLoadCase(String nameOfLoadCase, double factor) {
+		factors.put(nameOfLoadCase, factor);
+		return this;
+	}
+
+	/**
+	 * Name of this load combination.
+	 * 
+	 * @return Name.
+	 */
+	public String getName() {
+		return nameOfCombination;
+	}
+
+	/**
+	 * Factor of a load case.
+	 * 
+	 * @param nameOfLoadCase Name of the {@link LoadCase}.
+	 * @return Factor or 0 if the load case is not part of this combination.
+	 */
+	public double getFactor(String nameOfLoadCase) {
+		Double factor = factors.get(nameOfLoadCase);
+		if (factor == null)
+			return 0;
+		return factor;
+	}
+
+	/**
+	 * Names of all load cases of this combination.
+	 * 
+	 * @return Names and factors, in the order the load cases were added.
+	 */
+	public Map<String, Double> getFactors() {
+		return factors;
+	}
+}
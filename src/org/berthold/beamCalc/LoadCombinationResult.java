@@ -0,0 +1,264 @@
+package org.berthold.beamCalc;
+
+import java.util.List;
+
+/**
+ * Contains the results of all {@link LoadCombination}'s of a {@link Beam}.
+ * <p>
+ * 
+ * Supporting forces are available for each combination, Q(x) and M(x) as
+ * envelopes (biggest and smallest value of all combinations at each x). Tables
+ * of a single combination are built on demand by superposition of the load
+ * cases.
+ * <p>
+ * 
+ * Objects from this class are created by the {@link LoadCombinationSolver}-
+ * Class
+ * 
+ * @author Berthold
+ *
+ */
+public class LoadCombinationResult {
+	private Beam beam;
+	private List<LoadCombination> combinations;
+	private double[][] factors;
+	private BeamAnalysis[] caseAnalyses;
+	private double sectionLength_m;
+	private String forceUnit, momentUnit;
+	private StressResultantTable qMax, qMin, mMax, mMin;
+
+	/**
+	 * Creates a new result.
+	 * 
+	 * @param beam            The beam.
+	 * @param combinations    The load combinations.
+	 * @param factors         factors[combination][load case].
+	 * @param caseAnalyses    Result of each load case.
+	 * @param sectionLength_m Length of the sections.
+	 * @param forceUnit       Unit of Q.
+	 * @param momentUnit      Unit of M.
+	 * @param qMax            Envelope, biggest Q(x) or null.
+	 * @param qMin            Envelope, smallest Q(x) or null.
+	 * @param mMax            Envelope, biggest M(x) or null.
+	 * @param mMin            Envelope, smallest M(x) or null.
+	 */
+	LoadCombinationResult(Beam beam, List<LoadCombination> combinations, double[][] factors,
+			BeamAnalysis[] caseAnalyses, double sectionLength_m, String forceUnit, String momentUnit,
+			StressResultantTable qMax, StressResultantTable qMin, StressResultantTable mMax,
+			StressResultantTable mMin) {
+		this.beam = beam;
+		this.combinations = combinations;
+		this.factors = factors;
+		this.caseAnalyses = caseAnalyses;
+		this.sectionLength_m = sectionLength_m;
+		this.forceUnit = forceUnit;
+		this.momentUnit = momentUnit;
+		this.qMax = qMax;
+		this.qMin = qMin;
+		this.mMax = mMax;
+		this.mMin = mMin;
+	}
+
+	/**
+	 * Counts the errors of all load cases.
+	 * 
+	 * @return Number of errors. If > 0, the envelopes are null.
+	 */
+	public int getErrorCount() {
+		int errors = 0;
+		for (BeamAnalysis analysis : caseAnalyses)
+			errors = errors + analysis.getResult().getErrorCount();
+		return errors;
+	}
+
+	/**
+	 * Result of a load case.
+	 * 
+	 * @param indexOfLoadCase Index of the {@link LoadCase} as returned by
+	 *                        {@link Beam#getLoadCases()}.
+	 * @return {@link BeamAnalysis} of the load case.
+	 */
+	public BeamAnalysis getAnalysisOfLoadCase(int indexOfLoadCase) {
+		return caseAnalyses[indexOfLoadCase];
+	}
+
+	/**
+	 * Number of load combinations.
+	 * 
+	 * @return Number of combinations.
+	 */
+	public int getNumberOfCombinations() {
+		return combinations.size();
+	}
+
+	/**
+	 * Load combination.
+	 * 
+	 * @param indexOfCombination
+	 * @return The {@link LoadCombination}.
+	 */
+	public LoadCombination getCombination(int indexOfCombination) {
+		return combinations.get(indexOfCombination);
+	}
+
+	/**
+	 * Supporting forces of a combination.
+	 * 
+	 * @param indexOfCombination
+	 * @return {@link BeamResult}. Contains no solution terms.
+	 */
+	public BeamResult getResult(int indexOfCombination) {
+		BeamResult result = new BeamResult();
+		double left_N = 0, right_N = 0, horizontal_N = 0;
+
+		for (int j = 0; j <= caseAnalyses.length - 1; j++) {
+			BeamResult caseResult = caseAnalyses[j].getResult();
+			for (int e = 0; e <= caseResult.getErrorCount() - 1; e++)
+				result.addError(caseResult.getError(e));
+
+			double factor = factors[indexOfCombination][j];
+			left_N = left_N + factor * caseResult.getResultingForceAtLeftBearing_N();
+			right_N = right_N + factor * caseResult.getResultingForceAtRightBearing_N();
+			horizontal_N = horizontal_N + factor * caseResult.getResultingHorizontalForceAtRightSupport_N();
+		}
+		result.setResultingForceAtLeftBearingBearing_N(left_N);
+		result.setResultingForceAtRightBearing_N(right_N);
+		result.setResultingHorizontalForceAtRightSupport_N(horizontal_N);
+		return result;
+	}
+
+	/**
+	 * Supporting forces, Q(x), M(x) and N(x) of a combination.
+	 * 
+	 * The tables are built by superposition of the load cases. Maxima, zero
+	 * points and discontinuities are marked, so the tables can be drawn.
+	 * 
+	 * @param indexOfCombination
+	 * @return {@link BeamAnalysis}. If the result contains errors, the tables are
+	 *         null.
+	 */
+	public BeamAnalysis getAnalysis(int indexOfCombination) {
+		BeamResult result = getResult(indexOfCombination);
+		if (result.getErrorCount() > 0)
+			return new BeamAnalysis(result, null, null, null);
+
+		StressResultantTable qTable = new StressResultantTable(beam, sectionLength_m, forceUnit);
+		StressResultantTable mTable = new StressResultantTable(beam, sectionLength_m, momentUnit);
+		StressResultantTable nTable = new StressResultantTable(beam, sectionLength_m, forceUnit);
+
+		for (int j = 0; j <= caseAnalyses.length - 1; j++) {
+			double factor = factors[indexOfCombination][j];
+			if (factor == 0)
+				continue;
+			StressResultantTable caseQ = caseAnalyses[j].getQTable();
+			StressResultantTable caseM = caseAnalyses[j].getMTable();
+			StressResultantTable caseN = caseAnalyses[j].getNTable();
+
+			for (int n = 0; n <= qTable.getLength() - 1; n++) {
+				qTable.addValueAtIndex(n, factor * caseQ.getValueAtIndex(n));
+				mTable.addValueAtIndex(n, factor * caseM.getValueAtIndex(n));
+				nTable.addValueAtIndex(n, factor * caseN.getValueAtIndex(n));
+			}
+		}
+
+		boolean[] casesUsed = new boolean[caseAnalyses.length];
+		for (int j = 0; j <= caseAnalyses.length - 1; j++)
+			casesUsed[j] = factors[indexOfCombination][j] != 0;
+		LoadCombinationSolver.markShearingForces(qTable, caseAnalyses, casesUsed);
+		LoadCombinationSolver.markBendingMoments(qTable, mTable, true);
+		return new BeamAnalysis(result, qTable, mTable, nTable);
+	}
+
+	/**
+	 * Biggest supporting force at the left support of all combinations.
+	 * 
+	 * @return Force or 0 if there are no combinations.
+	 */
+	public double getMaxResultingForceAtLeftBearing_N() {
+		return getEnvelopeOfReactions(true, true);
+	}
+
+	/**
+	 * Smallest supporting force at the left support of all combinations.
+	 * 
+	 * @return Force or 0 if there are no combinations.
+	 */
+	public double getMinResultingForceAtLeftBearing_N() {
+		return getEnvelopeOfReactions(true, false);
+	}
+
+	/**
+	 * Biggest supporting force at the right support of all combinations.
+	 * 
+	 * @return Force or 0 if there are no combinations.
+	 */
+	public double getMaxResultingForceAtRightBearing_N() {
+		return getEnvelopeOfReactions(false, true);
+	}
+
+	/**
+	 * Smallest supporting force at the right support of all combinations.
+	 * 
+	 * @return Force or 0 if there are no combinations.
+	 */
+	public double getMinResultingForceAtRightBearing_N() {
+		return getEnvelopeOfReactions(false, false);
+	}
+
+	/**
+	 * Envelope, biggest shearing forces of all combinations.
+	 * 
+	 * @return max Q(x) or null if there are errors.
+	 */
+	public StressResultantTable getQMaxTable() {
+		return qMax;
+	}
+
+	/**
+	 * Envelope, smallest shearing forces of all combinations.
+	 * 
+	 * @return min Q(x) or null if there are errors.
+	 */
+	public StressResultantTable getQMinTable() {
+		return qMin;
+	}
+
+	/**
+	 * Envelope, biggest bending moments of all combinations.
+	 * 
+	 * @return max M(x) or null if there are errors.
+	 */
+	public StressResultantTable getMMaxTable() {
+		return mMax;
+	}
+
+	/**
+	 * Envelope, smallest bending moments of all combinations.
+	 * 
+	 * @return min M(x) or null if there are errors.
+	 */
+	public StressResultantTable getMMinTable() {
+		return mMin;
+	}
+
+	/*
+	 * Biggest or smallest supporting force at the left or right support.
+	 */
+	private double getEnvelopeOfReactions(boolean leftSupport, boolean max) {
+		double envelope_N = 0;
+
+		for (int c = 0; c <= combinations.size() - 1; c++) {
+			double force_N = 0;
+			for (int j = 0; j <= caseAnalyses.length - 1; j++) {
+				BeamResult caseResult = caseAnalyses[j].getResult();
+				if (leftSupport)
+					force_N = force_N + factors[c][j] * caseResult.getResultingForceAtLeftBearing_N();
+				else
+					force_N = force_N + factors[c][j] * caseResult.getResultingForceAtRightBearing_N();
+			}
+			if (c == 0 || (max && force_N > envelope_N) || (!max && force_N < envelope_N))
+				envelope_N = force_N;
+		}
+		return envelope_N;
+	}
+}
@@ -0,0 +1,225 @@
+package org.berthold.beamCalc;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solves all {@link LoadCombination}'s of a {@link Beam}.
+ * <p>
+ * 
+ * Each {@link LoadCase} of the beam is solved only once by the
+ * {@link QMNSolver}. Supporting forces, Q(x) and M(x) of a combination are
+ * obtained by linear superposition:
+ * <p>
+ * 
+ * Q(x)=f1 x Q1(x) + f2 x Q2(x) + .... + fn x Qn(x)
+ * <p>
+ * 
+ * The envelopes (biggest and smallest value of all combinations at each x) are
+ * built in one walk along the beam. No table is created for a single
+ * combination unless it is asked for (see
+ * {@link LoadCombinationResult#getAnalysis(int)}).
+ * <p>
+ * 
+ * Only the load cases of the beam are taken into account, loads added directly
+ * to the beam are ignored.
+ * 
+ * @author Berthold
+ *
+ */
+public class LoadCombinationSolver {
+
+	private static final double DEFAULT_SECTION_LENGTH_M = .001;
+
+	/**
+	 * Solves all load combinations.
+	 * 
+	 * Uses sections of 1 mm, same as the {@link QSolver}.
+	 * 
+	 * @param beam         A {@link Beam}- object containing the load cases.
+	 * @param combinations The load combinations.
+	 * @param forceUnit    Unit of Q (N, kN.....).
+	 * @param momentUnit   Unit of M (Nm, kNm.....).
+	 * @return {@link LoadCombinationResult}
+	 */
+	public static LoadCombinationResult solve(Beam beam, List<LoadCombination> combinations, String forceUnit,
+			String momentUnit) {
+		return solve(beam, combinations, DEFAULT_SECTION_LENGTH_M, forceUnit, momentUnit);
+	}
+
+	/**
+	 * Solves all load combinations.
+	 * 
+	 * @param beam            A {@link Beam}- object containing the load cases.
+	 * @param combinations    The load combinations.
+	 * @param sectionLength_m Length of the sections the beam is divided into.
+	 * @param forceUnit       Unit of Q (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @return {@link LoadCombinationResult}. If any load case could not be
+	 *         solved, the result contains it's errors and no envelopes.
+	 * @throws IllegalArgumentException If a combination contains a load case the
+	 *                                  beam does not have.
+	 */
+	public static LoadCombinationResult solve(Beam beam, List<LoadCombination> combinations,
+			double sectionLength_m, String forceUnit, String momentUnit) {
+
+		List<LoadCase> loadCases = beam.getLoadCases();
+		int numberOfCases = loadCases.size();
+		int numberOfCombinations = combinations.size();
+
+		// Factors of each load case for each combination
+		double[][] factors = new double[numberOfCombinations][numberOfCases];
+		for (int c = 0; c <= numberOfCombinations - 1; c++) {
+			LoadCombination combination = combinations.get(c);
+			for (String nameOfLoadCase : combination.getFactors().keySet())
+				if (beam.getLoadCase(nameOfLoadCase) == null)
+					throw new IllegalArgumentException("Combination " + combination.getName()
+							+ " contains unknown load case:" + nameOfLoadCase);
+			for (int j = 0; j <= numberOfCases - 1; j++)
+				factors[c][j] = combination.getFactor(loadCases.get(j).getName());
+		}
+
+		// Solve each load case once
+		BeamAnalysis[] caseAnalyses = new BeamAnalysis[numberOfCases];
+		boolean hasErrors = false;
+		for (int j = 0; j <= numberOfCases - 1; j++) {
+			caseAnalyses[j] = QMNSolver.solve(getBeamOfLoadCase(beam, loadCases.get(j)), sectionLength_m,
+					forceUnit, momentUnit);
+			if (caseAnalyses[j].getResult().getErrorCount() > 0)
+				hasErrors = true;
+		}
+
+		if (hasErrors)
+			return new LoadCombinationResult(beam, combinations, factors, caseAnalyses, sectionLength_m, forceUnit,
+					momentUnit, null, null, null, null);
+
+		// Envelopes. At each x, the values of all load cases are fetched once
+		// and then combined.
+		StressResultantTable qMax = new StressResultantTable(beam, sectionLength_m, forceUnit);
+		StressResultantTable qMin = new StressResultantTable(beam, sectionLength_m, forceUnit);
+		StressResultantTable mMax = new StressResultantTable(beam, sectionLength_m, momentUnit);
+		StressResultantTable mMin = new StressResultantTable(beam, sectionLength_m, momentUnit);
+
+		double[] q_N = new double[numberOfCases];
+		double[] m_Nm = new double[numberOfCases];
+
+		for (int n = 0; n <= qMax.getLength() - 1; n++) {
+			for (int j = 0; j <= numberOfCases - 1; j++) {
+				q_N[j] = caseAnalyses[j].getQTable().getValueAtIndex(n);
+				m_Nm[j] = caseAnalyses[j].getMTable().getValueAtIndex(n);
+			}
+
+			double qMax_N = Double.NEGATIVE_INFINITY, qMin_N = Double.POSITIVE_INFINITY;
+			double mMax_Nm = Double.NEGATIVE_INFINITY, mMin_Nm = Double.POSITIVE_INFINITY;
+
+			for (int c = 0; c <= numberOfCombinations - 1; c++) {
+				double qCombined_N = 0, mCombined_Nm = 0;
+				for (int j = 0; j <= numberOfCases - 1; j++) {
+					qCombined_N = qCombined_N + factors[c][j] * q_N[j];
+					mCombined_Nm = mCombined_Nm + factors[c][j] * m_Nm[j];
+				}
+				qMax_N = Math.max(qMax_N, qCombined_N);
+				qMin_N = Math.min(qMin_N, qCombined_N);
+				mMax_Nm = Math.max(mMax_Nm, mCombined_Nm);
+				mMin_Nm = Math.min(mMin_Nm, mCombined_Nm);
+			}
+
+			if (numberOfCombinations > 0) {
+				qMax.setValueAtIndex(n, qMax_N);
+				qMin.setValueAtIndex(n, qMin_N);
+				mMax.setValueAtIndex(n, mMax_Nm);
+				mMin.setValueAtIndex(n, mMin_Nm);
+			}
+		}
+
+		// Maxima, zero points and discontinuities, same as for a single beam
+		boolean[] casesUsed = new boolean[numberOfCases];
+		for (int c = 0; c <= numberOfCombinations - 1; c++)
+			for (int j = 0; j <= numberOfCases - 1; j++)
+				casesUsed[j] = casesUsed[j] || factors[c][j] != 0;
+
+		markShearingForces(qMax, caseAnalyses, casesUsed);
+		markShearingForces(qMin, caseAnalyses, casesUsed);
+		markBendingMoments(qMax, mMax, false);
+		markBendingMoments(qMin, mMin, false);
+
+		return new LoadCombinationResult(beam, combinations, factors, caseAnalyses, sectionLength_m, forceUnit,
+				momentUnit, qMax, qMin, mMax, mMin);
+	}
+
+	/**
+	 * Marks zero points of superposed shearing forces and carries over the
+	 * discontinuities and names of the load cases.
+	 * 
+	 * @param qTable       Q(x), superposed.
+	 * @param caseAnalyses Solution of each load case.
+	 * @param casesUsed    Load cases contributing to Q(x).
+	 */
+	static void markShearingForces(StressResultantTable qTable, BeamAnalysis[] caseAnalyses, boolean[] casesUsed) {
+		double[] q_N = qTable.getValueArray();
+		byte[] flags = qTable.getFlagArray();
+		int length = qTable.getLength();
+
+		for (int j = 0; j <= caseAnalyses.length - 1; j++) {
+			if (!casesUsed[j])
+				continue;
+			StressResultantTable caseQ = caseAnalyses[j].getQTable();
+			for (int n = 0; n <= length - 1; n++)
+				if (caseQ.isDiscontiunuityAtIndex(n))
+					flags[n] = (byte) (flags[n] | StressResultantTable.FLAG_DISCONTIUNUITY);
+			for (Map.Entry<Integer, String> name : caseQ.getNames().entrySet())
+				qTable.setNameAtIndex(name.getKey(), name.getValue());
+		}
+
+		StressResultantKernels.forEachChunk(0, length - 1, (from, to) -> StressResultantKernels.markSignChanges(q_N,
+				flags, StressResultantTable.FLAG_ZERO_POINT, from, to));
+	}
+
+	/**
+	 * Marks zero points, local maxima and discontinuities of superposed bending
+	 * moments, same as the {@link MSolver} does.
+	 * 
+	 * The local maxima of a combination are the zero points of its Q(x). An
+	 * envelope is built from different combinations along the beam, so its
+	 * maxima are taken from the slope of M(x) itself.
+	 * 
+	 * @param qTable        Q(x) belonging to M(x), already marked.
+	 * @param mTable        M(x), superposed.
+	 * @param isCombination True for a single combination, false for an
+	 *                      envelope.
+	 */
+	static void markBendingMoments(StressResultantTable qTable, StressResultantTable mTable, boolean isCombination) {
+		double[] m_Nm = mTable.getValueArray();
+		byte[] flags = mTable.getFlagArray();
+		int length = mTable.getLength();
+
+		StressResultantKernels.forEachChunk(0, length - 1, (from, to) -> StressResultantKernels.markSignChanges(m_Nm,
+				flags, StressResultantTable.FLAG_ZERO_POINT, from, to));
+		mTable.setZeroPointAtIndex(length - 1, true);
+
+		mTable.setMaximaAtIndex(0, true);
+		for (int n = 0; n <= length - 2; n++) {
+			if (isCombination ? qTable.isZeroPointAtIndex(n)
+					: n > 0 && Math.signum(m_Nm[n] - m_Nm[n - 1]) != Math.signum(m_Nm[n + 1] - m_Nm[n]))
+				mTable.setMaximaAtIndex(n, true);
+
+			if (qTable.isDiscontiunuityAtIndex(n) && !mTable.isMaximaAtIndex(n)) {
+				mTable.setDiscontiunuityAtIndex(n, true);
+				mTable.setShearingForceDeltaByAtIndex(n, m_Nm[n + 1]);
+			}
+		}
+	}
+
+	/*
+	 * A beam with the same length and supports as the beam passed, carrying the
+	 * loads of the load case.
+	 */
+	private static Beam getBeamOfLoadCase(Beam beam, LoadCase loadCase) {
+		Beam beamOfLoadCase = new Beam(beam.getLength());
+		for (int i = 0; i <= beam.getNumberOfBearings() - 1; i++)
+			beamOfLoadCase.addBearing(beam.getBearing(i));
+		for (Load load : loadCase.getLoads())
+			beamOfLoadCase.addLoad(load);
+		return beamOfLoadCase;
+	}
+}
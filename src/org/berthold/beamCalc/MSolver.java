@@ -6,9 +6,10 @@ import java.util.List;
 /**
  * Calculates the bending moments along the length of a {@link Beam}- object.
  * Q(x) => M(x)
- * </p>
+ * <p>
  * 
- * FOR THE TIME BEEING THIS WORKS NOT FOR UNEVENLY DISTRIBUTED LOADS
+ * Tables with many sections are integrated by all cores, see
+ * {@link StressResultantKernels}.
  * </p>
  * 
  * @author Berthold
@@ -24,9 +25,12 @@ public class MSolver {
 	 * Calculates the bending moments along the beam.
 	 * 
 	 * Algorithm:<br>
-	 * q(n+1)-q(n) x X (distance from left end of beam)
+	 * M(n)=M(n-1)+Q(n-1) x section length, summed up compensated (see
+	 * {@link StressResultantKernels}).
 	 * 
 	 * @param qTable
+	 *            Q(x), a table with sections of equal length (see
+	 *            {@link StressResultantTable#isUniform()}).
 	 * @param beam
 	 * @param unit
 	 *            The unit (N, kN.....).
@@ -34,53 +38,110 @@ public class MSolver {
 	 *         bending moments along the beam => M(x).
 	 */
 	public static StressResultantTable solve(StressResultantTable qTable, Beam beam, String unit) {
+		return solve(qTable, new StressResultantTable(beam, qTable.getSectionLength_m(), unit));
+	}
 
-		StressResultantTable mTable = new StressResultantTable(beam, qTable.getSectionLength_m(), unit);
+	/**
+	 * Calculates the bending moments along the beam.
+	 * 
+	 * Same as {@link #solve(StressResultantTable, Beam, String)}.
+	 * 
+	 * @param qTable
+	 *            Q(x), a table with sections of equal length.
+	 * @param beam
+	 *            A {@link BeamSnapshot} of the beam.
+	 * @param unit
+	 *            The unit (N, kN.....).
+	 * @return M(x)
+	 */
+	public static StressResultantTable solve(StressResultantTable qTable, BeamSnapshot beam, String unit) {
+		return solve(qTable, new StressResultantTable(beam, qTable.getSectionLength_m(), unit));
+	}
 
-		double m_Nm = 0;
-		double m1_Nm = 0;
-		double q_N, q1_N;
-		double deltaM_Nm = 0;
+	/*
+	 * Integrates Q(x) into the empty table passed.
+	 */
+	private static StressResultantTable solve(StressResultantTable qTable, StressResultantTable mTable) {
 		double sectionLength_m = mTable.getSectionLength_m();
-		double x = 0;
+		int length = mTable.getLength();
 
-		mTable.getShearingForceAtIndex(0).setMaxima(true);
-		
-		for (int n = 0; n <= qTable.getLength() - 2; n++) {
+		double[] q_N = qTable.isReadOnly() ? copyValues(qTable) : qTable.getValueArray();
+		double[] m_Nm = mTable.getValueArray();
 
-			q_N = qTable.getShearingForceAtIndex(n).getShearingForce();
+		// M(n)=M(n-1)+deltaM(n)
+		StressResultantKernels.forEachChunk(1, length,
+				(from, to) -> StressResultantKernels.momentDeltas(q_N, m_Nm, from, to, sectionLength_m));
+		StressResultantKernels.parallelPrefixSum(m_Nm, 1, length);
 
-			q1_N = qTable.getShearingForceAtIndex(n + 1).getShearingForce();
-			double deltaQ_N = q1_N - q_N;
+		// Check for zero points in M(x)
+		byte[] flags = mTable.getFlagArray();
+		StressResultantKernels.forEachChunk(0, length - 1, (from, to) -> StressResultantKernels.markSignChanges(m_Nm,
+				flags, StressResultantTable.FLAG_ZERO_POINT, from, to));
 
-			m_Nm = q_N * x;
-			m1_Nm = q1_N * (x + sectionLength_m);
-			deltaM_Nm = m1_Nm - m_Nm;
+		mTable.setMaximaAtIndex(0, true);
+		StressResultantKernels.forEachChunk(0, length - 1,
+				(from, to) -> markMaximaAndDiscontinuities(qTable, mTable, from, to));
 
-			m_Nm = mTable.getShearingForceAtIndex(n).getShearingForce();
-			mTable.getShearingForceAtIndex(n + 1).setShearingForce(m_Nm + deltaM_Nm);
+		mTable.setValueAtIndex(length - 1, 0);
+		mTable.setZeroPointAtIndex(length - 1, true);
+		return mTable;
+	}
+
+	/*
+	 * Zero points and discontinuities of Q(x) from index 'from' to 'to'
+	 * (exclusive). Only changes these sections, so chunks can be processed in
+	 * parallel.
+	 */
+	private static void markMaximaAndDiscontinuities(StressResultantTable qTable, StressResultantTable mTable,
+			int from, int to) {
+		for (int n = from; n < to; n++) {
 
 			// Check for zero points in Q(x). Zero points are local
 			// maxima in M(x).
-			if (qTable.getShearingForceAtIndex(n).isZeroPoint())
-				mTable.getShearingForceAtIndex(n).setMaxima(true);
+			if (qTable.isZeroPointAtIndex(n))
+				mTable.setMaximaAtIndex(n, true);
 
 			// Check for disconuinity in Q(x) because
 			// M(x) must also be a diconuinity or a local maxima/ minima
-			if (qTable.getShearingForceAtIndex(n).isDiscontiunuity() && !mTable.getShearingForceAtIndex(n).isMaxima()) {
-				mTable.getShearingForceAtIndex(n).setDiscontiunuity(true);
-				mTable.getShearingForceAtIndex(n).setShearingForceDeltaBy(m_Nm + deltaM_Nm);
+			if (qTable.isDiscontiunuityAtIndex(n) && !mTable.isMaximaAtIndex(n)) {
+				mTable.setDiscontiunuityAtIndex(n, true);
+				mTable.setShearingForceDeltaByAtIndex(n, mTable.getValueAtIndex(n + 1));
 			}
-			
-			if (Math.signum(mTable.getShearingForceAtIndex(n).getShearingForce()) != Math.signum(mTable.getShearingForceAtIndex(n+1).getShearingForce()))
-				mTable.getShearingForceAtIndex(n).setZeroPoint(true);
-
-			// Next
-			x = x + sectionLength_m / (1 / sectionLength_m);
 		}
+	}
 
-		mTable.getShearingForceAtIndex(mTable.getLength() - 1).setShearingForce(0);
-		mTable.getShearingForceAtIndex(mTable.getLength() - 1).setZeroPoint(true);
-		return mTable;
+	/*
+	 * Values of a read only table, whose array can not be accessed.
+	 */
+	private static double[] copyValues(StressResultantTable table) {
+		double[] values = new double[table.getLength()];
+		for (int n = 0; n <= values.length - 1; n++)
+			values[n] = table.getValueAtIndex(n);
+		return values;
+	}
+
+	/**
+	 * Calculates the bending moments along the beam on an adaptive grid.
+	 * 
+	 * M(x) is obtained from the {@link AnalyticSolver} and sampled densely near
+	 * discontinuities, zero points and where M(x) is strongly curved, sparse
+	 * elsewhere (see
+	 * {@link StressResultantFunction#toAdaptiveTable(Beam, double)}).
+	 * 
+	 * @param beam
+	 * @param unit
+	 *            The unit (N, kN.....).
+	 * @param tolerance
+	 *            Maximum deviation of the table from the exact bending moments,
+	 *            in the unit passed.
+	 * @return A table of {@link StressResultant}- objects containing the
+	 *         bending moments along the beam => M(x) or null if the beam could
+	 *         not be solved.
+	 */
+	public static StressResultantTable solveAdaptive(Beam beam, String unit, double tolerance) {
+		StressResultantFunction qFunction = AnalyticSolver.solveQ(beam, "N");
+		if (qFunction == null)
+			return null;
+		return AnalyticSolver.solveM(qFunction, unit).toAdaptiveTable(beam, tolerance);
 	}
-}
\ No newline at end of file
+}
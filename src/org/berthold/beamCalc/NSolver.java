@@ -1,8 +1,5 @@
 package org.berthold.beamCalc;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Calculates the normal forces along the length of a {@link Beam}- object. N(x)
  * 
@@ -33,62 +30,79 @@ public class NSolver {
 	 *         beam. If the beam has no pin support, null is returned.
 	 */
 	public static StressResultantTable solve(Beam beam,String unit) {
+		return solve(new BeamSnapshot(beam), unit);
+	}
 
-		final double sectionLength_m = 0.001; // Small values lead to more accurate results.
-
-		StressResultantTable nTable = new StressResultantTable(beam, sectionLength_m,unit);
+	/**
+	 * Calculates the normal forces along the length of the beam.
+	 * 
+	 * Same as {@link #solve(Beam, String)}.
+	 * 
+	 * @param beam A {@link BeamSnapshot} of the beam.
+	 * @param unit The unit (N, kN.....).
+	 * @return {@link StressResultantTable} containing the normal forces along the
+	 *         beam.
+	 */
+	public static StressResultantTable solve(BeamSnapshot beam, String unit) {
+		return solve(beam, 0.001, unit); // Small values lead to more accurate results.
+	}
 
-		// Add all point loads
-		List<Load> singleLoads = new ArrayList<Load>();
-		singleLoads = beam.getLoadsSortedByDistanceFromLeftSupportDesc();
+	/**
+	 * Calculates the normal forces along the length of the beam.
+	 * 
+	 * @param beam            A {@link Beam}- object.
+	 * @param sectionLength_m Length of the sections the beam is divided into.
+	 * @param unit            The unit (N, kN.....).
+	 * @return {@link StressResultantTable} containing the normal forces along the
+	 *         beam.
+	 */
+	public static StressResultantTable solve(Beam beam, double sectionLength_m, String unit) {
+		return solve(new BeamSnapshot(beam), sectionLength_m, unit);
+	}
 
-		for (Load load : singleLoads)
-			if (load.getLengthOfLineLoad_m() == 0) {
-				double angleOfLoadInRadians = load.getAngleOfLoad_degrees() * Math.PI / 180;
-				double horizontalLoad = load.getForce_N() * Math.sin(angleOfLoadInRadians);
-				Load h = new Load("Hn", horizontalLoad, load.getDistanceFromLeftEndOfBeam_m(), 0, 0);
-				nTable.addForce(h);
-			}
+	/**
+	 * Calculates the normal forces along the length of the beam.
+	 * 
+	 * Tables with many sections are summed up by all cores, see
+	 * {@link StressResultantKernels}.
+	 * 
+	 * @param beam            A {@link BeamSnapshot} of the beam.
+	 * @param sectionLength_m Length of the sections the beam is divided into.
+	 * @param unit            The unit (N, kN.....).
+	 * @return {@link StressResultantTable} containing the normal forces along the
+	 *         beam.
+	 */
+	public static StressResultantTable solve(BeamSnapshot beam, double sectionLength_m, String unit) {
 
-		// Get position of pin support (at this support normal forces are 0
-		double xPosOfPinSupport_m = 0;
+		StressResultantTable nTable = new StressResultantTable(beam, sectionLength_m, unit);
 
-		if (beam.getBearing(0).getType() == Support.PIN_SUPPORT)
-			xPosOfPinSupport_m = beam.getBearing(0).getDistanceFromLeftEndOfBeam_m();
-		else {
-			if (beam.getBearing(1).getType() == Support.PIN_SUPPORT)
-				xPosOfPinSupport_m = beam.getBearing(1).getDistanceFromLeftEndOfBeam_m();
-			}
+		// Add all point loads
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++)
+			nTable.addForce("Hn", beam.getHorizontalForceOfPointLoad_N(i), beam.getXOfPointLoad_m(i));
 
-			// Calculate normal forces from existing table and write results back
-			// Calculate from left beam end in the direction of the pin support
-			StressResultant nn_N, nn1_N;
-			double x = 0;
-			for (int n = 0; n <= nTable.getLength() - 2; n++) {
-				nn_N = nTable.getShearingForceAtIndex(n);
-				nn1_N = nTable.getShearingForceAtIndex(n + 1);
+		// Get position of pin support (at this support normal forces are 0
+		double xPosOfPinSupport_m = beam.getXOfPinSupport_m();
+		int length = nTable.getLength();
 
-				x = x + sectionLength_m;
+		// Sections left of the pin support. Summed up from the left beam end in
+		// the direction of the pin support: Nn+1=Nn+1 + Nn as long as x(n+1) is
+		// left of the pin support. Positions are n x section length.
+		int sectionsLeft = Math.max(0, Math.min(length - 1,
+				(int) Math.ceil(xPosOfPinSupport_m / sectionLength_m - StressResultantTable.SECTION_BORDER_TOLERANCE)
+						- 1));
 
-				if (x < xPosOfPinSupport_m) {
-					nn1_N.addValue(nn_N.getShearingForce());
-					nTable.setAtIndex(n + 1, nn1_N);
-				}
-			}
-			
-			// Calculate from the right end of the beam in the direction of the pin support.
-			x=beam.getLength();
-			for (int n=nTable.getLength()-1;n>1;n--) {
-				nn_N = nTable.getShearingForceAtIndex(n);
-				nn1_N = nTable.getShearingForceAtIndex(n - 1);
+		// Sections right of the pin support, summed up from the right end of the
+		// beam in the direction of the pin support.
+		int sectionsRight = Math.max(0, Math.min(length - 2, (int) Math.ceil(
+				(beam.getLength() - xPosOfPinSupport_m) / sectionLength_m - StressResultantTable.SECTION_BORDER_TOLERANCE)
+				- 1));
 
-				x = x - sectionLength_m;
+		double[] n_N = nTable.getValueArray();
+		if (sectionsLeft > 0)
+			StressResultantKernels.parallelPrefixSum(n_N, 0, sectionsLeft + 1);
+		if (sectionsRight > 0)
+			StressResultantKernels.parallelSuffixSum(n_N, length - 1 - sectionsRight, length);
 
-				if (x > xPosOfPinSupport_m) {
-					nn1_N.addValue(nn_N.getShearingForce());
-					nTable.setAtIndex(n - 1, nn1_N);
-				}
-			}
 		return nTable;
 	}
 }
@@ -0,0 +1,188 @@
+package org.berthold.beamCalc;
+
+/**
+ * Calculates the supporting forces and the stress resultants Q(x), M(x) and
+ * N(x) of a {@link Beam} in one go.
+ * <p>
+ * 
+ * The results are the same as those obtained by the {@link BeamSolver}, the
+ * {@link QSolver}, the {@link MSolver} and the {@link NSolver}, but:
+ * <p>
+ * 
+ * The supporting forces are calculated only once.<br>
+ * Q, M and N are calculated in one single walk along the beam: For each section
+ * the line loads are superimposed, Q(x) is summed up, M(x) is integrated from
+ * Q(x) and N(x) is summed up. Maxima, zero points and discontinuities are
+ * marked on the way.
+ * <p>
+ * 
+ * Normal forces left of the pin support are summed up from the left end of the
+ * beam, those right of the pin support from the right end. This is done in the
+ * same walk by subtracting the forces passed from the sum of all forces right
+ * of the pin support.
+ * 
+ * @author Berthold
+ *
+ */
+public class QMNSolver {
+
+	private static final double DEFAULT_SECTION_LENGTH_M = .001;
+
+	/**
+	 * Calculates the supporting forces and Q(x), M(x) and N(x).
+	 * 
+	 * Uses sections of 1 mm, same as the {@link QSolver}.
+	 * 
+	 * @param beam       A {@link Beam}- object.
+	 * @param forceUnit  Unit of Q and N (N, kN.....).
+	 * @param momentUnit Unit of M (Nm, kNm.....).
+	 * @return {@link BeamAnalysis}
+	 */
+	public static BeamAnalysis solve(Beam beam, String forceUnit, String momentUnit) {
+		return solve(beam, DEFAULT_SECTION_LENGTH_M, forceUnit, momentUnit);
+	}
+
+	/**
+	 * Calculates the supporting forces and Q(x), M(x) and N(x).
+	 * 
+	 * @param beam            A {@link Beam}- object.
+	 * @param sectionLength_m Length of the sections the beam is divided into.
+	 *                        Small values lead to more precise results.
+	 * @param forceUnit       Unit of Q and N (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @return {@link BeamAnalysis}. If the {@link BeamResult} contains errors,
+	 *         the tables are null.
+	 */
+	public static BeamAnalysis solve(Beam beam, double sectionLength_m, String forceUnit, String momentUnit) {
+		return solve(new BeamSnapshot(beam), sectionLength_m, forceUnit, momentUnit);
+	}
+
+	/**
+	 * Calculates the supporting forces and Q(x), M(x) and N(x).
+	 * 
+	 * Same as {@link #solve(Beam, double, String, String)}, but neither sorts the
+	 * loads nor creates an object for each load.
+	 * 
+	 * @param beam            A {@link BeamSnapshot} of the beam.
+	 * @param sectionLength_m Length of the sections the beam is divided into.
+	 * @param forceUnit       Unit of Q and N (N, kN.....).
+	 * @param momentUnit      Unit of M (Nm, kNm.....).
+	 * @return {@link BeamAnalysis}. If the {@link BeamResult} contains errors,
+	 *         the tables are null.
+	 */
+	public static BeamAnalysis solve(BeamSnapshot beam, double sectionLength_m, String forceUnit,
+			String momentUnit) {
+
+		BeamResult result = BeamSolver.getReactions(beam);
+		if (result.getErrorCount() > 0)
+			return new BeamAnalysis(result, null, null, null);
+
+		StressResultantTable qTable = new StressResultantTable(beam, sectionLength_m, forceUnit);
+		StressResultantTable mTable = new StressResultantTable(beam, sectionLength_m, momentUnit);
+		StressResultantTable nTable = new StressResultantTable(beam, sectionLength_m, forceUnit);
+
+		// Add supporting forces
+		qTable.addForce(beam.getNameOfLeftSupport(), result.getResultingForceAtLeftBearing_N(),
+				beam.getXOfLeftSupport_m());
+		qTable.addForce(beam.getNameOfRightSupport(), result.getResultingForceAtRightBearing_N(),
+				beam.getXOfRightSupport_m());
+
+		// Get position of pin support (at this support normal forces are 0)
+		int pinSupport = nTable.getIndexOfSection(beam.getXOfPinSupport_m());
+
+		// Add loads. Point loads are split into their vertical (Q) and
+		// horizontal (N) part. Line loads are only registered, they are
+		// superimposed while walking along the beam.
+		double sumOfNormalForcesRightOfPin_N = 0;
+
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++) {
+			double x_m = beam.getXOfPointLoad_m(i);
+			double horizontalLoad = beam.getHorizontalForceOfPointLoad_N(i);
+
+			qTable.addForce(beam.getNameOfPointLoad(i), beam.getVerticalForceOfPointLoad_N(i), x_m);
+			nTable.addForce("Hn", horizontalLoad, x_m);
+			if (nTable.getIndexOfSection(x_m) > pinSupport)
+				sumOfNormalForcesRightOfPin_N = sumOfNormalForcesRightOfPin_N + horizontalLoad;
+		}
+
+		for (int i = 0; i <= beam.getNumberOfLineLoads() - 1; i++)
+			qTable.addDistributedLoad(beam.getStartOfLineLoad_m(i), beam.getLengthOfLineLoad_m(i),
+					beam.getForceStartOfLineLoad_N(i), beam.getForceEndOfLineLoad_N(i));
+		DistributedLoadAccumulator lineLoads = qTable.takeDistributedLoads();
+
+		// Walk along the beam
+		int length = qTable.getLength();
+		double q_N = 0, qLast_N = 0;
+		double m_Nm = 0, mLast_Nm = 0;
+
+		// Running sums of Q and M and the parts lost by rounding, same as the
+		// StressResultantKernels do
+		double qSum_N = 0, qCompensation_N = 0;
+		double mSum_Nm = 0, mCompensation_Nm = 0;
+		double nFromLeft_N = 0;
+		double nFromRight_N = sumOfNormalForcesRightOfPin_N;
+
+		mTable.setMaximaAtIndex(0, true);
+
+		for (int n = 0; n <= length - 1; n++) {
+
+			// Q
+			double deltaQ_N = qTable.getValueAtIndex(n);
+			if (lineLoads != null)
+				deltaQ_N = deltaQ_N + lineLoads.next(n);
+			double t = qSum_N + deltaQ_N;
+			qCompensation_N = qCompensation_N + StressResultantKernels.lostByRounding(qSum_N, deltaQ_N, t);
+			qSum_N = t;
+			q_N = qSum_N + qCompensation_N;
+			qTable.setValueAtIndex(n, q_N);
+
+			// N
+			double h_N = nTable.getValueAtIndex(n);
+			if (n < pinSupport) {
+				nFromLeft_N = nFromLeft_N + h_N;
+				nTable.setValueAtIndex(n, nFromLeft_N);
+			} else if (n > pinSupport) {
+				nTable.setValueAtIndex(n, nFromRight_N);
+				nFromRight_N = nFromRight_N - h_N;
+			}
+
+			if (n == 0) {
+				qLast_N = q_N;
+				continue;
+			}
+
+			// Zero points of Q are known as soon as the next value is known
+			if (Math.signum(qLast_N) != Math.signum(q_N))
+				qTable.setZeroPointAtIndex(n - 1, true);
+
+			// M, same algorithm as the MSolver uses
+			double deltaM_Nm = qLast_N * sectionLength_m;
+			t = mSum_Nm + deltaM_Nm;
+			mCompensation_Nm = mCompensation_Nm + StressResultantKernels.lostByRounding(mSum_Nm, deltaM_Nm, t);
+			mSum_Nm = t;
+			m_Nm = mSum_Nm + mCompensation_Nm;
+			mTable.setValueAtIndex(n, m_Nm);
+
+			// Zero points of Q(x) are local maxima of M(x), discontinuities of
+			// Q(x) are discontinuities of M(x)
+			if (qTable.isZeroPointAtIndex(n - 1))
+				mTable.setMaximaAtIndex(n - 1, true);
+
+			if (qTable.isDiscontiunuityAtIndex(n - 1) && !mTable.isMaximaAtIndex(n - 1)) {
+				mTable.setDiscontiunuityAtIndex(n - 1, true);
+				mTable.setShearingForceDeltaByAtIndex(n - 1, m_Nm);
+			}
+
+			if (Math.signum(mLast_Nm) != Math.signum(m_Nm))
+				mTable.setZeroPointAtIndex(n - 1, true);
+
+			mLast_Nm = m_Nm;
+			qLast_N = q_N;
+		}
+
+		mTable.setValueAtIndex(length - 1, 0);
+		mTable.setZeroPointAtIndex(length - 1, true);
+
+		return new BeamAnalysis(result, qTable, mTable, nTable);
+	}
+}
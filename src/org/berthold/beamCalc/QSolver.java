@@ -1,17 +1,22 @@
 package org.berthold.beamCalc;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Creates a table of shearing forces along the length of a {@link Beam}.<br>
  * q(x)=> Q(x)
+ * <p>
+ * 
+ * Tables with many sections (e.g. long beams divided into sections of 0.1 mm)
+ * are integrated by all cores, see {@link StressResultantKernels}.
  * 
  * @author Berthold
  *
  */
 public class QSolver {
 
+	private static final double SECTION_LENGTH_M = .001; // Small values lead to more precise results.
+
 	/**
 	 * Calculates the shearing forces along the length of the beam.
 	 * 
@@ -27,9 +32,6 @@ public class QSolver {
 	 * <p>
 	 * The resulting table contains the shearing forces along the length of the
 	 * beam.
-	 * <p>
-	 * 
-	 * FOR THE TIME BEEING THIS WORKS NOT FOR UNEVENLY DISTRIBUTED LOADS
 	 * 
 	 * @param beam
 	 *            An {@link beam}- object from which the shearing forces are
@@ -42,53 +44,165 @@ public class QSolver {
 	 * 
 	 */
 	public static StressResultantTable solve(Beam beam, String unit) {
-		double sectionLength_m = .001; // Small values lead to more precise results.
+		return solve(new BeamSnapshot(beam), unit);
+	}
+
+	/**
+	 * Calculates the shearing forces along the length of the beam.
+	 * 
+	 * Same as {@link #solve(Beam, String)}, but neither sorts the loads nor
+	 * creates an object for each load.
+	 * 
+	 * @param beam
+	 *            A {@link BeamSnapshot} from which the shearing forces are
+	 *            calculated.
+	 * @param unit
+	 *            The unit (N, kN.....).
+	 * @return A {@link StressResultantTable}- object containing the shearing
+	 *         forces over the length of the beam => Q(x)
+	 */
+	public static StressResultantTable solve(BeamSnapshot beam, String unit) {
+		return solve(beam, SECTION_LENGTH_M, unit);
+	}
+
+	/**
+	 * Calculates the shearing forces along the length of the beam.
+	 * 
+	 * @param beam
+	 *            An {@link beam}- object from which the shearing forces are
+	 *            calculated.
+	 * @param sectionLength_m
+	 *            Length of the sections the beam is divided into.
+	 * @param unit
+	 *            The unit (N, kN.....).
+	 * @return A {@link StressResultantTable}- object containing the shearing
+	 *         forces over the length of the beam => Q(x)
+	 */
+	public static StressResultantTable solve(Beam beam, double sectionLength_m, String unit) {
+		return solve(new BeamSnapshot(beam), sectionLength_m, unit);
+	}
+
+	/**
+	 * Calculates the shearing forces along the length of the beam.
+	 * 
+	 * @param beam
+	 *            A {@link BeamSnapshot} from which the shearing forces are
+	 *            calculated.
+	 * @param sectionLength_m
+	 *            Length of the sections the beam is divided into.
+	 * @param unit
+	 *            The unit (N, kN.....).
+	 * @return A {@link StressResultantTable}- object containing the shearing
+	 *         forces over the length of the beam => Q(x)
+	 */
+	public static StressResultantTable solve(BeamSnapshot beam, double sectionLength_m, String unit) {
+		BeamResult result = BeamSolver.getReactions(beam);
+
+		return solve(beam, new String[] { beam.getNameOfLeftSupport(), beam.getNameOfRightSupport() },
+				new double[] { beam.getXOfLeftSupport_m(), beam.getXOfRightSupport_m() },
+				new double[] { result.getResultingForceAtLeftBearing_N(), result.getResultingForceAtRightBearing_N() },
+				sectionLength_m, unit);
+	}
+
+	/**
+	 * Calculates the shearing forces along the length of a beam whose supporting
+	 * forces are already known.
+	 * 
+	 * Use this for continuous beams solved by the {@link ContinuousBeamSolver}.
+	 * The result of {@link MSolver} can be obtained from the table returned as
+	 * usual.
+	 * 
+	 * @param beam
+	 *            An {@link beam}- object from which the shearing forces are
+	 *            calculated.
+	 * @param result
+	 *            Supporting forces of the beam, one for each support.
+	 * @param unit
+	 *            The unit (N, kN.....).
+	 * @return A {@link StressResultantTable}- object containing the shearing
+	 *         forces over the length of the beam => Q(x)
+	 * @throws IllegalArgumentException
+	 *             If the result contains errors or the number of forces does not
+	 *             match the number of supports.
+	 */
+	public static StressResultantTable solve(Beam beam, BeamResult result, String unit) {
+		List<Support> supportsSorted = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc();
+
+		if (result.getErrorCount() > 0)
+			throw new IllegalArgumentException("Result contains errors");
+		if (result.getNumberOfSupportingForces() != supportsSorted.size())
+			throw new IllegalArgumentException("Result contains " + result.getNumberOfSupportingForces()
+					+ " supporting forces, beam has " + supportsSorted.size() + " supports");
 
-		BeamResult result = BeamSolver.getResults(beam, "2f");
+		String[] names = new String[supportsSorted.size()];
+		double[] xSupports_m = new double[supportsSorted.size()];
+		double[] forces_N = new double[supportsSorted.size()];
 
+		for (int i = 0; i <= supportsSorted.size() - 1; i++) {
+			names[i] = supportsSorted.get(i).getNameOfSupport();
+			xSupports_m[i] = supportsSorted.get(i).getDistanceFromLeftEndOfBeam_m();
+			forces_N[i] = result.getForceAtSupport_N(i);
+		}
+		return solve(new BeamSnapshot(beam), names, xSupports_m, forces_N, SECTION_LENGTH_M, unit);
+	}
+
+	/*
+	 * Builds the table from the supporting forces and the loads of the
+	 * snapshot.
+	 */
+	private static StressResultantTable solve(BeamSnapshot beam, String[] namesOfSupports, double[] xSupports_m,
+			double[] forcesAtSupports_N, double sectionLength_m, String unit) {
 		StressResultantTable qTable = new StressResultantTable(beam, sectionLength_m, unit);
 
 		// Add supporting forces
-		Load l = new Load("A", result.getResultingForceAtLeftBearing_N(),
-				beam.getBearing(0).getDistanceFromLeftEndOfBeam_m(), 0, 0);
-		qTable.addForce(l);
-		l = new Load("B", result.getResultingForceAtRightBearing_N(),
-				beam.getBearing(1).getDistanceFromLeftEndOfBeam_m(), 0, 0);
-		qTable.addForce(l);
+		for (int i = 0; i <= forcesAtSupports_N.length - 1; i++)
+			qTable.addForce(namesOfSupports[i], forcesAtSupports_N[i], xSupports_m[i]);
 
 		// Add all point loads
-		List<Load> pointLoads = new ArrayList<Load>();
-		pointLoads = beam.getLoadsSortedByDistanceFromLeftSupportDesc();
-		double angleOfLoadInRadians;
-		double verticalLoad;
-
-		for (Load load : pointLoads)
-			if (load.getLengthOfLineLoad_m() == 0) {
-				angleOfLoadInRadians = load.getAngleOfLoad_degrees() * Math.PI / 180;
-				verticalLoad = load.getForce_N() * Math.cos(angleOfLoadInRadians);
-				Load v = new Load(load.getName(), verticalLoad, load.getDistanceFromLeftEndOfBeam_m(), 0, 0);
-				qTable.addForce(v);
-			}
-
-		// Superimpose uniformingly distributed loads
-		List<Load> loads = beam.getLoadsSortedByDistanceFromLeftSupportDesc();
-		for (Load q : loads) {
-			if (q.getLengthOfLineLoad_m() > 0) 
-			qTable.addDistributedLoad(q);
-		}
+		for (int i = 0; i <= beam.getNumberOfPointLoads() - 1; i++)
+			qTable.addForce(beam.getNameOfPointLoad(i), beam.getVerticalForceOfPointLoad_N(i),
+					beam.getXOfPointLoad_m(i));
+
+		// Superimpose uniformly distributed and uniformly changing line loads
+		for (int i = 0; i <= beam.getNumberOfLineLoads() - 1; i++)
+			qTable.addDistributedLoad(beam.getStartOfLineLoad_m(i), beam.getLengthOfLineLoad_m(i),
+					beam.getForceStartOfLineLoad_N(i), beam.getForceEndOfLineLoad_N(i));
 
 		// Calculate shearing forces from existing table and write results back
-		StressResultant qn_N, qn1_N;
+		double[] q_N = qTable.getValueArray();
+		byte[] flags = qTable.getFlagArray();
 
-		for (int n = 0; n <= qTable.getLength() - 2; n++) {
-			qn_N = qTable.getShearingForceAtIndex(n);
-			qn1_N = qTable.getShearingForceAtIndex(n + 1);
-			qn1_N.addValue(qn_N.getShearingForce());
-			qTable.setAtIndex(n + 1, qn1_N);
+		StressResultantKernels.parallelPrefixSum(q_N, 0, q_N.length);
+		StressResultantKernels.forEachChunk(0, q_N.length - 1, (from, to) -> StressResultantKernels
+				.markSignChanges(q_N, flags, StressResultantTable.FLAG_ZERO_POINT, from, to));
 
-			if (Math.signum(qn_N.getShearingForce()) != Math.signum(qn1_N.getShearingForce()))
-				qTable.getShearingForceAtIndex(n).setZeroPoint(true);
-		}
 		return qTable;
 	}
+
+	/**
+	 * Calculates the shearing forces along the length of the beam on an adaptive
+	 * grid.
+	 * 
+	 * Q(x) is obtained from the {@link AnalyticSolver} and sampled densely only
+	 * where it is needed to meet the tolerance (see
+	 * {@link StressResultantFunction#toAdaptiveTable(Beam, double)}).
+	 * 
+	 * @param beam
+	 *            An {@link beam}- object from which the shearing forces are
+	 *            calculated.
+	 * @param unit
+	 *            The unit (N, kN.....).
+	 * @param tolerance
+	 *            Maximum deviation of the table from the exact shearing forces,
+	 *            in the unit passed.
+	 * @return A {@link StressResultantTable}- object containing the shearing
+	 *         forces over the length of the beam => Q(x) or null if the beam
+	 *         could not be solved.
+	 */
+	public static StressResultantTable solveAdaptive(Beam beam, String unit, double tolerance) {
+		StressResultantFunction qFunction = AnalyticSolver.solveQ(beam, unit);
+		if (qFunction == null)
+			return null;
+		return qFunction.toAdaptiveTable(beam, tolerance);
+	}
 }
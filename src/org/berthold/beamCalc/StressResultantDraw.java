@@ -10,8 +10,12 @@ import java.awt.RenderingHints;
 import java.awt.Stroke;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 import gfxNonOverlapping.RectArea;
 import gfxNonOverlapping.Rectangles;
@@ -82,13 +86,14 @@ public class StressResultantDraw {
 		this.height_px = height_px;
 		this.width_px = width_px;
 
-		// Beam
-		leftSupportX = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc().get(0).getDistanceFromLeftEndOfBeam_m();
-		leftSupportName = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc().get(0).getNameOfSupport();
+		// Beam, supports are sorted only once
+		BeamSnapshot snapshot = new BeamSnapshot(beam);
+		leftSupportX = snapshot.getXOfLeftSupport_m();
+		leftSupportName = snapshot.getNameOfLeftSupport();
 
-		rightSupportX = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc().get(1).getDistanceFromLeftEndOfBeam_m();
-		rightSupportName = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc().get(1).getNameOfSupport();
-		rightSupportDistanceFromLeftEnd = beam.getSupportsSortedByDistanceFromLeftEndOfBeamDesc().get(1) + "m";
+		rightSupportX = snapshot.getXOfRightSupport_m();
+		rightSupportName = snapshot.getNameOfRightSupport();
+		rightSupportDistanceFromLeftEnd = snapshot.getXOfRightSupport_m() + "m";
 
 		// Constants for the gfx- window
 		y0_px = (height_px / 2) + PADDING_TOP_PX;
@@ -107,137 +112,167 @@ public class StressResultantDraw {
 	}
 
 	/**
-	 * Draws the stress resultants diagram.
+	 * Draws the stress resultants diagram and saves it as a PNG- file named like
+	 * this diagram in the working directory.
 	 */
 	public void draw() {
 		try {
-			// Create an in memory Image
-			// This is a image used only to determine the width of the image +
-			// the width of the
-			// right supports name and the dimensions.... Determines right
-			// padding...
-			int paddingRight_px = 0;
-
-			BufferedImage himg = new BufferedImage(width_px, height_px, BufferedImage.TYPE_INT_ARGB);
-			Graphics2D hg = himg.createGraphics();
-
-			paddingRight_px = getWidthOfStringIn_px(rightSupportName + " " + rightSupportX + "m", hg);
-
-			// This is the image used by the renderer
-			BufferedImage img = new BufferedImage(width_px + paddingRight_px + padX_px,
-					height_px + PADDING_TOP_PX + PADDING_BOTTOM_PX, BufferedImage.TYPE_INT_ARGB);
-
-			// Grab the graphics object off the image
-			Graphics2D graphics = img.createGraphics();
-			graphics = assignRenderingHints(graphics);
-			
-			// This takes care that text drawn does not overlap.
-			// Each rectangular, bounding box added to this instance
-			// will be shifted if it overlaps any other object in it's list.
-			Rectangles rectangles=new Rectangles (height_px,width_px);
-
-			// Draw background
-			Color c1 = new Color(255, 255, 255); // Gradient start color
-			Color c2 = new Color(150, 150, 150); // Gradient end color
-
-			GradientPaint gradient = new GradientPaint((float) 1, 0, c1, (float) (0),
-					height_px + PADDING_TOP_PX + PADDING_BOTTOM_PX, c2);
-			graphics.setPaint(gradient);
-			graphics.fillRect(0, 0, width_px + paddingRight_px, height_px + PADDING_TOP_PX + PADDING_BOTTOM_PX);
-
-			Stroke stroke = new BasicStroke(1.5f);
-			graphics.setStroke(stroke);
-			graphics.setColor(Color.BLACK);
-
-			// Datum
-			graphics.drawLine(padX_px, y0_px + PADDING_TOP_PX, width_px - padX_px, y0_px + PADDING_TOP_PX);
-
-			// Legend
-			Rectangle2D b;
-			String dis="Disconiuity";
-			b=getStringBounds(dis,graphics);
-			RectArea rect=new RectArea(0,10,(int)b.getWidth(),(int)b.getHeight());
-			graphics.setColor(colorDis);
-			rect=rectangles.add(rect);
-			graphics.drawString(dis, rect.getX(),rect.getY());
-			
-			String zero="Zero Points";
-			b=getStringBounds(dis,graphics);
-			rect=new RectArea(0,0,(int)b.getWidth(),(int)b.getHeight());
-			rect=rectangles.add(rect);
-			graphics.setColor(colorZero);
-			graphics.drawString(zero, rect.getX(),rect.getY());
-			
-			String maxi="Maxima";
-			b=getStringBounds(dis,graphics);
-			rect=new RectArea(0,0,(int)b.getWidth(),(int)b.getHeight());
-			rect=rectangles.add(rect);
-			graphics.setColor(colorMaxima);
-			graphics.drawString(maxi, rect.getX(),rect.getY());
-			
-			// Supports
-			graphics.setColor(Color.BLACK);
-			String dimFormated;
-			int xTLeft = (int) getXT(leftSupportX);
-			graphics.drawLine(xTLeft, (int) padY_px, xTLeft, (int) height_px - padY_px + PADDING_TOP_PX);
-			
-			dimFormated = String.format(numberFormat, leftSupportX);
-			graphics.drawString(leftSupportName + " " + dimFormated + " m", xTLeft,
-					(int) getYT(0) + Y_OFFSET_ANNOTATION);
-
-			int xTRight = (int) getXT(rightSupportX);
-			graphics.drawLine(xTRight, (int) padY_px, xTRight, (int) height_px - padY_px + PADDING_TOP_PX);
-			
-			dimFormated = String.format(numberFormat, rightSupportX);
-			graphics.drawString(rightSupportName + " " + dimFormated + " m", xTRight,
-					(int) getYT(0) + Y_OFFSET_ANNOTATION);
-
-			// Draw stress resultants.
-			double xLast = stressResultantsTable.getShearingForceAtIndex(0).getX_m();
-			double yLast = stressResultantsTable.getShearingForceAtIndex(0).getShearingForce();
-
-			for (StressResultant r : stressResultantsTable.sfValues) {
-
-				// Transform
-				double y = r.getShearingForce();
-				double x = r.getX_m();
-
-				// The graph
-				graphics.setColor(Color.RED);
-				graphics.drawLine((int) getXT(xLast), (int) getYT(yLast), (int) getXT(x), (int) getYT(y));
-
-				String shFormated;
-
-				if (r.isDiscontiunuity()|| r.isMaxima() || r.isZeroPoint()) {
-					
-					if (r.isMaxima())
-						graphics.setColor(colorMaxima); 
-					if(r.isDiscontiunuity())
-						graphics.setColor(colorDis);
-					if (r.isZeroPoint())
-						graphics.setColor(colorZero); 
-					
-					shFormated = String.format(numberFormat, r.getShearingForce());
-					
-					Rectangle2D bounds=getStringBounds(shFormated+" "+r.getUnit(),graphics);
-				
-					RectArea a=new RectArea ((int)getXT(x),(int)getYT(y),(int)bounds.getWidth(),(int)bounds.getHeight());
-					a=rectangles.add(a);
-					graphics.drawString(shFormated+" "+r.getUnit(),a.getX(),a.getY());
-			}
-				yLast = y;
-				xLast = x;
-			}
-
-			// Save to file.
 			File outputfile = new File(this.name + ".png");
-			ImageIO.write(img, "png", outputfile);
+			ImageIO.write(render(), "png", outputfile);
 		} catch (Exception e) {
 			e.printStackTrace();
 			System.out.println("IO- Error " + e.toString());
 		}
 	}
 
+	/**
+	 * Draws the stress resultants diagram and encodes it as PNG.
+	 * 
+	 * Nothing is written to a file, the caller decides where the image goes. The
+	 * image is encoded in memory, not by the help of a temporary file.
+	 * 
+	 * @return The PNG- file as bytes.
+	 * @throws IOException If the image could not be encoded.
+	 */
+	public byte[] toPng() throws IOException {
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		try (ImageOutputStream out = new MemoryCacheImageOutputStream(png)) {
+			ImageIO.write(render(), "png", out);
+		}
+		return png.toByteArray();
+	}
+
+	/**
+	 * Draws the stress resultants diagram.
+	 * 
+	 * @return The image.
+	 */
+	public BufferedImage render() {
+		// Create an in memory Image
+		// This is a image used only to determine the width of the image +
+		// the width of the
+		// right supports name and the dimensions.... Determines right
+		// padding...
+		int paddingRight_px = 0;
+
+		BufferedImage himg = new BufferedImage(width_px, height_px, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D hg = himg.createGraphics();
+
+		paddingRight_px = getWidthOfStringIn_px(rightSupportName + " " + rightSupportX + "m", hg);
+
+		// This is the image used by the renderer
+		BufferedImage img = new BufferedImage(width_px + paddingRight_px + padX_px,
+				height_px + PADDING_TOP_PX + PADDING_BOTTOM_PX, BufferedImage.TYPE_INT_ARGB);
+
+		// Grab the graphics object off the image
+		Graphics2D graphics = img.createGraphics();
+		graphics = assignRenderingHints(graphics);
+		
+		// This takes care that text drawn does not overlap.
+		// Each rectangular, bounding box added to this instance
+		// will be shifted if it overlaps any other object in it's list.
+		Rectangles rectangles=new Rectangles (height_px,width_px);
+
+		// Draw background
+		Color c1 = new Color(255, 255, 255); // Gradient start color
+		Color c2 = new Color(150, 150, 150); // Gradient end color
+
+		GradientPaint gradient = new GradientPaint((float) 1, 0, c1, (float) (0),
+				height_px + PADDING_TOP_PX + PADDING_BOTTOM_PX, c2);
+		graphics.setPaint(gradient);
+		graphics.fillRect(0, 0, width_px + paddingRight_px, height_px + PADDING_TOP_PX + PADDING_BOTTOM_PX);
+
+		Stroke stroke = new BasicStroke(1.5f);
+		graphics.setStroke(stroke);
+		graphics.setColor(Color.BLACK);
+
+		// Datum
+		graphics.drawLine(padX_px, y0_px + PADDING_TOP_PX, width_px - padX_px, y0_px + PADDING_TOP_PX);
+
+		// Legend
+		Rectangle2D b;
+		String dis="Disconiuity";
+		b=getStringBounds(dis,graphics);
+		RectArea rect=new RectArea(0,10,(int)b.getWidth(),(int)b.getHeight());
+		graphics.setColor(colorDis);
+		rect=rectangles.add(rect);
+		graphics.drawString(dis, rect.getX(),rect.getY());
+		
+		String zero="Zero Points";
+		b=getStringBounds(dis,graphics);
+		rect=new RectArea(0,0,(int)b.getWidth(),(int)b.getHeight());
+		rect=rectangles.add(rect);
+		graphics.setColor(colorZero);
+		graphics.drawString(zero, rect.getX(),rect.getY());
+		
+		String maxi="Maxima";
+		b=getStringBounds(dis,graphics);
+		rect=new RectArea(0,0,(int)b.getWidth(),(int)b.getHeight());
+		rect=rectangles.add(rect);
+		graphics.setColor(colorMaxima);
+		graphics.drawString(maxi, rect.getX(),rect.getY());
+		
+		// Supports
+		graphics.setColor(Color.BLACK);
+		String dimFormated;
+		int xTLeft = (int) getXT(leftSupportX);
+		graphics.drawLine(xTLeft, (int) padY_px, xTLeft, (int) height_px - padY_px + PADDING_TOP_PX);
+		
+		dimFormated = String.format(numberFormat, leftSupportX);
+		graphics.drawString(leftSupportName + " " + dimFormated + " m", xTLeft,
+				(int) getYT(0) + Y_OFFSET_ANNOTATION);
+
+		int xTRight = (int) getXT(rightSupportX);
+		graphics.drawLine(xTRight, (int) padY_px, xTRight, (int) height_px - padY_px + PADDING_TOP_PX);
+		
+		dimFormated = String.format(numberFormat, rightSupportX);
+		graphics.drawString(rightSupportName + " " + dimFormated + " m", xTRight,
+				(int) getYT(0) + Y_OFFSET_ANNOTATION);
+
+		// Draw stress resultants.
+		double xLast = stressResultantsTable.getX_mAtIndex(0);
+		double yLast = stressResultantsTable.getValueAtIndex(0);
+		String unit = stressResultantsTable.getUnit();
+
+		for (int n = 0; n <= stressResultantsTable.getLength() - 1; n++) {
+
+			// Transform
+			double y = stressResultantsTable.getValueAtIndex(n);
+			double x = stressResultantsTable.getX_mAtIndex(n);
+			boolean isMaxima = stressResultantsTable.isMaximaAtIndex(n);
+			boolean isDiscontiunuity = stressResultantsTable.isDiscontiunuityAtIndex(n);
+			boolean isZeroPoint = stressResultantsTable.isZeroPointAtIndex(n);
+
+			// The graph
+			graphics.setColor(Color.RED);
+			graphics.drawLine((int) getXT(xLast), (int) getYT(yLast), (int) getXT(x), (int) getYT(y));
+
+			String shFormated;
+
+			if (isDiscontiunuity|| isMaxima || isZeroPoint) {
+				
+				if (isMaxima)
+					graphics.setColor(colorMaxima); 
+				if(isDiscontiunuity)
+					graphics.setColor(colorDis);
+				if (isZeroPoint)
+					graphics.setColor(colorZero); 
+				
+				shFormated = String.format(numberFormat, y);
+				
+				Rectangle2D bounds=getStringBounds(shFormated+" "+unit,graphics);
+			
+				RectArea a=new RectArea ((int)getXT(x),(int)getYT(y),(int)bounds.getWidth(),(int)bounds.getHeight());
+				a=rectangles.add(a);
+				graphics.drawString(shFormated+" "+unit,a.getX(),a.getY());
+		}
+			yLast = y;
+			xLast = x;
+		}
+
+		return img;
+	}
+
 	/**
 	 * Transforms a y- koordinate.
 	 * 
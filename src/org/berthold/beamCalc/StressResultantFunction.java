@@ -0,0 +1,824 @@
+package org.berthold.beamCalc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A stress resultant along a {@link Beam} as an exact, piecewise polynomial
+ * function.
+ * <p>
+ * 
+ * The beam is divided into segments. Segments start and end at the
+ * breakpoints, which are the positions of the supports, the point loads and
+ * the start and end of the distributed loads. Inside each segment the stress
+ * resultant is a polynomial of the distance t from the start of the segment:
+ * <p>
+ * 
+ * f(x)=c0+c1 x t+c2 x t^2+....+cn x t^n t=x-start of segment
+ * <p>
+ * 
+ * At a breakpoint the function may jump (e.g. Q(x) at a point load). The value
+ * at a breakpoint is the value right of it.
+ * <p>
+ * 
+ * Objects of this class are created by the {@link AnalyticSolver}, the
+ * {@link InfluenceLine}- and the {@link DeflectionSolver}- class and are
+ * immutable.
+ * 
+ * @author Berthold
+ *
+ */
+public class StressResultantFunction {
+
+	// Relative tolerance used to decide if a value is zero.
+	private static final double ZERO_TOLERANCE = 1e-9;
+
+	private final double[] breakpoints_m;
+	private final double[][] coefficients;
+	private final String unit;
+
+	/**
+	 * Creates a new function.
+	 * 
+	 * @param breakpoints_m Ascending positions of the segment borders, including
+	 *                      the left and the right end of the beam.
+	 * @param coefficients  Coefficients of the polynomial of each segment, lowest
+	 *                      order first. One entry per segment.
+	 * @param unit          The unit (N, Nm etc...).
+	 */
+	StressResultantFunction(double[] breakpoints_m, double[][] coefficients, String unit) {
+		this.breakpoints_m = breakpoints_m;
+		this.coefficients = coefficients;
+		this.unit = unit;
+	}
+
+	/**
+	 * The unit of this stress resultant.
+	 * 
+	 * @return Unit e.g. N, Nm etc...
+	 */
+	public String getUnit() {
+		return unit;
+	}
+
+	/**
+	 * Number of segments.
+	 * 
+	 * @return Number of polynomial pieces this function consists of.
+	 */
+	public int getNumberOfSegments() {
+		return coefficients.length;
+	}
+
+	/**
+	 * Start of a segment.
+	 * 
+	 * @param segment Index of the segment.
+	 * @return Position of the start of the segment relative to the left end of
+	 *         the beam.
+	 */
+	public double getSegmentStart_m(int segment) {
+		return breakpoints_m[segment];
+	}
+
+	/**
+	 * End of a segment.
+	 * 
+	 * @param segment Index of the segment.
+	 * @return Position of the end of the segment relative to the left end of the
+	 *         beam.
+	 */
+	public double getSegmentEnd_m(int segment) {
+		return breakpoints_m[segment + 1];
+	}
+
+	/**
+	 * Coefficients of the polynomial of a segment.
+	 * 
+	 * @param segment Index of the segment.
+	 * @return A copy of the coefficients, lowest order first. The polynomial is a
+	 *         function of the distance from the start of the segment.
+	 */
+	public double[] getCoefficients(int segment) {
+		return coefficients[segment].clone();
+	}
+
+	/**
+	 * Length of the beam this function is defined for.
+	 * 
+	 * @return Position of the last breakpoint.
+	 */
+	public double getLength_m() {
+		return breakpoints_m[breakpoints_m.length - 1];
+	}
+
+	/**
+	 * Value of this function.
+	 * 
+	 * Cost is O(log(number of segments)).
+	 * 
+	 * @param x_m Position relative to the left end of the beam.
+	 * @return The stress resultant at x. At a breakpoint, this is the value right
+	 *         of it. At the right end of the beam this is the value left of it.
+	 */
+	public double getValueAt(double x_m) {
+		int segment = getSegment(x_m);
+		return evaluate(coefficients[segment], x_m - breakpoints_m[segment]);
+	}
+
+	/**
+	 * Value of this function left of a position.
+	 * 
+	 * This differs from {@link #getValueAt(double)} only at breakpoints at which
+	 * the function jumps.
+	 * 
+	 * @param x_m Position relative to the left end of the beam.
+	 * @return The stress resultant just left of x.
+	 */
+	public double getValueLeftOf(double x_m) {
+		int segment = getSegment(x_m);
+		if (segment > 0 && x_m == breakpoints_m[segment])
+			segment--;
+		return evaluate(coefficients[segment], x_m - breakpoints_m[segment]);
+	}
+
+	/**
+	 * Integrates this function.
+	 * 
+	 * M(x) is obtained from Q(x) this way. The integral is continuous and 0 at the
+	 * left end of the beam.
+	 * 
+	 * @param unit Unit of the integral.
+	 * @return A new function F(x)=integral of f(x) from 0 to x.
+	 */
+	public StressResultantFunction integrate(String unit) {
+		double[][] integral = new double[coefficients.length][];
+		double valueAtStart = 0;
+
+		for (int i = 0; i <= coefficients.length - 1; i++) {
+			double[] c = coefficients[i];
+			double[] ic = new double[c.length + 1];
+
+			ic[0] = valueAtStart;
+			for (int k = 0; k <= c.length - 1; k++)
+				ic[k + 1] = c[k] / (k + 1);
+
+			integral[i] = ic;
+			valueAtStart = evaluate(ic, breakpoints_m[i + 1] - breakpoints_m[i]);
+		}
+		return new StressResultantFunction(breakpoints_m, integral, unit);
+	}
+
+	/**
+	 * Multiplies this function by a constant.
+	 * 
+	 * @param factor Factor.
+	 * @param unit   Unit of the result.
+	 * @return A new function factor x f(x).
+	 */
+	StressResultantFunction multiply(double factor, String unit) {
+		double[][] product = new double[coefficients.length][];
+
+		for (int i = 0; i <= coefficients.length - 1; i++) {
+			product[i] = coefficients[i].clone();
+			for (int k = 0; k <= product[i].length - 1; k++)
+				product[i][k] = product[i][k] * factor;
+		}
+		return new StressResultantFunction(breakpoints_m, product, unit);
+	}
+
+	/**
+	 * Adds a straight line to this function.
+	 * 
+	 * Used to fit the constants of integration to boundary conditions.
+	 * 
+	 * @param c0 Value of the line at the left end of the beam.
+	 * @param c1 Slope of the line.
+	 * @return A new function f(x)+c0+c1 x x.
+	 */
+	StressResultantFunction addLine(double c0, double c1) {
+		double[][] sum = new double[coefficients.length][];
+
+		for (int i = 0; i <= coefficients.length - 1; i++) {
+			sum[i] = Arrays.copyOf(coefficients[i], Math.max(2, coefficients[i].length));
+			sum[i][0] = sum[i][0] + c0 + c1 * breakpoints_m[i];
+			sum[i][1] = sum[i][1] + c1;
+		}
+		return new StressResultantFunction(breakpoints_m, sum, unit);
+	}
+
+	/**
+	 * Local maxima and minima.
+	 * 
+	 * These are the points where the first derivative of this function changes
+	 * it's sign. Either inside a segment or at a breakpoint at which the
+	 * function has a kink. Jumps are not returned, see
+	 * {@link #getDiscontinuitys()}.
+	 * 
+	 * @return List of {@link StressResultant}- objects, sorted by position.
+	 */
+	public List<StressResultant> getMaxima() {
+		List<StressResultant> maxima = new ArrayList<>();
+
+		for (int i = 0; i <= coefficients.length - 1; i++) {
+			double length_m = breakpoints_m[i + 1] - breakpoints_m[i];
+			double[] derivative = derivative(coefficients[i]);
+
+			// Inside of segment
+			List<Double> roots = new ArrayList<>();
+			findRoots(derivative, 0, length_m, roots);
+			for (double t : roots) {
+				if (t <= 0 || t >= length_m)
+					continue;
+				double slopeBefore = evaluate(derivative, t - length_m * ZERO_TOLERANCE);
+				double slopeAfter = evaluate(derivative, Math.min(length_m, t + length_m * ZERO_TOLERANCE));
+				if (Math.signum(slopeBefore) != Math.signum(slopeAfter)) {
+					StressResultant r = new StressResultant(breakpoints_m[i] + t, evaluate(coefficients[i], t), unit);
+					r.setMaxima(true);
+					maxima.add(r);
+				}
+			}
+
+			// Kink at the end of the segment
+			if (i < coefficients.length - 1) {
+				double x_m = breakpoints_m[i + 1];
+				double valueLeft = evaluate(coefficients[i], length_m);
+				double valueRight = coefficients[i + 1][0];
+				if (isZero(valueLeft - valueRight, valueLeft, valueRight)) {
+					double slopeLeft = evaluate(derivative, length_m);
+					double slopeRight = coefficients[i + 1].length > 1 ? coefficients[i + 1][1] : 0;
+					if (slopeLeft != 0 && slopeRight != 0 && Math.signum(slopeLeft) != Math.signum(slopeRight)) {
+						StressResultant r = new StressResultant(x_m, valueRight, unit);
+						r.setMaxima(true);
+						maxima.add(r);
+					}
+				}
+			}
+		}
+		return maxima;
+	}
+
+	/**
+	 * Zero points.
+	 * 
+	 * Returns all positions at which this function is zero, or at which it jumps
+	 * from a positive to a negative value or vice versa.
+	 * 
+	 * @return List of {@link StressResultant}- objects, sorted by position.
+	 */
+	public List<StressResultant> getZeroPoints() {
+		List<StressResultant> zeroPoints = new ArrayList<>();
+		double scale = Math.max(Math.abs(getAbsMax()), Math.abs(getAbsMin()));
+		double lastZero_m = Double.NaN;
+
+		for (int i = 0; i <= coefficients.length - 1; i++) {
+			double x0_m = breakpoints_m[i];
+			double length_m = breakpoints_m[i + 1] - x0_m;
+
+			// Sign change at a jump
+			if (i > 0) {
+				double valueLeft = evaluate(coefficients[i - 1], x0_m - breakpoints_m[i - 1]);
+				double valueRight = coefficients[i][0];
+				if (valueLeft * valueRight < 0 && !isZero(valueLeft, scale) && !isZero(valueRight, scale))
+					lastZero_m = addZeroPoint(zeroPoints, x0_m, valueRight, lastZero_m);
+			}
+
+			List<Double> roots = new ArrayList<>();
+			if (isZeroEverywhere(coefficients[i], length_m, scale)) {
+				// Unloaded part, e.g. Q(x) left of the first support
+				roots.add(0.0);
+				roots.add(length_m);
+			} else
+				findRoots(coefficients[i], 0, length_m, roots);
+
+			for (double t : roots)
+				lastZero_m = addZeroPoint(zeroPoints, x0_m + t, 0, lastZero_m);
+		}
+		return zeroPoints;
+	}
+
+	/*
+	 * Adds a zero point unless it was found already (e.g. at the end of the
+	 * previous segment).
+	 */
+	private double addZeroPoint(List<StressResultant> zeroPoints, double x_m, double value, double lastZero_m) {
+		if (x_m == lastZero_m)
+			return lastZero_m;
+
+		StressResultant r = new StressResultant(x_m, value, unit);
+		r.setZeroPoint(true);
+		zeroPoints.add(r);
+		return x_m;
+	}
+
+	private static boolean isZeroEverywhere(double[] c, double length_m, double scale) {
+		for (int k = 0; k <= c.length - 1; k++)
+			if (!isZero(c[k] * Math.pow(length_m, k), scale))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Points of discontinuity.
+	 * 
+	 * These are the breakpoints at which either the function jumps or it's slope
+	 * changes.
+	 * 
+	 * @return List of {@link StressResultant}- objects. The value is the value
+	 *         right of the breakpoint, the delta is the size of the jump.
+	 */
+	public List<StressResultant> getDiscontinuitys() {
+		List<StressResultant> discontinuitys = new ArrayList<>();
+
+		for (int i = 1; i <= coefficients.length - 1; i++) {
+			double length_m = breakpoints_m[i] - breakpoints_m[i - 1];
+			double valueLeft = evaluate(coefficients[i - 1], length_m);
+			double valueRight = coefficients[i][0];
+			double slopeLeft = evaluate(derivative(coefficients[i - 1]), length_m);
+			double slopeRight = coefficients[i].length > 1 ? coefficients[i][1] : 0;
+
+			if (!isZero(valueRight - valueLeft, valueLeft, valueRight)
+					|| !isZero(slopeRight - slopeLeft, slopeLeft, slopeRight)) {
+				StressResultant r = new StressResultant(breakpoints_m[i], valueRight, unit);
+				r.setDiscontiunuity(true);
+				r.setShearingForceDeltaBy(valueRight - valueLeft);
+				discontinuitys.add(r);
+			}
+		}
+		return discontinuitys;
+	}
+
+	/**
+	 * Determines the biggest value of this function.
+	 * 
+	 * @return Biggest value, exact. At least 0.
+	 */
+	public double getAbsMax() {
+		double max = 0;
+
+		for (int i = 0; i <= coefficients.length - 1; i++)
+			for (double v : getCandidateValues(i))
+				if (v > max)
+					max = v;
+		return max;
+	}
+
+	/**
+	 * Determines the smallest value of this function.
+	 * 
+	 * @return Smallest value, exact. At most 0.
+	 */
+	public double getAbsMin() {
+		double min = 0;
+
+		for (int i = 0; i <= coefficients.length - 1; i++)
+			for (double v : getCandidateValues(i))
+				if (v < min)
+					min = v;
+		return min;
+	}
+
+	/**
+	 * Samples this function into a table.
+	 * 
+	 * Discontinuities, zero points and maxima are marked in the sections closest
+	 * to their exact position.
+	 * 
+	 * @param beam            The {@link Beam} this function belongs to.
+	 * @param sectionLength_m Length of the sections.
+	 * @return A {@link StressResultantTable}.
+	 */
+	public StressResultantTable toTable(Beam beam, double sectionLength_m) {
+		StressResultantTable table = new StressResultantTable(beam, sectionLength_m, unit);
+
+		// Walk along the beam, the segment only ever moves forward.
+		int segment = 0;
+		for (int n = 0; n <= table.getLength() - 1; n++) {
+			double x_m = table.getX_mAtIndex(n);
+			while (segment < coefficients.length - 1 && x_m >= breakpoints_m[segment + 1])
+				segment++;
+			table.setValueAtIndex(n, evaluate(coefficients[segment], x_m - breakpoints_m[segment]));
+		}
+
+		for (StressResultant r : getDiscontinuitys()) {
+			int n = getIndexOf(table, r.getX_m());
+			table.setDiscontiunuityAtIndex(n, true);
+			table.setShearingForceDeltaByAtIndex(n, r.getShearingForceDeltaBy());
+		}
+		for (StressResultant r : getZeroPoints())
+			table.setZeroPointAtIndex(getIndexOf(table, r.getX_m()), true);
+		for (StressResultant r : getMaxima())
+			table.setMaximaAtIndex(getIndexOf(table, r.getX_m()), true);
+
+		return table;
+	}
+
+	/**
+	 * Samples this function lazily.
+	 * <p>
+	 * 
+	 * Each value is calculated when the stream asks for it, no table is created.
+	 * Memory used is the same for any section length, so very fine samples can
+	 * be piped into an exporter or reduced (e.g. {@link DoubleStream#max()})
+	 * without holding them in the heap. The stream can be run in parallel.
+	 * 
+	 * @param sectionLength_m Length of the sections.
+	 * @return Values at x=n x section length, n=0,1,... up to the right end of
+	 *         the beam. Same positions as those of a {@link StressResultantTable}
+	 *         with the same section length.
+	 */
+	public DoubleStream sample(double sectionLength_m) {
+		return StreamSupport.doubleStream(new SampleSpliterator(sectionLength_m, 0, getNumberOfSamples(sectionLength_m)),
+				false);
+	}
+
+	/**
+	 * Samples this function lazily into {@link StressResultant}- objects.
+	 * 
+	 * Same as {@link #sample(double)}, one object is created for each sample.
+	 * Points of discontinuity, zero points and maxima are not marked, see
+	 * {@link #getDiscontinuitys()}, {@link #getZeroPoints()} and
+	 * {@link #getMaxima()}.
+	 * 
+	 * @param sectionLength_m Length of the sections.
+	 * @return Stress resultants at x=n x section length.
+	 */
+	public Stream<StressResultant> stream(double sectionLength_m) {
+		return IntStream.range(0, getNumberOfSamples(sectionLength_m)).mapToObj(n -> {
+			double x_m = n * sectionLength_m;
+			return new StressResultant(x_m, getValueAt(x_m), unit);
+		});
+	}
+
+	/**
+	 * Number of samples taken by {@link #sample(double)}.
+	 * 
+	 * @param sectionLength_m Length of the sections.
+	 * @return Number of samples.
+	 */
+	public int getNumberOfSamples(double sectionLength_m) {
+		if (!(sectionLength_m > 0))
+			throw new IllegalArgumentException("Section length must be greater than 0, was " + sectionLength_m);
+		return (int) Math.floor(getLength_m() / sectionLength_m + StressResultantTable.SECTION_BORDER_TOLERANCE) + 1;
+	}
+
+	/**
+	 * Samples this function into a table with an adaptive grid.
+	 * <p>
+	 * 
+	 * Samples are placed at the breakpoints (on both sides, if the function
+	 * jumps), the zero points and the maxima. In between, the sections are made
+	 * just short enough that drawing a straight line between two samples deviates
+	 * no more than the tolerance from the exact function. For a polynomial this is
+	 * the case if
+	 * <p>
+	 * 
+	 * section length^2 / 8 x max|f''(x)| &lt;= tolerance
+	 * <p>
+	 * 
+	 * Long, unloaded spans need only two samples, regions with strongly curved
+	 * stress resultants get dense samples.
+	 * 
+	 * @param beam      The {@link Beam} this function belongs to.
+	 * @param tolerance Maximum deviation allowed, in the unit of this function.
+	 * @return A {@link StressResultantTable} with sections of different length.
+	 */
+	public StressResultantTable toAdaptiveTable(Beam beam, double tolerance) {
+		double[] x_m = new double[4 * coefficients.length + 4];
+		double[] values = new double[x_m.length];
+		int n = 0;
+
+		List<StressResultant> zeroPoints = getZeroPoints();
+		List<StressResultant> maxima = getMaxima();
+
+		for (int i = 0; i <= coefficients.length - 1; i++) {
+			double x0_m = breakpoints_m[i];
+			double length_m = breakpoints_m[i + 1] - x0_m;
+			double[] c = coefficients[i];
+
+			// Positions which must be sampled exactly
+			List<Double> points = new ArrayList<>();
+			points.add(0.0);
+			for (StressResultant r : zeroPoints)
+				if (r.getX_m() > x0_m && r.getX_m() < x0_m + length_m)
+					points.add(r.getX_m() - x0_m);
+			for (StressResultant r : maxima)
+				if (r.getX_m() > x0_m && r.getX_m() < x0_m + length_m)
+					points.add(r.getX_m() - x0_m);
+			points.add(length_m);
+			Collections.sort(points);
+
+			double maxCurvature = getMaxAbsValue(derivative(derivative(c)), length_m);
+
+			for (int k = 0; k <= points.size() - 2; k++) {
+				double from = points.get(k);
+				double to = points.get(k + 1);
+				if (to <= from)
+					continue;
+
+				int sections = 1;
+				if (maxCurvature > 0 && tolerance > 0)
+					sections = (int) Math.ceil((to - from) * Math.sqrt(maxCurvature / (8 * tolerance)));
+				sections = Math.max(1, sections);
+
+				if (n + sections + 1 > x_m.length) {
+					int capacity = Math.max(2 * x_m.length, n + sections + 1);
+					x_m = Arrays.copyOf(x_m, capacity);
+					values = Arrays.copyOf(values, capacity);
+				}
+
+				// Start of this interval is only added once
+				int first = (k == 0) ? 0 : 1;
+				for (int j = first; j <= sections; j++) {
+					double t = (j == sections) ? to : from + (to - from) * j / sections;
+					double value = evaluate(c, t);
+
+					// No second sample at a breakpoint if the function does not jump
+					if (j == 0 && n > 0 && x_m[n - 1] == x0_m + t && values[n - 1] == value)
+						continue;
+
+					x_m[n] = x0_m + t;
+					values[n] = value;
+					n++;
+				}
+			}
+		}
+
+		StressResultantTable table = new StressResultantTable(beam, Arrays.copyOf(x_m, n), Arrays.copyOf(values, n),
+				unit);
+
+		// Mark points of interest. At a jump the sample right of the breakpoint is
+		// marked.
+		for (StressResultant r : getDiscontinuitys()) {
+			int k = getLastIndexOf(table, r.getX_m());
+			table.setDiscontiunuityAtIndex(k, true);
+			table.setShearingForceDeltaByAtIndex(k, r.getShearingForceDeltaBy());
+		}
+		for (StressResultant r : zeroPoints)
+			table.setZeroPointAtIndex(getLastIndexOf(table, r.getX_m()), true);
+		for (StressResultant r : maxima)
+			table.setMaximaAtIndex(getLastIndexOf(table, r.getX_m()), true);
+
+		return table;
+	}
+
+	/*
+	 * Index of the last sample at or left of a position.
+	 */
+	private static int getLastIndexOf(StressResultantTable table, double x_m) {
+		int low = 0;
+		int high = table.getLength() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (table.getX_mAtIndex(mid) <= x_m)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+	/*
+	 * Upper bound of |p(t)| for 0<=t<=length.
+	 */
+	private static double getMaxAbsValue(double[] c, double length_m) {
+		double max = 0;
+		for (int k = 0; k <= c.length - 1; k++)
+			max = max + Math.abs(c[k]) * Math.pow(length_m, k);
+		return max;
+	}
+
+	/*
+	 * Index of the section of a table closest to a position.
+	 */
+	private static int getIndexOf(StressResultantTable table, double x_m) {
+		int n = (int) Math.round(x_m / table.getSectionLength_m());
+		return Math.max(0, Math.min(table.getLength() - 1, n));
+	}
+
+	/*
+	 * Values at the ends of a segment and at the stationary points inside.
+	 */
+	private List<Double> getCandidateValues(int segment) {
+		double length_m = breakpoints_m[segment + 1] - breakpoints_m[segment];
+		double[] c = coefficients[segment];
+		List<Double> values = new ArrayList<>();
+
+		values.add(evaluate(c, 0));
+		values.add(evaluate(c, length_m));
+
+		List<Double> roots = new ArrayList<>();
+		findRoots(derivative(c), 0, length_m, roots);
+		for (double t : roots)
+			values.add(evaluate(c, t));
+
+		return values;
+	}
+
+	/*
+	 * Index of the segment containing x.
+	 */
+	private int getSegment(double x_m) {
+		int i = Arrays.binarySearch(breakpoints_m, x_m);
+		if (i < 0)
+			i = -i - 2;
+		return Math.max(0, Math.min(coefficients.length - 1, i));
+	}
+
+	private static boolean isZero(double value, double scale) {
+		return Math.abs(value) <= ZERO_TOLERANCE * Math.max(1, Math.abs(scale));
+	}
+
+	private static boolean isZero(double difference, double a, double b) {
+		return isZero(difference, Math.max(Math.abs(a), Math.abs(b)));
+	}
+
+	/*
+	 * Polynomial helpers. Coefficients are stored lowest order first.
+	 */
+
+	/**
+	 * Evaluates a polynomial (Horner's method).
+	 * 
+	 * @param c Coefficients, lowest order first.
+	 * @param t Argument.
+	 * @return Value of the polynomial.
+	 */
+	static double evaluate(double[] c, double t) {
+		double v = 0;
+		for (int k = c.length - 1; k >= 0; k--)
+			v = v * t + c[k];
+		return v;
+	}
+
+	/**
+	 * Derivative of a polynomial.
+	 * 
+	 * @param c Coefficients, lowest order first.
+	 * @return Coefficients of the derivative.
+	 */
+	static double[] derivative(double[] c) {
+		if (c.length <= 1)
+			return new double[] { 0 };
+		double[] d = new double[c.length - 1];
+		for (int k = 1; k <= c.length - 1; k++)
+			d[k - 1] = c[k] * k;
+		return d;
+	}
+
+	/**
+	 * Finds all roots of a polynomial inside an interval.
+	 * 
+	 * The interval is split at the roots of the derivative (found recursively)
+	 * into intervals in which the polynomial is monotonic. Each of those
+	 * containing a sign change holds exactly one root which is found by
+	 * bisection, down to the resolution of a double.
+	 * 
+	 * @param c     Coefficients, lowest order first.
+	 * @param from  Start of the interval.
+	 * @param to    End of the interval.
+	 * @param roots Roots found are added to this list in ascending order.
+	 */
+	static void findRoots(double[] c, double from, double to, List<Double> roots) {
+		int degree = c.length - 1;
+		while (degree > 0 && c[degree] == 0)
+			degree--;
+
+		if (degree == 0)
+			return; // Constant, either no root or zero everywhere
+
+		if (degree == 1) {
+			double t = -c[0] / c[1];
+			if (t >= from && t <= to)
+				roots.add(t);
+			return;
+		}
+
+		List<Double> stationary = new ArrayList<>();
+		findRoots(derivative(Arrays.copyOf(c, degree + 1)), from, to, stationary);
+
+		List<Double> borders = new ArrayList<>();
+		borders.add(from);
+		for (double s : stationary)
+			if (s > from && s < to)
+				borders.add(s);
+		borders.add(to);
+
+		double scale = 0;
+		for (int k = 0; k <= degree; k++)
+			scale = Math.max(scale, Math.abs(c[k]) * Math.pow(Math.max(Math.abs(from), Math.abs(to)), k));
+
+		double last = Double.NaN;
+		for (int i = 0; i <= borders.size() - 2; i++) {
+			double a = borders.get(i);
+			double b = borders.get(i + 1);
+			double fa = evaluate(c, a);
+			double fb = evaluate(c, b);
+			double root;
+
+			if (isZero(fa, scale) && a == from)
+				root = a;
+			else if (isZero(fb, scale))
+				root = b;
+			else if (fa * fb < 0)
+				root = bisect(c, a, b, fa);
+			else
+				continue;
+
+			if (root != last) {
+				roots.add(root);
+				last = root;
+			}
+		}
+	}
+
+	/*
+	 * Bisection inside a monotonic interval with sign change.
+	 */
+	private static double bisect(double[] c, double a, double b, double fa) {
+		for (int i = 0; i < 200; i++) {
+			double m = (a + b) / 2;
+			if (m <= a || m >= b)
+				break;
+			double fm = evaluate(c, m);
+			if (fm == 0)
+				return m;
+			if (Math.signum(fm) == Math.signum(fa)) {
+				a = m;
+				fa = fm;
+			} else
+				b = m;
+		}
+		return (a + b) / 2;
+	}
+
+	/*
+	 * Values at x=n x section length for n from 'index' to 'end' (exclusive).
+	 * Walking from left to right the segment only ever moves forward, so each
+	 * sample costs O(1).
+	 */
+	private class SampleSpliterator implements Spliterator.OfDouble {
+		private final double sectionLength_m;
+		private int index;
+		private final int end;
+		private int segment;
+
+		SampleSpliterator(double sectionLength_m, int index, int end) {
+			this.sectionLength_m = sectionLength_m;
+			this.index = index;
+			this.end = end;
+			this.segment = getSegment(index * sectionLength_m);
+		}
+
+		@Override
+		public boolean tryAdvance(DoubleConsumer action) {
+			if (index >= end)
+				return false;
+			action.accept(next());
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(DoubleConsumer action) {
+			while (index < end)
+				action.accept(next());
+		}
+
+		@Override
+		public Spliterator.OfDouble trySplit() {
+			int middle = (index + end) >>> 1;
+			if (middle <= index)
+				return null;
+			SampleSpliterator left = new SampleSpliterator(sectionLength_m, index, middle);
+			index = middle;
+			segment = getSegment(index * sectionLength_m);
+			return left;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+		}
+
+		private double next() {
+			double x_m = index * sectionLength_m;
+			while (segment < coefficients.length - 1 && x_m >= breakpoints_m[segment + 1])
+				segment++;
+			index++;
+			return evaluate(coefficients[segment], x_m - breakpoints_m[segment]);
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package org.berthold.beamCalc;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Loops over the primitive arrays of a {@link StressResultantTable}.
+ * <p>
+ * 
+ * The solvers integrate Q(x) and M(x) by walking along the table. Done by the
+ * index based accessors of the table, each step checks for pending line loads
+ * and read only tables. The kernels work on the arrays directly, from index
+ * 'from' to index 'to' (exclusive), so the caller can split a table into
+ * chunks.
+ * <p>
+ * 
+ * Loops without a dependency from one element to the next
+ * ({@link #momentDeltas(double[], double[], int, int, double)},
+ * {@link #markSignChanges(double[], byte[], byte, int, int)}) are plain
+ * counted loops over arrays which the JIT unrolls and vectorizes. The running
+ * sum depends on the previous element and stays scalar, but is free of any
+ * call.
+ * <p>
+ * 
+ * Running sums are compensated (Neumaier): The part of each addition lost by
+ * rounding is collected in a second variable and added to the sum. The error
+ * of a sum does not grow with the number of sections, so fine tables are as
+ * accurate as coarse ones.
+ * <p>
+ * 
+ * Tables with at least {@link #PARALLEL_THRESHOLD} sections are split into
+ * chunks which are processed by all cores (common {@link ForkJoinPool}).
+ * Running sums are done in three steps: Each chunk is summed up on its own,
+ * then the carry of each chunk (sum of all chunks left of it) is determined,
+ * which is finally added to each value of the chunk. The size of the chunks
+ * does not depend on the number of cores, so the result is the same on any
+ * machine with more than one core. On a single core, chunks would only add
+ * work, tables are processed in one piece.
+ * 
+ * @author Berthold
+ *
+ */
+final class StressResultantKernels {
+
+	// Tables with at least this many sections are processed in parallel.
+	static final int PARALLEL_THRESHOLD = 1 << 18;
+
+	// Sections per chunk.
+	private static final int CHUNK_SIZE = 1 << 14;
+
+	/*
+	 * Work done on the sections from index 'from' to 'to' (exclusive).
+	 */
+	interface ChunkAction {
+		void run(int from, int to);
+	}
+
+	private StressResultantKernels() {
+	}
+
+	/**
+	 * Checks if a table is processed in parallel.
+	 * 
+	 * @param length Number of sections.
+	 * @return True if there are at least {@link #PARALLEL_THRESHOLD} sections
+	 *         and more than one core.
+	 */
+	static boolean isParallel(int length) {
+		return length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * Runs an action for the sections from index 'from' to 'to' (exclusive).
+	 * 
+	 * If there are enough sections, they are split into chunks which are
+	 * processed in parallel, otherwise the action is run once for all of them.
+	 * The action must only change the sections passed to it.
+	 * 
+	 * @param from   First index.
+	 * @param to     Index after the last one.
+	 * @param action The action.
+	 */
+	static void forEachChunk(int from, int to, ChunkAction action) {
+		if (!isParallel(to - from)) {
+			action.run(from, to);
+			return;
+		}
+		IntStream.range(0, getNumberOfChunks(from, to)).parallel().forEach(
+				c -> action.run(from + c * CHUNK_SIZE, Math.min(to, from + (c + 1) * CHUNK_SIZE)));
+	}
+
+	/**
+	 * Running sum, in parallel for large tables.
+	 * 
+	 * Same as {@link #prefixSum(double[], int, int, double)} with a carry of 0.
+	 * For large tables the values are added in another order, the result may
+	 * differ in the last digits.
+	 * 
+	 * @param values Values, replaced by the running sum.
+	 * @param from   First index.
+	 * @param to     Index after the last one.
+	 */
+	static void parallelPrefixSum(double[] values, int from, int to) {
+		if (!isParallel(to - from)) {
+			prefixSum(values, from, to, 0);
+			return;
+		}
+
+		// 1: Sum up each chunk on its own
+		double[] carry = new double[getNumberOfChunks(from, to)];
+		IntStream.range(0, carry.length).parallel().forEach(c -> carry[c] = prefixSum(values,
+				from + c * CHUNK_SIZE, Math.min(to, from + (c + 1) * CHUNK_SIZE), 0));
+
+		// 2: Carry of each chunk is the sum of all chunks left of it
+		toCarry(carry);
+
+		// 3: Add carry
+		IntStream.range(1, carry.length).parallel()
+				.forEach(c -> add(values, from + c * CHUNK_SIZE, Math.min(to, from + (c + 1) * CHUNK_SIZE), carry[c]));
+	}
+
+	/**
+	 * Running sum from right to left, in parallel for large tables.
+	 * 
+	 * values[n]=values[n]+values[n+1]+....+values[to-1]
+	 * 
+	 * @param values Values, replaced by the running sum.
+	 * @param from   First index.
+	 * @param to     Index after the last one.
+	 */
+	static void parallelSuffixSum(double[] values, int from, int to) {
+		if (!isParallel(to - from)) {
+			suffixSum(values, from, to, 0);
+			return;
+		}
+
+		// Chunks are counted from the right end
+		double[] carry = new double[getNumberOfChunks(from, to)];
+		IntStream.range(0, carry.length).parallel().forEach(c -> carry[c] = suffixSum(values,
+				Math.max(from, to - (c + 1) * CHUNK_SIZE), to - c * CHUNK_SIZE, 0));
+
+		toCarry(carry);
+
+		IntStream.range(1, carry.length).parallel()
+				.forEach(c -> add(values, Math.max(from, to - (c + 1) * CHUNK_SIZE), to - c * CHUNK_SIZE, carry[c]));
+	}
+
+	/**
+	 * Running sum from right to left.
+	 * 
+	 * @param values Values, replaced by the running sum.
+	 * @param from   First index.
+	 * @param to     Index after the last one.
+	 * @param carry  Sum of all values right of 'to'- 1.
+	 * @return The last sum (at index 'from').
+	 */
+	static double suffixSum(double[] values, int from, int to, double carry) {
+		double sum = carry;
+		double compensation = 0;
+		for (int n = to - 1; n >= from; n--) {
+			double value = values[n];
+			double t = sum + value;
+			compensation = compensation + lostByRounding(sum, value, t);
+			sum = t;
+			values[n] = sum + compensation;
+		}
+		return sum + compensation;
+	}
+
+	/**
+	 * Adds a constant.
+	 * 
+	 * @param values Values.
+	 * @param from   First index.
+	 * @param to     Index after the last one.
+	 * @param value  Value added to each element.
+	 */
+	static void add(double[] values, int from, int to, double value) {
+		for (int n = from; n < to; n++)
+			values[n] = values[n] + value;
+	}
+
+	/**
+	 * Running sum.
+	 * 
+	 * values[n]=carry+values[from]+values[from+1]+....+values[n]
+	 * 
+	 * @param values Values, replaced by the running sum.
+	 * @param from   First index.
+	 * @param to     Index after the last one.
+	 * @param carry  Sum of all values left of 'from'.
+	 * @return The last sum, carry for the next chunk.
+	 */
+	static double prefixSum(double[] values, int from, int to, double carry) {
+		double sum = carry;
+		double compensation = 0;
+		for (int n = from; n < to; n++) {
+			double value = values[n];
+			double t = sum + value;
+			compensation = compensation + lostByRounding(sum, value, t);
+			sum = t;
+			values[n] = sum + compensation;
+		}
+		return sum + compensation;
+	}
+
+	/**
+	 * Part of an addition lost by rounding.
+	 * 
+	 * @param a   First summand.
+	 * @param b   Second summand.
+	 * @param sum a+b as calculated.
+	 * @return Exact a+b minus the sum calculated (Neumaier).
+	 */
+	static double lostByRounding(double a, double b, double sum) {
+		if (Math.abs(a) >= Math.abs(b))
+			return (a - sum) + b;
+		return (b - sum) + a;
+	}
+
+	/**
+	 * Change of the bending moment from section n-1 to section n, same rule as
+	 * the {@link MSolver} uses:
+	 * <p>
+	 * 
+	 * deltaM[n]=Q[n-1] x section length
+	 * <p>
+	 * 
+	 * Q[n-1] is the shearing force along section n-1, including the line loads
+	 * acting on it.
+	 * 
+	 * @param q               Q(x).
+	 * @param deltaM          Receives the changes of M(x).
+	 * @param from            First index, at least 1.
+	 * @param to              Index after the last one.
+	 * @param sectionLength_m Length of the sections.
+	 */
+	static void momentDeltas(double[] q, double[] deltaM, int from, int to, double sectionLength_m) {
+		for (int n = from; n < to; n++)
+			deltaM[n] = q[n - 1] * sectionLength_m;
+	}
+
+	/**
+	 * Marks each section n whose value has another sign than the value of
+	 * section n+1.
+	 * 
+	 * Only reads the values, so chunks can be marked in parallel as soon as all
+	 * values are known. Sign changes at the border of two chunks are found.
+	 * 
+	 * @param values Values.
+	 * @param flags  Bit- packed flags of the table.
+	 * @param flag   Flag to be set.
+	 * @param from   First index.
+	 * @param to     Index after the last one, at most length- 1.
+	 */
+	static void markSignChanges(double[] values, byte[] flags, byte flag, int from, int to) {
+		for (int n = from; n < to; n++)
+			if (Math.signum(values[n]) != Math.signum(values[n + 1]))
+				flags[n] = (byte) (flags[n] | flag);
+	}
+
+	/*
+	 * Replaces the sum of each chunk by the sum of all chunks before it.
+	 */
+	private static void toCarry(double[] sums) {
+		double carry = 0;
+		double compensation = 0;
+		for (int c = 0; c <= sums.length - 1; c++) {
+			double sum = sums[c];
+			sums[c] = carry + compensation;
+			double t = carry + sum;
+			compensation = compensation + lostByRounding(carry, sum, t);
+			carry = t;
+		}
+	}
+
+	private static int getNumberOfChunks(int from, int to) {
+		return (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+}
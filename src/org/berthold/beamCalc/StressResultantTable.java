@@ -1,7 +1,16 @@
 package org.berthold.beamCalc;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * A table containing {@link StressResultant}- objects
@@ -11,6 +20,19 @@ import java.util.List;
  * 
  * After a calculation is done, this contains the stress resultants along a
  * {@link Beam}- object.
+ * <p>
+ * 
+ * The table does not hold one object per section. Positions, values and the
+ * force deltas are stored in primitive arrays, the flags (discontinuity, zero
+ * point, maxima) are bit- packed into one byte per section and the unit is
+ * shared by all sections. Names are only stored for the few sections at which
+ * a named load acts.
+ * <p>
+ * 
+ * Solvers should use the index based accessors (e.g.
+ * {@link #getValueAtIndex(int)}). {@link #getShearingForceAtIndex(int)} and
+ * {@link #sfValues} still return {@link StressResultant}- objects, but these
+ * are lightweight views reading from and writing to this table.
  * 
  * @author Berthold
  *
@@ -19,11 +41,41 @@ public class StressResultantTable {
 
 	private static final double DISCONTIUNUITY_THRESHOLD = .01;
 
-	public List<StressResultant> sfValues = new ArrayList<StressResultant>(); 
+	// Fraction of the section length within which a position counts as
+	// being at the start of a section.
+	static final double SECTION_BORDER_TOLERANCE = 1e-6;
+
+	// Bit- packed flags, see getFlagArray()
+	static final byte FLAG_DISCONTIUNUITY = 1;
+	static final byte FLAG_ZERO_POINT = 2;
+	static final byte FLAG_MAXIMA = 4;
+
+	/**
+	 * The stress resultants of this table.
+	 * 
+	 * This list is a view of this table, it creates a {@link StressResultant}
+	 * for each element accessed. Elements can be replaced but not added or
+	 * removed.
+	 */
+	public final List<StressResultant> sfValues = new StressResultantList();
+
 	private double sectionLength_m;
-	private Beam beam;
+	private double lengthOfBeam_m;
 	private String unit;
 
+	private int length;
+	private double[] x_m;
+	private double[] values;
+	private double[] shearingForceDeltaBy;
+	private byte[] flags;
+	private Map<Integer, String> names = new HashMap<Integer, String>();
+
+	// Line loads registered but not yet superimposed, see addDistributedLoad()
+	private DistributedLoadAccumulator pendingDistributedLoads;
+
+	// Set for tables shared between threads, see setReadOnly()
+	private boolean readOnly;
+
 	/**
 	 * A new Stress resultant table.
 	 * 
@@ -34,15 +86,85 @@ public class StressResultantTable {
 	 * @param sectionLength_m Sections between the forces acting.
 	 */
 	public StressResultantTable(Beam beam, double sectionLength_m, String unit) {
-		this.beam = beam;
+		this(beam.getLength(), sectionLength_m, unit);
+	}
+
+	/**
+	 * A new Stress resultant table.
+	 * 
+	 * Same as {@link #StressResultantTable(Beam, double, String)}.
+	 * 
+	 * @param beam            A {@link BeamSnapshot} from which the table is build.
+	 * @param sectionLength_m Sections between the forces acting.
+	 */
+	public StressResultantTable(BeamSnapshot beam, double sectionLength_m, String unit) {
+		this(beam.getLength(), sectionLength_m, unit);
+	}
+
+	/**
+	 * A new, empty table with sections of equal length.
+	 * 
+	 * @param lengthOfBeam_m  Length of the beam.
+	 * @param sectionLength_m Length of the sections.
+	 * @param unit            The unit (N, Nm etc...).
+	 */
+	StressResultantTable(double lengthOfBeam_m, double sectionLength_m, String unit) {
+		if (!(sectionLength_m > 0))
+			throw new IllegalArgumentException("Section length must be greater than 0, was " + sectionLength_m);
+
+		this.lengthOfBeam_m = lengthOfBeam_m;
 		this.sectionLength_m = sectionLength_m;
 		this.unit = unit;
 
-		// Create empty list with acting forces and add supporting forces
-		for (double x_m = 0; x_m <= (beam.getLength()); x_m = x_m + sectionLength_m) {
-			StressResultant q = new StressResultant(x_m, 0, unit);
-			sfValues.add(q);
-		}
+		// Position of section n is n x section length. Calculated from the index,
+		// not by adding up the section lengths, so there is no rounding error
+		// growing along the beam. The last section is at the end of the beam if
+		// the section length divides the length of the beam.
+		length = (int) Math.floor(lengthOfBeam_m / sectionLength_m + SECTION_BORDER_TOLERANCE) + 1;
+
+		x_m = new double[length];
+		values = new double[length];
+		shearingForceDeltaBy = new double[length];
+		flags = new byte[length];
+
+		for (int n = 0; n <= length - 1; n++)
+			x_m[n] = n * sectionLength_m;
+	}
+
+	/**
+	 * A new stress resultant table with sections of different length.
+	 * 
+	 * Used for adaptive grids, see
+	 * {@link StressResultantFunction#toAdaptiveTable(Beam, double)}.
+	 * 
+	 * @param beam   A {@link Beam}- object from which the table is build.
+	 * @param x_m    Ascending positions of the sections. At a point of
+	 *               discontinuity two sections may share the same position.
+	 * @param values Stress resultant at each position.
+	 * @param unit   The unit (N, Nm etc...).
+	 */
+	StressResultantTable(Beam beam, double[] x_m, double[] values, String unit) {
+		this(beam.getLength(), x_m, values, unit);
+	}
+
+	/**
+	 * A new stress resultant table with sections of different length.
+	 * 
+	 * @param lengthOfBeam_m Length of the beam.
+	 * @param x_m            Ascending positions of the sections.
+	 * @param values         Stress resultant at each position.
+	 * @param unit           The unit (N, Nm etc...).
+	 */
+	StressResultantTable(double lengthOfBeam_m, double[] x_m, double[] values, String unit) {
+		this.lengthOfBeam_m = lengthOfBeam_m;
+		this.sectionLength_m = 0;
+		this.unit = unit;
+
+		length = x_m.length;
+		this.x_m = x_m;
+		this.values = values;
+		shearingForceDeltaBy = new double[length];
+		flags = new byte[length];
 	}
 
 	/**
@@ -51,19 +173,41 @@ public class StressResultantTable {
 	 * @return Size of the table.
 	 */
 	public int getLength() {
-		return sfValues.size();
+		return length;
 	}
 
 	/**
 	 * Section length.
 	 * 
 	 * @return The length between each section the beam is divided into (the space
-	 *         between the resultant forces).
+	 *         between the resultant forces). 0 if the sections are of different
+	 *         length.
 	 */
 	public double getSectionLength_m() {
 		return sectionLength_m;
 	}
 
+	/**
+	 * Checks if all sections of this table have the same length.
+	 * 
+	 * Tables obtained from an adaptive grid are not uniform. Loads can not be
+	 * added to them and the {@link MSolver} can not integrate them.
+	 * 
+	 * @return True if all sections have the same length.
+	 */
+	public boolean isUniform() {
+		return sectionLength_m > 0;
+	}
+
+	/**
+	 * The unit shared by all stress resultants of this table.
+	 * 
+	 * @return Unit e.g. N, Nm etc...
+	 */
+	public String getUnit() {
+		return unit;
+	}
+
 	/**
 	 * Stress resultant at a specified index in the table.
 	 * 
@@ -73,10 +217,11 @@ public class StressResultantTable {
 	 * position of the force relative the the left end of the beam.
 	 * 
 	 * @param index
-	 * @return Shearing force.
+	 * @return Shearing force. This is a view, changes are written back to this
+	 *         table.
 	 */
 	public StressResultant getShearingForceAtIndex(int index) {
-		return sfValues.get(index);
+		return new StressResultantView(this, index);
 	}
 
 	/**
@@ -88,64 +233,481 @@ public class StressResultantTable {
 	 * @param stressResultantValue The shearing force.
 	 */
 	public void setAtIndex(int index, StressResultant stressResultantValue) {
-		sfValues.set(index, stressResultantValue);
+		// Views of this very section carry nothing to copy.
+		if (stressResultantValue instanceof StressResultantView
+				&& ((StressResultantView) stressResultantValue).isViewOf(this, index))
+			return;
+
+		checkWritable();
+		superimposeDistributedLoads();
+		x_m[index] = stressResultantValue.getX_m();
+		values[index] = stressResultantValue.getShearingForce();
+		shearingForceDeltaBy[index] = stressResultantValue.getShearingForceDeltaBy();
+		setDiscontiunuityAtIndex(index, stressResultantValue.isDiscontiunuity());
+		setZeroPointAtIndex(index, stressResultantValue.isZeroPoint());
+		setMaximaAtIndex(index, stressResultantValue.isMaxima());
+		setNameAtIndex(index, stressResultantValue.getName());
+	}
+
+	/*
+	 * Index based accessors.
+	 */
+
+	/**
+	 * Position of the stress resultant at the specified index.
+	 * 
+	 * @param index
+	 * @return Position relative to the left end of the beam.
+	 */
+	public double getX_mAtIndex(int index) {
+		return x_m[index];
+	}
+
+	/**
+	 * Sets the position of the stress resultant at the specified index.
+	 * 
+	 * @param index
+	 * @param x_m   Position relative to the left end of the beam.
+	 */
+	public void setX_mAtIndex(int index, double x_m) {
+		checkWritable();
+		this.x_m[index] = x_m;
+	}
+
+	/**
+	 * Magnitude of the stress resultant at the specified index.
+	 * 
+	 * @param index
+	 * @return Stress resultant value.
+	 */
+	public double getValueAtIndex(int index) {
+		superimposeDistributedLoads();
+		return values[index];
+	}
+
+	/**
+	 * Replaces the magnitude of the stress resultant at the specified index.
+	 * 
+	 * @param index
+	 * @param value New value.
+	 */
+	public void setValueAtIndex(int index, double value) {
+		checkWritable();
+		superimposeDistributedLoads();
+		values[index] = value;
+	}
+
+	/**
+	 * Adds an arbitrary value to the stress resultant at the specified index.
+	 * 
+	 * @param index
+	 * @param value Value to be added.
+	 */
+	public void addValueAtIndex(int index, double value) {
+		checkWritable();
+		values[index] = values[index] + value;
+	}
+
+	/**
+	 * Checks if the stress resultant at the specified index acts at a point of
+	 * discontinuity (a single load acting or start/ end of a line load).
+	 * 
+	 * @param index
+	 * @return True if it does.
+	 */
+	public boolean isDiscontiunuityAtIndex(int index) {
+		return (flags[index] & FLAG_DISCONTIUNUITY) != 0;
+	}
+
+	/**
+	 * Marks the stress resultant at the specified index as a point of
+	 * discontinuity.
+	 * 
+	 * @param index
+	 * @param isDiscontiunuity True if it is one.
+	 */
+	public void setDiscontiunuityAtIndex(int index, boolean isDiscontiunuity) {
+		setFlag(index, FLAG_DISCONTIUNUITY, isDiscontiunuity);
+	}
+
+	/**
+	 * Checks if the stress resultant at the specified index is a zero point.
+	 * 
+	 * @param index
+	 * @return True if it is.
+	 */
+	public boolean isZeroPointAtIndex(int index) {
+		return (flags[index] & FLAG_ZERO_POINT) != 0;
+	}
+
+	/**
+	 * Marks the stress resultant at the specified index as a zero point.
+	 * 
+	 * @param index
+	 * @param isZeroPoint True if it is one.
+	 */
+	public void setZeroPointAtIndex(int index, boolean isZeroPoint) {
+		setFlag(index, FLAG_ZERO_POINT, isZeroPoint);
+	}
+
+	/**
+	 * Checks if the stress resultant at the specified index is a local maximum.
+	 * 
+	 * @param index
+	 * @return True if it is.
+	 */
+	public boolean isMaximaAtIndex(int index) {
+		return (flags[index] & FLAG_MAXIMA) != 0;
+	}
+
+	/**
+	 * Marks the stress resultant at the specified index as a local maximum.
+	 * 
+	 * @param index
+	 * @param isMaxima True if it is one.
+	 */
+	public void setMaximaAtIndex(int index, boolean isMaxima) {
+		setFlag(index, FLAG_MAXIMA, isMaxima);
+	}
+
+	/**
+	 * Force acting at the specified index.
+	 * 
+	 * @param index
+	 * @return The force by which the stress resultant changes here.
+	 */
+	public double getShearingForceDeltaByAtIndex(int index) {
+		return shearingForceDeltaBy[index];
+	}
+
+	/**
+	 * Sets the force acting at the specified index.
+	 * 
+	 * @param index
+	 * @param shearingForceDeltaBy The force by which the stress resultant changes
+	 *                             here.
+	 */
+	public void setShearingForceDeltaByAtIndex(int index, double shearingForceDeltaBy) {
+		checkWritable();
+		this.shearingForceDeltaBy[index] = shearingForceDeltaBy;
+	}
+
+	/**
+	 * Name of the load acting at the specified index.
+	 * 
+	 * @param index
+	 * @return Name or null if no named load acts here.
+	 */
+	public String getNameAtIndex(int index) {
+		return names.get(index);
+	}
+
+	/**
+	 * Sets the name of the load acting at the specified index.
+	 * 
+	 * @param index
+	 * @param name  Name of the associated {@link Load}- object.
+	 */
+	public void setNameAtIndex(int index, String name) {
+		checkWritable();
+		if (name == null)
+			names.remove(index);
+		else
+			names.put(index, name);
+	}
+
+	/*
+	 * Sets or clears a flag.
+	 */
+	private void setFlag(int index, byte flag, boolean set) {
+		checkWritable();
+		if (set)
+			flags[index] = (byte) (flags[index] | flag);
+		else
+			flags[index] = (byte) (flags[index] & ~flag);
 	}
 
 	/**
 	 * Adds a point load to this table.
 	 * 
+	 * The index of the section is calculated directly from the position of the
+	 * load, cost is O(1). A load acting exactly at the border between two
+	 * sections is always added to the right one. Loads outside of the beam are
+	 * ignored.
+	 * 
 	 * @param l The {@link Load}- object representing the load.
 	 */
 	public void addForce(Load l) {
+		addForce(l.getName(), l.getForce_N(), l.getDistanceFromLeftEndOfBeam_m());
+	}
 
-		double x_m = l.getDistanceFromLeftEndOfBeam_m();
-		double force_N = l.getForce_N();
-
-		int n = 0;
-		for (double i = 0; i < beam.getLength(); i = i + sectionLength_m) {
+	/**
+	 * Adds a point load to this table.
+	 * 
+	 * Same as {@link #addForce(Load)}, used by solvers which do not want to
+	 * create a {@link Load}- object for each force.
+	 * 
+	 * @param name    Name of the load.
+	 * @param force_N The force acting.
+	 * @param x_m     Position relative to the left end of the beam.
+	 */
+	void addForce(String name, double force_N, double x_m) {
+		checkWritable();
+		checkUniform();
+
+		if (!isInsideOfBeamLength(x_m))
+			return;
+
+		int n = getIndexOfSection(x_m);
+		setNameAtIndex(n, name);
+		setDiscontiunuityAtIndex(n, true);
+		values[n] = values[n] + force_N;
+		this.x_m[n] = x_m;
+	}
 
-			if (x_m >= i && x_m < i + sectionLength_m) {
-				StressResultant q = this.sfValues.get(n);
+	/**
+	 * Adds point loads to this table.
+	 * 
+	 * Cost is O(number of loads).
+	 * 
+	 * @param loads {@link Load}- objects representing point loads.
+	 */
+	public void addForces(Collection<Load> loads) {
+		for (Load l : loads)
+			addForce(l);
+	}
 
-				q.setName(l.getName());
-				q.setDiscontiunuity(true);
-				q.addValue(force_N);
-				//q.setShearingForce(force_N);
-				q.setX_m(x_m);
-			}
-			n++;
-		}
+	/**
+	 * Index of the section containing a position.
+	 * 
+	 * Positions which are, within a small fraction of the section length, at
+	 * the start of a section are assigned to that section. This way the result
+	 * does not depend on rounding errors (e.g. 1.0/ 0.001=999.9999999999999).
+	 * 
+	 * @param x_m Position relative to the left end of the beam.
+	 * @return Index of the section, limited to the size of the table.
+	 */
+	int getIndexOfSection(double x_m) {
+		int n = (int) Math.floor(x_m / sectionLength_m + SECTION_BORDER_TOLERANCE);
+		return Math.max(0, Math.min(length - 1, n));
 	}
 
 	/**
-	 * Superimposes a uniformly distributed load.
+	 * Superimposes a uniformly distributed or a uniformly changing line load.
+	 * <p>
+	 * 
+	 * The load is only registered here, cost is O(1). All loads registered are
+	 * superimposed in a single pass over the table the next time a value is read
+	 * from it.
+	 * <p>
+	 * 
+	 * Each section inside the load gets the force acting on it: q(x) x section
+	 * length. The force per section q(x)=qStart+(qEnd-qStart) x (x-xStart)/length
+	 * changes linearly from section to section, see
+	 * {@link DistributedLoadAccumulator}.
 	 * 
 	 * @param dl_Nm Load.
 	 */
 	public void addDistributedLoad(Load dl_Nm) {
+		addDistributedLoad(dl_Nm.getDistanceFromLeftEndOfBeam_m(), dl_Nm.getLengthOfLineLoad_m(),
+				dl_Nm.getForceStart_N(), dl_Nm.getForceEnd_N());
+	}
+
+	/**
+	 * Superimposes a uniformly distributed or a uniformly changing line load.
+	 * 
+	 * Same as {@link #addDistributedLoad(Load)}, used by solvers which do not
+	 * want to create a {@link Load}- object for each load.
+	 * 
+	 * @param xStartOfLoad   Start of the load relative to the left end of the
+	 *                       beam.
+	 * @param lengthOfLoad_m Length of the load.
+	 * @param forceStart_N   Force/ m at the start.
+	 * @param forceEnd_N     Force/ m at the end.
+	 */
+	void addDistributedLoad(double xStartOfLoad, double lengthOfLoad_m, double forceStart_N, double forceEnd_N) {
+		checkWritable();
+		checkUniform();
+
+		double xEndOfLoad = xStartOfLoad + lengthOfLoad_m;
+
+		if (lengthOfLoad_m <= 0)
+			return;
+
+		// Sections starting inside the load. The section starting at the end of
+		// the load is not loaded.
+		int first = Math.max(0, (int) Math.ceil(xStartOfLoad / sectionLength_m - SECTION_BORDER_TOLERANCE));
+		int last = Math.min(length - 1,
+				(int) Math.ceil(xEndOfLoad / sectionLength_m - SECTION_BORDER_TOLERANCE) - 1);
+
+		// Force per section: a+b x n, q(x) taken at the middle of the section.
+		// This is the exact force acting on the section.
+		double changePerMeter = (forceEnd_N - forceStart_N) / lengthOfLoad_m;
+		double b = changePerMeter * sectionLength_m * sectionLength_m;
+		double a = (forceStart_N - changePerMeter * (xStartOfLoad - sectionLength_m / 2)) * sectionLength_m;
+
+		if (first <= last) {
+			if (pendingDistributedLoads == null)
+				pendingDistributedLoads = new DistributedLoadAccumulator(length);
+			pendingDistributedLoads.add(first, last, a, b);
+		}
+
+		// Set disconiuity at start and end of load
+		if (isInsideOfBeamLength(xStartOfLoad))
+			setDiscontiunuityAtIndex(getIndexOfSection(xStartOfLoad), true);
+
+		if (isInsideOfBeamLength(xEndOfLoad)) {
+			int n = getIndexOfSection(xEndOfLoad);
+			setDiscontiunuityAtIndex(n, true);
+			shearingForceDeltaBy[n] = forceEnd_N * sectionLength_m;
+		}
+	}
+
+	/**
+	 * Superimposes uniformly distributed or uniformly changing line loads.
+	 * 
+	 * Cost is O(number of loads + number of sections).
+	 * 
+	 * @param loads Line loads.
+	 */
+	public void addDistributedLoads(Collection<Load> loads) {
+		for (Load l : loads)
+			addDistributedLoad(l);
+		superimposeDistributedLoads();
+	}
 
-		double dq_perSectionLength = dl_Nm.getForce_N() / (1 / this.sectionLength_m);
-		double xStartOfLoad = dl_Nm.getDistanceFromLeftEndOfBeam_m();
-		double xEndOfLoad = dl_Nm.getDistanceFromLeftEndOfBeam_m() + dl_Nm.getLengthOfLineLoad_m();
+	/*
+	 * Adds all line loads registered to this table.
+	 */
+	private void superimposeDistributedLoads() {
+		if (pendingDistributedLoads == null)
+			return;
 
-		for (StressResultant r : this.sfValues) {
+		DistributedLoadAccumulator lineLoads = takeDistributedLoads();
+		if (lineLoads == null)
+			return;
 
-			// Set disconiuity at start of load
-			if (xStartOfLoad >= r.getX_m() && xStartOfLoad <= r.getX_m() + this.sectionLength_m) {
-				r.setDiscontiunuity(true);
-				r.addValue(dq_perSectionLength);
-			}
+		lineLoads.addTo(values);
+	}
+
+	/**
+	 * Removes all line loads registered but not yet superimposed from this table.
+	 * 
+	 * Used by solvers which superimpose the line loads themselves while walking
+	 * along the table (see {@link QMNSolver}).
+	 * 
+	 * @return The line loads or null if there are none.
+	 */
+	DistributedLoadAccumulator takeDistributedLoads() {
+		DistributedLoadAccumulator lineLoads = pendingDistributedLoads;
+		pendingDistributedLoads = null;
+		return lineLoads;
+	}
 
-			// Add load
-			if (r.getX_m() >= xStartOfLoad && r.getX_m() <= xEndOfLoad)
-				r.addValue(dq_perSectionLength);
+	/**
+	 * Values of this table, for the {@link StressResultantKernels}.
+	 * 
+	 * All line loads registered are superimposed first. Writing to the array
+	 * changes this table.
+	 * 
+	 * @return The array holding the values.
+	 */
+	double[] getValueArray() {
+		checkWritable();
+		superimposeDistributedLoads();
+		return values;
+	}
 
-			// Set disconiuity at end of load
-			if (xEndOfLoad >= r.getX_m() && xEndOfLoad <= r.getX_m() + this.sectionLength_m) {
-				r.setDiscontiunuity(true);
-				r.setShearingForceDeltaBy(dq_perSectionLength);
-			}
-		}
+	/**
+	 * Positions of the sections of this table, see {@link #getX_mAtIndex(int)}.
+	 * 
+	 * @return The array holding the positions.
+	 */
+	double[] getX_mArray() {
+		checkWritable();
+		return x_m;
+	}
+
+	/**
+	 * Force deltas of this table, see {@link #getShearingForceDeltaByAtIndex(int)}.
+	 * 
+	 * @return The array holding the force deltas.
+	 */
+	double[] getShearingForceDeltaByArray() {
+		checkWritable();
+		return shearingForceDeltaBy;
+	}
+
+	/**
+	 * Names of the loads acting, see {@link #getNameAtIndex(int)}.
+	 * 
+	 * @return Name of each section a named load acts at, by index.
+	 */
+	Map<Integer, String> getNames() {
+		return Collections.unmodifiableMap(names);
+	}
+
+	/**
+	 * Length of the beam this table belongs to.
+	 * 
+	 * @return Length.
+	 */
+	double getLengthOfBeam_m() {
+		return lengthOfBeam_m;
+	}
+
+	/**
+	 * Bit- packed flags of this table, for the {@link StressResultantKernels}.
+	 * 
+	 * @return The array holding the flags, one byte per section.
+	 */
+	byte[] getFlagArray() {
+		checkWritable();
+		return flags;
+	}
+
+	/**
+	 * Makes this table read only.
+	 * 
+	 * All line loads registered are superimposed, afterwards any attempt to
+	 * change the table throws an {@link UnsupportedOperationException}. A read
+	 * only table can be shared between threads, see {@link BeamResultCache}.
+	 */
+	void setReadOnly() {
+		superimposeDistributedLoads();
+		readOnly = true;
+	}
+
+	/**
+	 * Checks if this table can be changed.
+	 * 
+	 * @return True if this table is read only.
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Estimated memory used by this table.
+	 * 
+	 * @return Size in bytes.
+	 */
+	long getSizeInBytes() {
+		return 64 + (long) length * (3 * 8 + 1) + (long) names.size() * 64;
+	}
+
+	private void checkWritable() {
+		if (readOnly)
+			throw new UnsupportedOperationException("Table is read only");
+	}
+
+	private boolean isInsideOfBeamLength(double x_m) {
+		return x_m >= 0 && x_m <= lengthOfBeam_m;
+	}
+
+	private void checkUniform() {
+		if (!isUniform())
+			throw new UnsupportedOperationException("Loads can only be added to tables with sections of equal length");
 	}
 
 	/**
@@ -165,9 +727,9 @@ public class StressResultantTable {
 	public List<StressResultant> getMaxima() {
 		List<StressResultant> maxima = new ArrayList<>();
 
-		for (StressResultant r : this.sfValues)
-			if (r.isMaxima())
-				maxima.add(r);
+		for (int n = 0; n <= length - 1; n++)
+			if (isMaximaAtIndex(n))
+				maxima.add(getShearingForceAtIndex(n));
 
 		return maxima;
 	}
@@ -181,9 +743,9 @@ public class StressResultantTable {
 	public List<StressResultant> getDiscontinuitys() {
 		List<StressResultant> discontinuity = new ArrayList<>();
 
-		for (StressResultant r : this.sfValues)
-			if (r.isDiscontiunuity())
-				discontinuity.add(r);
+		for (int n = 0; n <= length - 1; n++)
+			if (isDiscontiunuityAtIndex(n))
+				discontinuity.add(getShearingForceAtIndex(n));
 
 		return discontinuity;
 	}
@@ -197,13 +759,89 @@ public class StressResultantTable {
 	public List<StressResultant> getZeroPoints() {
 		List<StressResultant> zeroPoints = new ArrayList<>();
 
-		for (StressResultant r : this.sfValues)
-			if (r.isZeroPoint())
-				zeroPoints.add(r);
+		for (int n = 0; n <= length - 1; n++)
+			if (isZeroPointAtIndex(n))
+				zeroPoints.add(getShearingForceAtIndex(n));
 
 		return zeroPoints;
 	}
 
+	/**
+	 * Values of this table as a stream.
+	 * <p>
+	 * 
+	 * Reads the values directly, no {@link StressResultant}- objects are
+	 * created. The table must not be changed while the stream is used. To
+	 * sample a stress resultant without creating a table at all, see
+	 * {@link StressResultantFunction#sample(double)}.
+	 * 
+	 * @return Values from the left to the right end of the beam.
+	 */
+	public DoubleStream values() {
+		superimposeDistributedLoads();
+		return Arrays.stream(values, 0, length);
+	}
+
+	/**
+	 * Positions of the sections of this table as a stream.
+	 * 
+	 * @return x- values from the left to the right end of the beam.
+	 */
+	public DoubleStream positions() {
+		return Arrays.stream(x_m, 0, length);
+	}
+
+	/**
+	 * Stress resultants of this table as a stream.
+	 * 
+	 * Each {@link StressResultant}- object is created when the stream asks for
+	 * it, same as for {@link #sfValues}.
+	 * 
+	 * @return Stream of {@link StressResultant}- objects.
+	 */
+	public Stream<StressResultant> stream() {
+		superimposeDistributedLoads();
+		return IntStream.range(0, length).mapToObj(this::getShearingForceAtIndex);
+	}
+
+	/**
+	 * All maxima of this table as a stream.
+	 * 
+	 * Same as {@link #getMaxima()}, but no list is created.
+	 * 
+	 * @return Stream of {@link StressResultant}- objects.
+	 */
+	public Stream<StressResultant> streamMaxima() {
+		return streamFlagged(FLAG_MAXIMA);
+	}
+
+	/**
+	 * All points of discontinuity of this table as a stream.
+	 * 
+	 * Same as {@link #getDiscontinuitys()}, but no list is created.
+	 * 
+	 * @return Stream of {@link StressResultant}- objects.
+	 */
+	public Stream<StressResultant> streamDiscontinuitys() {
+		return streamFlagged(FLAG_DISCONTIUNUITY);
+	}
+
+	/**
+	 * All zero points of this table as a stream.
+	 * 
+	 * Same as {@link #getZeroPoints()}, but no list is created.
+	 * 
+	 * @return Stream of {@link StressResultant}- objects.
+	 */
+	public Stream<StressResultant> streamZeroPoints() {
+		return streamFlagged(FLAG_ZERO_POINT);
+	}
+
+	private Stream<StressResultant> streamFlagged(byte flag) {
+		superimposeDistributedLoads();
+		return IntStream.range(0, length).filter(n -> (flags[n] & flag) != 0).mapToObj(this::getShearingForceAtIndex);
+	}
+
 	/**
 	 * Determines the biggest value in this table.
 	 * 
@@ -212,12 +850,11 @@ public class StressResultantTable {
 
 	public double getAbsMax() {
 		double max = 0;
-		double currentMax;
 
-		for (int i = 0; i <= sfValues.size() - 1; i++) {
-			currentMax = sfValues.get(i).getShearingForce();
-			if (currentMax > max)
-				max = currentMax;
+		superimposeDistributedLoads();
+		for (int i = 0; i <= length - 1; i++) {
+			if (values[i] > max)
+				max = values[i];
 		}
 		return max;
 	}
@@ -229,12 +866,11 @@ public class StressResultantTable {
 	 */
 	public double getAbsMin() {
 		double min = 0;
-		double currentMin;
 
-		for (int i = 0; i <= sfValues.size() - 1; i++) {
-			currentMin = sfValues.get(i).getShearingForce();
-			if (currentMin < min)
-				min = currentMin;
+		superimposeDistributedLoads();
+		for (int i = 0; i <= length - 1; i++) {
+			if (values[i] < min)
+				min = values[i];
 		}
 		return min;
 	}
@@ -246,7 +882,38 @@ public class StressResultantTable {
 	 * @return Beggest x- value.
 	 */
 	public double getAbsMaxX() {
-		int last = sfValues.size() - 1;
-		return sfValues.get(last).getX_m();
+		return x_m[length - 1];
+	}
+
+	/*
+	 * List view backing the public sfValues field.
+	 */
+	private class StressResultantList extends AbstractList<StressResultant> {
+
+		@Override
+		public StressResultant get(int index) {
+			if (index < 0 || index >= length)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+			return getShearingForceAtIndex(index);
+		}
+
+		@Override
+		public StressResultant set(int index, StressResultant element) {
+			superimposeDistributedLoads();
+			StressResultant previous = new StressResultant(x_m[index], values[index], unit);
+			previous.setShearingForceDeltaBy(shearingForceDeltaBy[index]);
+			previous.setDiscontiunuity(isDiscontiunuityAtIndex(index));
+			previous.setZeroPoint(isZeroPointAtIndex(index));
+			previous.setMaxima(isMaximaAtIndex(index));
+			previous.setName(getNameAtIndex(index));
+
+			setAtIndex(index, element);
+			return previous;
+		}
+
+		@Override
+		public int size() {
+			return length;
+		}
 	}
 }
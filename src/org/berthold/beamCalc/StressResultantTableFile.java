@@ -0,0 +1,501 @@
+package org.berthold.beamCalc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * Binary file holding the contents of a {@link StressResultantTable}.
+ * <p>
+ * 
+ * Tables are written by {@link #write(StressResultantTable, Path)} and
+ * reloaded by {@link #open(Path)} without solving the beam again. The file is
+ * memory mapped, the object returned by {@link #open(Path)} is a read only view
+ * of it. Values are not parsed or copied into the heap, the operating system
+ * pages them in when they are read. {@link #toTable()} copies the view into a
+ * new table, e.g. to draw it.
+ * <p>
+ * 
+ * File format, version 2. All numbers are little endian:
+ * 
+ * <pre>
+ *  0 int    Magic number 'BCRT'
+ *  4 short  Version
+ *  6 short  0
+ *  8 int    Number of sections n
+ * 12 int    Bit 0 set: Sections of equal length
+ * 16 double Section length in m, 0 if the sections are of different length
+ * 24 double Length of the beam in m
+ * 32 long   Offset of the strings
+ * 40        0 up to byte 64
+ * 64        Positions (n doubles)
+ *           Values (n doubles)
+ *           Force deltas (n doubles)
+ *           Flags (n bytes, same bits as inside of the table)
+ *           0 up to the next multiple of 8
+ *           Strings: Unit, number of names (int), for each name the index of
+ *           the section (int) and the name. A string is stored as its length
+ *           in bytes (int) followed by the bytes (UTF-8).
+ * </pre>
+ * 
+ * Positions are stored for sections of equal length too, a point load moves the
+ * position of its section to the position of the load. Version 1 stored
+ * positions only if the sections are of different length.
+ * <p>
+ * 
+ * Readers of a later version can read older files. Files of a later version are
+ * rejected.
+ * 
+ * @author Berthold
+ *
+ */
+public class StressResultantTableFile {
+
+	// 'BCRT'
+	private static final int MAGIC = 0x42435254;
+	private static final short VERSION = 2;
+
+	private static final int HEADER_SIZE = 64;
+	private static final int FLAG_UNIFORM = 1;
+
+	// Large tables are mapped in pieces of this many bytes.
+	private static final int MAPPING_SIZE = 1 << 30;
+	private static final int DOUBLES_PER_MAPPING = MAPPING_SIZE / 8;
+
+	private final int version;
+	private final int length;
+	private final double sectionLength_m;
+	private final double lengthOfBeam_m;
+	private final boolean uniform;
+	private final String unit;
+	private final Map<Integer, String> names;
+
+	// Null if not stored (version 1, sections of equal length)
+	private final DoubleBuffer[] x_m;
+	private final DoubleBuffer[] values;
+	private final DoubleBuffer[] shearingForceDeltaBy;
+	private final ByteBuffer[] flags;
+
+	private StressResultantTableFile(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size < HEADER_SIZE)
+			throw new IOException("Not a stress resultant table file");
+
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getInt(0) != MAGIC)
+			throw new IOException("Not a stress resultant table file");
+		version = header.getShort(4);
+		if (version < 1 || version > VERSION)
+			throw new IOException("Unsupported version " + version + ", expected " + VERSION + " or less");
+
+		length = header.getInt(8);
+		uniform = (header.getInt(12) & FLAG_UNIFORM) != 0;
+		boolean positionsStored = version >= 2 || !uniform;
+		sectionLength_m = header.getDouble(16);
+		lengthOfBeam_m = header.getDouble(24);
+		long offsetOfStrings = header.getLong(32);
+
+		if (length < 1 || offsetOfStrings != getOffsetOfStrings(length, positionsStored) || offsetOfStrings > size)
+			throw new IOException("Table file is damaged or incomplete");
+
+		long position = HEADER_SIZE;
+		if (positionsStored) {
+			x_m = mapDoubles(channel, position, length);
+			position = position + 8L * length;
+		} else {
+			x_m = null;
+		}
+		values = mapDoubles(channel, position, length);
+		position = position + 8L * length;
+		shearingForceDeltaBy = mapDoubles(channel, position, length);
+		position = position + 8L * length;
+		flags = mapBytes(channel, position, length);
+
+		// Strings are small, they are read into the heap
+		ByteBuffer strings = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, size - offsetOfStrings))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		while (strings.hasRemaining())
+			if (channel.read(strings, offsetOfStrings + strings.position()) < 0)
+				break;
+		strings.flip();
+
+		try {
+			unit = getString(strings);
+			int numberOfNames = strings.getInt();
+			Map<Integer, String> names = new HashMap<Integer, String>();
+			for (int i = 0; i <= numberOfNames - 1; i++) {
+				int index = strings.getInt();
+				names.put(index, getString(strings));
+			}
+			this.names = Collections.unmodifiableMap(names);
+		} catch (RuntimeException e) {
+			throw new IOException("Table file is damaged or incomplete", e);
+		}
+	}
+
+	/**
+	 * Writes a table to a file.
+	 * 
+	 * An existing file is replaced. The table is written through a memory mapped
+	 * buffer, all line loads registered are superimposed first.
+	 * 
+	 * @param table The {@link StressResultantTable} to be written.
+	 * @param path  The file.
+	 * @throws IOException If the file could not be written.
+	 */
+	public static void write(StressResultantTable table, Path path) throws IOException {
+		int length = table.getLength();
+		boolean uniform = table.isUniform();
+		long offsetOfStrings = getOffsetOfStrings(length, true);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(0, MAGIC);
+			header.putShort(4, VERSION);
+			header.putInt(8, length);
+			header.putInt(12, uniform ? FLAG_UNIFORM : 0);
+			header.putDouble(16, table.getSectionLength_m());
+			header.putDouble(24, table.getLengthOfBeam_m());
+			header.putLong(32, offsetOfStrings);
+			writeFully(channel, header, 0);
+
+			// Read only tables can be written too, so the values are read by
+			// the index based accessors.
+			long position = HEADER_SIZE;
+			putDoubles(channel, position, length, table::getX_mAtIndex);
+			position = position + 8L * length;
+			putDoubles(channel, position, length, table::getValueAtIndex);
+			position = position + 8L * length;
+			putDoubles(channel, position, length, table::getShearingForceDeltaByAtIndex);
+			position = position + 8L * length;
+			putFlags(channel, position, table);
+
+			// Strings
+			Map<Integer, String> names = table.getNames();
+			byte[] unit = getBytes(table.getUnit());
+			int size = 4 + unit.length + 4;
+			Map<Integer, byte[]> nameBytes = new HashMap<Integer, byte[]>();
+			for (Map.Entry<Integer, String> name : names.entrySet()) {
+				byte[] bytes = getBytes(name.getValue());
+				nameBytes.put(name.getKey(), bytes);
+				size = size + 4 + 4 + bytes.length;
+			}
+
+			ByteBuffer strings = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+			strings.putInt(unit.length).put(unit);
+			strings.putInt(nameBytes.size());
+			for (Map.Entry<Integer, byte[]> name : nameBytes.entrySet())
+				strings.putInt(name.getKey()).putInt(name.getValue().length).put(name.getValue());
+			strings.flip();
+			writeFully(channel, strings, offsetOfStrings);
+		}
+	}
+
+	/**
+	 * Opens a table file.
+	 * 
+	 * The file is mapped into memory, nothing but the header, the unit and the
+	 * names is read. The file is closed when this returns, the mapping stays
+	 * valid.
+	 * 
+	 * @param path The file.
+	 * @return A read only view of the table stored.
+	 * @throws IOException If the file could not be read, is not a table file or
+	 *                     was written by a later version.
+	 */
+	public static StressResultantTableFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new StressResultantTableFile(channel);
+		}
+	}
+
+	/**
+	 * Version of the file format the table was written with.
+	 * 
+	 * @return Version.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Number of sections.
+	 * 
+	 * @return Size of the table.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Section length.
+	 * 
+	 * @return The length of the sections, 0 if the sections are of different
+	 *         length.
+	 */
+	public double getSectionLength_m() {
+		return sectionLength_m;
+	}
+
+	/**
+	 * Checks if all sections have the same length.
+	 * 
+	 * @return True if all sections have the same length.
+	 */
+	public boolean isUniform() {
+		return uniform;
+	}
+
+	/**
+	 * Length of the beam the table belongs to.
+	 * 
+	 * @return Length.
+	 */
+	public double getLengthOfBeam_m() {
+		return lengthOfBeam_m;
+	}
+
+	/**
+	 * The unit shared by all stress resultants.
+	 * 
+	 * @return Unit e.g. N, Nm etc...
+	 */
+	public String getUnit() {
+		return unit;
+	}
+
+	/**
+	 * Position of a section.
+	 * 
+	 * @param index Index of the section.
+	 * @return Distance from the left end of the beam.
+	 */
+	public double getX_mAtIndex(int index) {
+		checkIndex(index);
+		if (x_m == null)
+			return index * sectionLength_m;
+		return get(x_m, index);
+	}
+
+	/**
+	 * Stress resultant of a section.
+	 * 
+	 * @param index Index of the section.
+	 * @return The value.
+	 */
+	public double getValueAtIndex(int index) {
+		checkIndex(index);
+		return get(values, index);
+	}
+
+	/**
+	 * Force delta of a section, see
+	 * {@link StressResultantTable#getShearingForceDeltaByAtIndex(int)}.
+	 * 
+	 * @param index Index of the section.
+	 * @return The force delta.
+	 */
+	public double getShearingForceDeltaByAtIndex(int index) {
+		checkIndex(index);
+		return get(shearingForceDeltaBy, index);
+	}
+
+	/**
+	 * Checks if a section is a point of discontinuity.
+	 * 
+	 * @param index Index of the section.
+	 * @return True if it is.
+	 */
+	public boolean isDiscontiunuityAtIndex(int index) {
+		return isFlagSet(index, StressResultantTable.FLAG_DISCONTIUNUITY);
+	}
+
+	/**
+	 * Checks if a section is a zero point.
+	 * 
+	 * @param index Index of the section.
+	 * @return True if it is.
+	 */
+	public boolean isZeroPointAtIndex(int index) {
+		return isFlagSet(index, StressResultantTable.FLAG_ZERO_POINT);
+	}
+
+	/**
+	 * Checks if a section is a maximum.
+	 * 
+	 * @param index Index of the section.
+	 * @return True if it is.
+	 */
+	public boolean isMaximaAtIndex(int index) {
+		return isFlagSet(index, StressResultantTable.FLAG_MAXIMA);
+	}
+
+	/**
+	 * Name of the load acting at a section.
+	 * 
+	 * @param index Index of the section.
+	 * @return The name or null.
+	 */
+	public String getNameAtIndex(int index) {
+		return names.get(index);
+	}
+
+	/**
+	 * Values of the table as a stream.
+	 * 
+	 * Each value is read from the file when the stream asks for it.
+	 * 
+	 * @return Values from the left to the right end of the beam.
+	 */
+	public DoubleStream values() {
+		return IntStream.range(0, length).mapToDouble(n -> get(values, n));
+	}
+
+	/**
+	 * Copies the table stored into a new {@link StressResultantTable}.
+	 * 
+	 * Cost and memory are O(number of sections).
+	 * 
+	 * @return A new, writable table.
+	 */
+	public StressResultantTable toTable() {
+		return toTable(this, lengthOfBeam_m);
+	}
+
+	private static StressResultantTable toTable(StressResultantTableFile file, double lengthOfBeam_m) {
+		StressResultantTable table;
+		if (file.isUniform()) {
+			table = new StressResultantTable(lengthOfBeam_m, file.sectionLength_m, file.unit);
+			if (file.x_m != null && table.getLength() == file.length)
+				getDoubles(file.x_m, table.getX_mArray());
+		} else {
+			double[] x_m = new double[file.length];
+			getDoubles(file.x_m, x_m);
+			table = new StressResultantTable(lengthOfBeam_m, x_m, new double[file.length], file.unit);
+		}
+		if (table.getLength() != file.length)
+			throw new IllegalStateException("Table has " + table.getLength() + " sections, file " + file.length);
+
+		getDoubles(file.values, table.getValueArray());
+		getDoubles(file.shearingForceDeltaBy, table.getShearingForceDeltaByArray());
+		byte[] flags = table.getFlagArray();
+		for (int i = 0; i <= file.flags.length - 1; i++) {
+			ByteBuffer buffer = file.flags[i].duplicate();
+			buffer.get(flags, i * MAPPING_SIZE, buffer.remaining());
+		}
+		for (Map.Entry<Integer, String> name : file.names.entrySet())
+			table.setNameAtIndex(name.getKey(), name.getValue());
+		return table;
+	}
+
+	private boolean isFlagSet(int index, byte flag) {
+		checkIndex(index);
+		return (flags[index / MAPPING_SIZE].get(index % MAPPING_SIZE) & flag) != 0;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+	}
+
+	private static double get(DoubleBuffer[] buffers, int index) {
+		return buffers[index / DOUBLES_PER_MAPPING].get(index % DOUBLES_PER_MAPPING);
+	}
+
+	private static long getOffsetOfStrings(int length, boolean positionsStored) {
+		long offset = HEADER_SIZE + (positionsStored ? 3L : 2L) * 8 * length + length;
+		return (offset + 7) / 8 * 8;
+	}
+
+	/*
+	 * Mapping helpers. A mapping can not be larger than 2 GB, so large arrays
+	 * are mapped in pieces of MAPPING_SIZE bytes.
+	 */
+
+	private static DoubleBuffer[] mapDoubles(FileChannel channel, long position, int count) throws IOException {
+		DoubleBuffer[] buffers = new DoubleBuffer[(count + DOUBLES_PER_MAPPING - 1) / DOUBLES_PER_MAPPING];
+		for (int i = 0; i <= buffers.length - 1; i++) {
+			int doubles = Math.min(DOUBLES_PER_MAPPING, count - i * DOUBLES_PER_MAPPING);
+			buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + (long) i * MAPPING_SIZE, 8L * doubles)
+					.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		}
+		return buffers;
+	}
+
+	private static ByteBuffer[] mapBytes(FileChannel channel, long position, int count) throws IOException {
+		ByteBuffer[] buffers = new ByteBuffer[(count + MAPPING_SIZE - 1) / MAPPING_SIZE];
+		for (int i = 0; i <= buffers.length - 1; i++) {
+			int bytes = Math.min(MAPPING_SIZE, count - i * MAPPING_SIZE);
+			buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + (long) i * MAPPING_SIZE, bytes);
+		}
+		return buffers;
+	}
+
+	private static void putDoubles(FileChannel channel, long position, int count, IntToDoubleFunction value)
+			throws IOException {
+		for (int from = 0; from < count; from = from + DOUBLES_PER_MAPPING) {
+			int doubles = Math.min(DOUBLES_PER_MAPPING, count - from);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position + 8L * from, 8L * doubles);
+			DoubleBuffer target = buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			for (int n = 0; n <= doubles - 1; n++)
+				target.put(n, value.applyAsDouble(from + n));
+			buffer.force();
+		}
+	}
+
+	private static void putFlags(FileChannel channel, long position, StressResultantTable table) throws IOException {
+		int count = table.getLength();
+		for (int from = 0; from < count; from = from + MAPPING_SIZE) {
+			int bytes = Math.min(MAPPING_SIZE, count - from);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position + from, bytes);
+			for (int n = 0; n <= bytes - 1; n++) {
+				int flag = 0;
+				if (table.isDiscontiunuityAtIndex(from + n))
+					flag = flag | StressResultantTable.FLAG_DISCONTIUNUITY;
+				if (table.isZeroPointAtIndex(from + n))
+					flag = flag | StressResultantTable.FLAG_ZERO_POINT;
+				if (table.isMaximaAtIndex(from + n))
+					flag = flag | StressResultantTable.FLAG_MAXIMA;
+				buffer.put(n, (byte) flag);
+			}
+			buffer.force();
+		}
+	}
+
+	private static void getDoubles(DoubleBuffer[] buffers, double[] values) {
+		for (int i = 0; i <= buffers.length - 1; i++) {
+			DoubleBuffer buffer = buffers[i].duplicate();
+			buffer.get(values, i * DOUBLES_PER_MAPPING, buffer.remaining());
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position = position + channel.write(buffer, position);
+	}
+
+	private static byte[] getBytes(String s) {
+		return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
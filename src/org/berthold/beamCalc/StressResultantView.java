@@ -0,0 +1,134 @@
+package org.berthold.beamCalc;
+
+/**
+ * A {@link StressResultant} which does not hold any data itself.
+ * 
+ * All values are read from and written to a section of a
+ * {@link StressResultantTable}. Objects of this class are created by the
+ * table whenever a stress resultant object is requested.
+ * 
+ * @author Berthold
+ *
+ */
+class StressResultantView extends StressResultant {
+	private final StressResultantTable table;
+	private final int index;
+
+	/**
+	 * Creates a view of a section of a table.
+	 * 
+	 * @param table The {@link StressResultantTable} holding the data.
+	 * @param index Index of the section.
+	 */
+	StressResultantView(StressResultantTable table, int index) {
+		super(0, 0, null);
+		this.table = table;
+		this.index = index;
+	}
+
+	/**
+	 * Checks if this views the specified section.
+	 * 
+	 * @param table
+	 * @param index
+	 * @return True if this is a view of the section at the index of the table.
+	 */
+	boolean isViewOf(StressResultantTable table, int index) {
+		return this.table == table && this.index == index;
+	}
+
+	@Override
+	public double getX_m() {
+		return table.getX_mAtIndex(index);
+	}
+
+	@Override
+	public void setX_m(double x_m) {
+		table.setX_mAtIndex(index, x_m);
+	}
+
+	@Override
+	public double getShearingForce() {
+		return table.getValueAtIndex(index);
+	}
+
+	@Override
+	public void setShearingForce(double f_N) {
+		table.setValueAtIndex(index, f_N);
+	}
+
+	@Override
+	public void addValue(double value) {
+		table.addValueAtIndex(index, value);
+	}
+
+	@Override
+	public void multiplyValue(double value) {
+		table.setValueAtIndex(index, table.getValueAtIndex(index) * value);
+	}
+
+	@Override
+	public double getShearingForceValue() {
+		return table.getValueAtIndex(index);
+	}
+
+	@Override
+	public void setShearingForceValue(double shearingForceValue) {
+		table.setValueAtIndex(index, shearingForceValue);
+	}
+
+	@Override
+	public boolean isDiscontiunuity() {
+		return table.isDiscontiunuityAtIndex(index);
+	}
+
+	@Override
+	public void setDiscontiunuity(boolean isDiscontiunuity) {
+		table.setDiscontiunuityAtIndex(index, isDiscontiunuity);
+	}
+
+	@Override
+	public String getUnit() {
+		return table.getUnit();
+	}
+
+	@Override
+	public boolean isZeroPoint() {
+		return table.isZeroPointAtIndex(index);
+	}
+
+	@Override
+	public void setZeroPoint(boolean isZeroPoint) {
+		table.setZeroPointAtIndex(index, isZeroPoint);
+	}
+
+	@Override
+	public double getShearingForceDeltaBy() {
+		return table.getShearingForceDeltaByAtIndex(index);
+	}
+
+	@Override
+	public void setShearingForceDeltaBy(double shearingForceDeltaBy) {
+		table.setShearingForceDeltaByAtIndex(index, shearingForceDeltaBy);
+	}
+
+	@Override
+	public boolean isMaxima() {
+		return table.isMaximaAtIndex(index);
+	}
+
+	@Override
+	public void setMaxima(boolean isMaxima) {
+		table.setMaximaAtIndex(index, isMaxima);
+	}
+
+	@Override
+	public String getName() {
+		return table.getNameAtIndex(index);
+	}
+
+	@Override
+	public void setName(String name) {
+		table.setNameAtIndex(index, name);
+	}
+}
@@ -1,5 +1,7 @@
 package org.berthold.beamCalc;
 
+import java.util.Objects;
+
 /**
  * A support.
  * <p>
@@ -71,12 +73,32 @@ public class Support implements Comparable<Support> {
 		return this.supportType;
 	}
 
+	/**
+	 * Two supports are equal if name, position and type are equal.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof Support))
+			return false;
+		Support s = (Support) o;
+		return Objects.equals(nameOfSupport, s.nameOfSupport)
+				&& Double.compare(distanceFromLeftEndOfBeam_m, s.distanceFromLeftEndOfBeam_m) == 0
+				&& supportType == s.supportType;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(nameOfSupport, distanceFromLeftEndOfBeam_m, supportType);
+	}
+
 	/*
 	 * Compareable
 	 */
 	@Override
 	public int compareTo(Support compareDistanceFromLeftEndOfBeam_m) {
-		return (int) this.distanceFromLeftEndOfBeam_m
-				- (int) compareDistanceFromLeftEndOfBeam_m.distanceFromLeftEndOfBeam_m;
+		return Double.compare(this.distanceFromLeftEndOfBeam_m,
+				compareDistanceFromLeftEndOfBeam_m.distanceFromLeftEndOfBeam_m);
 	}
 }